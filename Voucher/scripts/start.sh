@@ -0,0 +1,17 @@
+#!/bin/sh
+# Starts the service from the jar unpacked by ./gradlew cdsArchive, using its AppCDS archive
+# when present. Set VOUCHER_AOT=true for a jar built with -Paot. The catalog snapshot lives in
+# VOUCHER_SNAPSHOT_FILE (default build/cds/catalog.snapshot). Extra arguments go to the application.
+set -e
+cd "$(dirname "$0")/../build/cds"
+
+JAR=$(ls Voucher-*.jar | head -n 1)
+set -- "--voucher.catalog.snapshot-file=${VOUCHER_SNAPSHOT_FILE:-$PWD/catalog.snapshot}" "$@"
+if [ "${VOUCHER_AOT:-false}" = "true" ]; then
+    JAVA_OPTS="$JAVA_OPTS -Dspring.aot.enabled=true"
+fi
+if [ -f application.jsa ]; then
+    JAVA_OPTS="$JAVA_OPTS -XX:SharedArchiveFile=application.jsa"
+fi
+# shellcheck disable=SC2086
+exec "${JAVA_HOME:+$JAVA_HOME/bin/}java" $JAVA_OPTS -jar "$JAR" "$@"
@@ -0,0 +1,64 @@
+package org.voucher.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.voucher.Service.CouponEventPublisher;
+import org.voucher.model.Coupon;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// What publishing an event costs a request thread while four threads publish at once and a
+// flusher drains the queue into a sink that discards the batches
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class CouponEventBenchmark {
+
+    private CouponEventPublisher publisher;
+    private Thread flusher;
+    private volatile boolean running;
+    private Coupon coupon;
+    private List<Coupon> shown;
+
+    @Setup
+    public void setUp() {
+        publisher = new CouponEventPublisher(events -> {
+        }, true, 65536, 1000, CouponEventPublisher.Overflow.WAIT, CouponEventPublisher.Overflow.DROP, 100, 0);
+        coupon = CouponFixtures.coupons(1, 42).get(0);
+        shown = CouponFixtures.coupons(10, 42);
+        running = true;
+        flusher = new Thread(() -> {
+            while (running) {
+                publisher.flush();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }, "coupon-events-flusher");
+        flusher.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        running = false;
+        flusher.join();
+    }
+
+    @Benchmark
+    public void applied() {
+        publisher.applied(coupon, 1000);
+    }
+
+    @Benchmark
+    public void shown() {
+        publisher.shown(shown);
+    }
+}
@@ -0,0 +1,85 @@
+package org.voucher.benchmark;
+
+import org.voucher.Service.ApplicableCouponCache;
+import org.voucher.Service.CouponEventPublisher;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Deterministic coupon catalogs and carts for the benchmarks
+final class CouponFixtures {
+
+    static final int PRODUCT_RANGE = 20_000;
+
+    private CouponFixtures() {
+    }
+
+    // Switched off, so the service benchmarks measure evaluation alone; CouponEventBenchmark covers publishing
+    static CouponEventPublisher noEvents() {
+        return new CouponEventPublisher(events -> {
+        }, false, 2, 1, CouponEventPublisher.Overflow.DROP, CouponEventPublisher.Overflow.DROP, 0, 0);
+    }
+
+    // Switched off, so repeated calls with the same cart measure evaluation rather than cache hits
+    static ApplicableCouponCache noCache() {
+        return new ApplicableCouponCache(0, 0);
+    }
+
+    // An even mix of CART_WISE, PRODUCT_WISE and BXGY coupons
+    static List<Coupon> coupons(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Coupon> coupons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CouponType type = CouponType.values()[i % 3];
+            Map<String, Object> details = switch (type) {
+                case CART_WISE -> Map.of(
+                        "threshold", random.nextInt(2_000),
+                        "discount", 1 + random.nextInt(30));
+                case PRODUCT_WISE -> Map.of(
+                        "product_id", 1 + random.nextInt(PRODUCT_RANGE),
+                        "discount", 1 + random.nextInt(50));
+                case BXGY -> Map.of(
+                        "buy_products", List.of(
+                                Map.of("product_id", 1 + random.nextInt(PRODUCT_RANGE), "quantity", 1),
+                                Map.of("product_id", 1 + random.nextInt(PRODUCT_RANGE), "quantity", 1)),
+                        "get_products", List.of(Map.of("product_id", 1 + random.nextInt(PRODUCT_RANGE), "quantity", 1)),
+                        "repetition_limit", 1 + random.nextInt(3));
+                // Not generated: the mix above stays the original three types
+                case CATEGORY_WISE -> throw new IllegalStateException();
+            };
+            coupons.add(coupon("c" + i, type, details));
+        }
+        return coupons;
+    }
+
+    static Coupon coupon(String id, CouponType type, Map<String, Object> details) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setType(type);
+        coupon.setDetails(details);
+        coupon.setActive(true);
+        coupon.setCreationDate(LocalDate.now());
+        coupon.setExpirationDate(LocalDate.now().plusYears(1));
+        return coupon;
+    }
+
+    // A cart of the given size with whole-unit prices
+    static CartRequest cart(int items, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        CartItem[] cartItems = new CartItem[items];
+        long total = 0;
+        for (int i = 0; i < items; i++) {
+            long priceCents = (1 + random.nextInt(200)) * 100L;
+            cartItems[i] = new CartItem(1 + random.nextInt(PRODUCT_RANGE), 1 + random.nextInt(3), priceCents);
+            total += priceCents;
+        }
+        return new CartRequest(cartItems, total);
+    }
+}
@@ -0,0 +1,107 @@
+package org.voucher.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.voucher.Service.ApplicableCouponCache;
+import org.voucher.Service.CatalogSnapshotStore;
+import org.voucher.Service.CatalogSync;
+import org.voucher.Service.CouponCatalog;
+import org.voucher.Service.CouponCodeIndex;
+import org.voucher.Service.CouponService;
+import org.voucher.Service.DecisionLog;
+import org.voucher.Service.ProductCategoryStore;
+import org.voucher.metrics.CouponMetrics;
+import org.voucher.model.ApplyCouponResponse;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+import org.voucher.repository.CouponRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Hot paths of CouponService against an in-memory repository.
+// Run with ./gradlew jmh; the gc profiler adds allocation rates per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CouponServiceBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int catalogSize;
+
+    @Param({"1", "50", "500"})
+    public int cartSize;
+
+    private CouponService couponService;
+    // Same catalog behind the applicable-coupon cache, answering a cart page rendered again
+    private CouponService cachedCouponService;
+    private CartRequest cart;
+
+    @Setup
+    public void setUp() {
+        List<Coupon> coupons = new ArrayList<>(CouponFixtures.coupons(catalogSize, 42));
+        cart = CouponFixtures.cart(cartSize, 7);
+
+        // One coupon per type that is guaranteed to apply to the cart
+        int productId = cart.getItems()[0].getProductId();
+        coupons.add(CouponFixtures.coupon("cart-wise", CouponType.CART_WISE,
+                Map.of("threshold", 0, "discount", 10)));
+        coupons.add(CouponFixtures.coupon("product-wise", CouponType.PRODUCT_WISE,
+                Map.of("product_id", productId, "discount", 10)));
+        coupons.add(CouponFixtures.coupon("bxgy", CouponType.BXGY, Map.of(
+                "buy_products", List.of(Map.of("product_id", productId, "quantity", 1)),
+                "get_products", List.of(Map.of("product_id", productId, "quantity", 1)),
+                "repetition_limit", 2)));
+
+        CouponRepository repository = InMemoryCouponRepository.of(coupons);
+        CouponCatalog catalog = new CouponCatalog(repository);
+        catalog.reload();
+        couponService = service(repository, catalog, CouponFixtures.noCache());
+        cachedCouponService = service(repository, catalog, new ApplicableCouponCache(1024, 60_000));
+    }
+
+    private static CouponService service(CouponRepository repository, CouponCatalog catalog,
+                                         ApplicableCouponCache applicableCache) {
+        CouponCodeIndex codeIndex = new CouponCodeIndex(repository, 0.001);
+        return new CouponService(repository, catalog, new CouponMetrics(new SimpleMeterRegistry()),
+                new ProductCategoryStore(""), codeIndex,
+                new CatalogSync(null, repository, catalog, codeIndex, new CatalogSnapshotStore(null, ""), 1000, 0, 5000),
+                new DecisionLog(new ObjectMapper(), 0, 1024), CouponFixtures.noEvents(), applicableCache);
+    }
+
+    @Benchmark
+    public List<Coupon> getApplicableCoupons() {
+        return couponService.getApplicableCoupons(cart);
+    }
+
+    @Benchmark
+    public List<Coupon> getApplicableCouponsCached() {
+        return cachedCouponService.getApplicableCoupons(cart);
+    }
+
+    @Benchmark
+    public ApplyCouponResponse applyCartWise() {
+        return couponService.applyCouponToCart("cart-wise", cart);
+    }
+
+    @Benchmark
+    public ApplyCouponResponse applyProductWise() {
+        return couponService.applyCouponToCart("product-wise", cart);
+    }
+
+    @Benchmark
+    public ApplyCouponResponse applyBxGy() {
+        return couponService.applyCouponToCart("bxgy", cart);
+    }
+}
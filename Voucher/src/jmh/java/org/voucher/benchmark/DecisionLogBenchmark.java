@@ -0,0 +1,69 @@
+package org.voucher.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.voucher.Service.CatalogSnapshotStore;
+import org.voucher.Service.CatalogSync;
+import org.voucher.Service.CouponCatalog;
+import org.voucher.Service.CouponCodeIndex;
+import org.voucher.Service.CouponService;
+import org.voucher.Service.DecisionLog;
+import org.voucher.Service.ProductCategoryStore;
+import org.voucher.metrics.CouponMetrics;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.repository.CouponRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// What the sampled decision log costs the applicable-coupons path. A sample rate of 0 turns it off
+// and should match CouponServiceBenchmark.getApplicableCoupons; 1000 is the default; 1 records every
+// request. Nothing flushes here, so at 1 the buffer soon fills and the rest measures the drop path.
+// Run with java -jar build/libs/Voucher-0.0.1-SNAPSHOT-jmh.jar DecisionLogBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecisionLogBenchmark {
+
+    @Param({"0", "1000", "1"})
+    public int sampleRate;
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    @Param({"50"})
+    public int cartSize;
+
+    private CouponService couponService;
+    private CartRequest cart;
+
+    @Setup
+    public void setUp() {
+        List<Coupon> coupons = CouponFixtures.coupons(catalogSize, 42);
+        cart = CouponFixtures.cart(cartSize, 7);
+
+        CouponRepository repository = InMemoryCouponRepository.of(coupons);
+        CouponCatalog catalog = new CouponCatalog(repository);
+        catalog.reload();
+        CouponCodeIndex codeIndex = new CouponCodeIndex(repository, 0.001);
+        couponService = new CouponService(repository, catalog, new CouponMetrics(new SimpleMeterRegistry()),
+                new ProductCategoryStore(""), codeIndex,
+                new CatalogSync(null, repository, catalog, codeIndex, new CatalogSnapshotStore(null, ""), 1000, 0, 5000),
+                new DecisionLog(new ObjectMapper(), sampleRate, 8192), CouponFixtures.noEvents(),
+                CouponFixtures.noCache());
+    }
+
+    @Benchmark
+    public List<Coupon> getApplicableCoupons() {
+        return couponService.getApplicableCoupons(cart);
+    }
+}
@@ -0,0 +1,47 @@
+package org.voucher.benchmark;
+
+import org.voucher.model.Coupon;
+import org.voucher.repository.CouponRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// CouponRepository backed by a map, so benchmarks measure evaluation rather than Mongo.
+// Only the calls the benchmarked paths make are supported.
+final class InMemoryCouponRepository {
+
+    private InMemoryCouponRepository() {
+    }
+
+    static CouponRepository of(List<Coupon> coupons) {
+        Map<String, Coupon> byId = new HashMap<>();
+        for (Coupon coupon : coupons) {
+            byId.put(coupon.getId(), coupon);
+        }
+        return (CouponRepository) Proxy.newProxyInstance(
+                CouponRepository.class.getClassLoader(),
+                new Class<?>[]{CouponRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> new ArrayList<>(byId.values());
+                    case "findById" -> Optional.ofNullable(byId.get((String) args[0]));
+                    case "findAllById" -> {
+                        List<Coupon> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            Coupon coupon = byId.get((String) id);
+                            if (coupon != null) {
+                                found.add(coupon);
+                            }
+                        }
+                        yield found;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryCouponRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,96 @@
+package org.voucher.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.voucher.util.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Percentage discounts over a batch of amounts: the old double arithmetic,
+// Money's fixed-point cents and a BigDecimal equivalent for reference.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoneyBenchmark {
+
+    private static final int AMOUNTS = 1024;
+    private static final BigDecimal TEN_THOUSAND = BigDecimal.valueOf(10_000);
+
+    private final double[] amounts = new double[AMOUNTS];
+    private final long[] amountCents = new long[AMOUNTS];
+    private final int[] basisPoints = new int[AMOUNTS];
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < AMOUNTS; i++) {
+            amountCents[i] = 1 + random.nextLong(10_000_000);
+            amounts[i] = amountCents[i] / 100.0;
+            basisPoints[i] = 1 + random.nextInt(10_000);
+        }
+    }
+
+    // cartTotal * (discount / 100), as CouponService computed it before
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public double doublePercent() {
+        double sum = 0;
+        for (int i = 0; i < AMOUNTS; i++) {
+            sum += amounts[i] * (basisPoints[i] / 100.0 / 100);
+        }
+        return sum;
+    }
+
+    // The same in double, rounded to the cent as any money result has to be
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public long doublePercentRounded() {
+        long sum = 0;
+        for (int i = 0; i < AMOUNTS; i++) {
+            sum += Math.round(amountCents[i] * (basisPoints[i] / 10_000.0));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public long moneyPercentHalfUp() {
+        long sum = 0;
+        for (int i = 0; i < AMOUNTS; i++) {
+            sum += Money.percentOf(amountCents[i], basisPoints[i], RoundingMode.HALF_UP);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public long moneyPercentHalfEven() {
+        long sum = 0;
+        for (int i = 0; i < AMOUNTS; i++) {
+            sum += Money.percentOf(amountCents[i], basisPoints[i], RoundingMode.HALF_EVEN);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AMOUNTS)
+    public long bigDecimalPercent() {
+        long sum = 0;
+        for (int i = 0; i < AMOUNTS; i++) {
+            sum += BigDecimal.valueOf(amountCents[i])
+                    .multiply(BigDecimal.valueOf(basisPoints[i]))
+                    .divide(TEN_THOUSAND, 0, RoundingMode.HALF_UP)
+                    .longValue();
+        }
+        return sum;
+    }
+}
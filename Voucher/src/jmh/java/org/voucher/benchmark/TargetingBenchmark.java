@@ -0,0 +1,82 @@
+package org.voucher.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.voucher.Service.CatalogSnapshotStore;
+import org.voucher.Service.CatalogSync;
+import org.voucher.Service.CouponCatalog;
+import org.voucher.Service.CouponCodeIndex;
+import org.voucher.Service.CouponService;
+import org.voucher.Service.DecisionLog;
+import org.voucher.Service.ProductCategoryStore;
+import org.voucher.metrics.CouponMetrics;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+import org.voucher.model.RequestContext;
+import org.voucher.model.Targeting;
+import org.voucher.repository.CouponRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// A catalog where every coupon is a low-threshold CART_WISE coupon, so the cart alone would
+// make all of them candidates; targeting to one of 100 segments and 20 regions has to cut them down.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TargetingBenchmark {
+
+    private static final int SEGMENTS = 100;
+    private static final int REGIONS = 20;
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    private CouponService couponService;
+    private CartRequest cart;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Coupon> coupons = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            Coupon coupon = CouponFixtures.coupon("t" + i, CouponType.CART_WISE,
+                    Map.of("threshold", random.nextInt(100), "discount", 1 + random.nextInt(30)));
+            coupon.setTargeting(new Targeting(
+                    Set.of("segment-" + random.nextInt(SEGMENTS)),
+                    Set.of("region-" + random.nextInt(REGIONS)),
+                    null));
+            coupons.add(coupon);
+        }
+        CouponRepository repository = InMemoryCouponRepository.of(coupons);
+        CouponCatalog catalog = new CouponCatalog(repository);
+        catalog.reload();
+        CouponCodeIndex codeIndex = new CouponCodeIndex(repository, 0.001);
+        couponService = new CouponService(repository, catalog, new CouponMetrics(new SimpleMeterRegistry()),
+                new ProductCategoryStore(""), codeIndex,
+                new CatalogSync(null, repository, catalog, codeIndex, new CatalogSnapshotStore(null, ""), 1000, 0, 5000),
+                new DecisionLog(new ObjectMapper(), 0, 1024), CouponFixtures.noEvents(),
+                CouponFixtures.noCache());
+
+        cart = CouponFixtures.cart(10, 7);
+        cart.setContext(new RequestContext(Set.of("segment-1", "segment-2"), "region-3", "web"));
+    }
+
+    @Benchmark
+    public List<Coupon> getApplicableCoupons() {
+        return couponService.getApplicableCoupons(cart);
+    }
+}
@@ -0,0 +1,130 @@
+package org.voucher.loadtest;
+
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load generator for a running service: each of `concurrency` virtual-thread
+// clients sends a request, waits for the response and sends the next one.
+// Run it once against the service with VOUCHER_VIRTUAL_THREADS=false and once with true,
+// with a concurrency well above Tomcat's 200 worker threads, and compare the results.
+//
+//   ./gradlew loadTest -Pargs="--url=http://localhost:8081 --concurrency=1000 --duration=60 --endpoint=apply --coupon-id=..."
+//
+// --endpoint=applicable (default) posts random carts to /applicable-coupons, which is served
+// from the in-memory catalog; --endpoint=apply posts to /apply-coupon/{id}, which does a
+// blocking Mongo findById per request.
+public class CouponLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String url = options.getOrDefault("url", "http://localhost:8081");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1000"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int cartItems = Integer.parseInt(options.getOrDefault("items", "10"));
+        String endpoint = options.getOrDefault("endpoint", "applicable");
+        URI target = switch (endpoint) {
+            case "applicable" -> URI.create(url + "/api/v1/coupons/applicable-coupons");
+            case "apply" -> URI.create(url + "/api/v1/coupons/apply-coupon/" + require(options, "coupon-id"));
+            default -> throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        };
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Recorder recorder = new Recorder(TimeUnit.MINUTES.toNanos(1), 3);
+        AtomicLong errors = new AtomicLong();
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        System.out.printf("%d clients -> %s, %ds warmup + %ds measured%n", concurrency, target, warmupSeconds, durationSeconds);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                SplittableRandom random = new SplittableRandom(i);
+                clients.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        HttpRequest request = HttpRequest.newBuilder(target)
+                                .timeout(Duration.ofSeconds(30))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(cart(random, cartItems)))
+                                .build();
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() < 500;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long finished = System.nanoTime();
+                        if (start >= warmupEnd) {
+                            recorder.recordValue(Math.min(finished - start, TimeUnit.MINUTES.toNanos(1)));
+                            if (!ok) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+            // Reset once the warmup is over so the report only covers the measured window
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(warmupEnd - System.nanoTime()));
+            recorder.reset();
+        }
+
+        var histogram = recorder.getIntervalHistogram();
+        long requests = histogram.getTotalCount();
+        System.out.printf("requests   %d (%d errors)%n", requests, errors.get());
+        System.out.printf("throughput %.1f req/s%n", requests / (double) durationSeconds);
+        System.out.printf("p50        %.2f ms%n", histogram.getValueAtPercentile(50) / 1e6);
+        System.out.printf("p99        %.2f ms%n", histogram.getValueAtPercentile(99) / 1e6);
+        System.out.printf("p99.9      %.2f ms%n", histogram.getValueAtPercentile(99.9) / 1e6);
+        System.out.printf("max        %.2f ms%n", histogram.getMaxValue() / 1e6);
+    }
+
+    private static String cart(SplittableRandom random, int items) {
+        List<String> lines = new ArrayList<>(items);
+        double total = 0;
+        for (int i = 0; i < items; i++) {
+            int quantity = 1 + random.nextInt(3);
+            double price = 10 + random.nextInt(200);
+            total += quantity * price;
+            lines.add("{\"product_id\":" + (1 + random.nextInt(1000)) + ",\"quantity\":" + quantity + ",\"price\":" + price + "}");
+        }
+        return "{\"items\":[" + String.join(",", lines) + "],\"totalPrice\":" + total + "}";
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static String require(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("--" + name + " is required");
+        }
+        return value;
+    }
+}
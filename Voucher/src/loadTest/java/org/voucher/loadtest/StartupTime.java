@@ -0,0 +1,91 @@
+package org.voucher.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Time to the first healthy request: launches the service, polls /actuator/health every 10 ms
+// and stops the service once it answers UP, `runs` times in a row. The service is stopped with
+// SIGTERM, so a node with a snapshot file configured writes it and the next run starts from it.
+//
+//   ./gradlew startupTime -Pargs="--runs=5 --url=http://localhost:8081 -- scripts/start.sh"
+//
+// Everything after "--" is the command that starts the service; it should exec the JVM.
+public class StartupTime {
+
+    public static void main(String[] args) throws Exception {
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            throw new IllegalArgumentException("Expected options, then -- and the command that starts the service");
+        }
+        Map<String, String> options = parse(Arrays.copyOfRange(args, 0, separator));
+        List<String> command = List.of(Arrays.copyOfRange(args, separator + 1, args.length));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int timeoutSeconds = Integer.parseInt(options.getOrDefault("timeout", "180"));
+        URI health = URI.create(options.getOrDefault("url", "http://localhost:8081") + "/actuator/health");
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        List<Long> millis = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+                while (!isUp(client, health)) {
+                    if (!process.isAlive()) {
+                        throw new IllegalStateException("The service exited with status " + process.exitValue());
+                    }
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException("The service was not healthy after " + timeoutSeconds + "s");
+                    }
+                    Thread.sleep(10);
+                }
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                millis.add(elapsed);
+                System.out.printf("run %d: healthy after %d ms%n", run, elapsed);
+            } finally {
+                process.destroy();
+                if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+        millis.sort(null);
+        System.out.printf("min %d ms, median %d ms, max %d ms over %d runs%n",
+                millis.get(0), millis.get(millis.size() / 2), millis.get(millis.size() - 1), millis.size());
+    }
+
+    private static boolean isUp(HttpClient client, URI health) throws InterruptedException {
+        try {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(health).timeout(Duration.ofSeconds(1)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 && response.body().contains("\"UP\"");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
@@ -1,10 +1,12 @@
 package org.voucher.Scheduler;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.voucher.Service.CouponService;
 
+@Slf4j
 @Component
 public class CouponExpirationScheduler {
 
@@ -18,6 +20,9 @@ public class CouponExpirationScheduler {
     // Run every day at midnight (00:00)
     @Scheduled(cron = "0 0 0 * * ?")
     public void markExpiredCouponsInactive() {
-        couponService.deactivateExpiredCoupons();
+        long start = System.nanoTime();
+        long deactivated = couponService.deactivateExpiredCoupons();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Deactivated {} expired coupons in {} ms", deactivated, elapsedMillis);
     }
 }
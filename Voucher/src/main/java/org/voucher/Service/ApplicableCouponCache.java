@@ -0,0 +1,135 @@
+package org.voucher.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.voucher.model.Coupon;
+import org.voucher.model.RequestContext;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+// Applicable-coupon answers kept per cart, so a cart page rendered again with an unchanged cart
+// skips evaluation. Entries live in a Caffeine cache (W-TinyLFU eviction) bounded by max-size and
+// expiring ttl-ms after they were written; a max-size of 0 turns the cache off.
+// The key holds everything applicability depends on: the cart total, each distinct product with its
+// summed quantity, category and brand, the request context, the day (coupons expire by date) and the
+// catalog generation. A catalog change therefore misses at once, on this node or through CatalogSync,
+// and CouponService also drops every entry after its own writes so stale answers do not take up room.
+@Component
+public class ApplicableCouponCache implements MeterBinder {
+
+    static final String NAME = "coupon.applicable";
+
+    // null when the cache is turned off
+    private final Cache<CartKey, List<Coupon>> cache;
+
+    @Autowired
+    public ApplicableCouponCache(@Value("${voucher.applicable-cache.max-size:100000}") long maxSize,
+                                 @Value("${voucher.applicable-cache.ttl-ms:30000}") long ttlMillis) {
+        this.cache = maxSize <= 0 || ttlMillis <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+    }
+
+    // The cached answer for the cart, or the loader's, which is then cached.
+    // Concurrent lookups of the same missing key share one load.
+    public List<Coupon> get(CartSummary summary, long generation, LocalDate today, Supplier<List<Coupon>> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        return cache.get(CartKey.of(summary, generation, today), key -> List.copyOf(loader.get()));
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    public double hitRatio() {
+        return cache == null ? 0 : cache.stats().hitRate();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache == null) {
+            return;
+        }
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+        Gauge.builder("coupon.applicable.cache.hit.ratio", this, ApplicableCouponCache::hitRatio)
+                .description("Share of applicable-coupon lookups answered from the cache")
+                .register(registry);
+    }
+
+    // Canonical form of a cart for applicability. Products come sorted from CartSummary, so
+    // carts that list the same lines in another order, or split a product over several lines,
+    // get equal keys. Equality compares the full contents; the hash only picks the bucket.
+    static final class CartKey {
+
+        private final long generation;
+        private final long day;
+        private final long totalCents;
+        // productId, quantity, category and brand of each distinct product
+        private final int[] products;
+        private final RequestContext context;
+        private final int hash;
+
+        private CartKey(long generation, long day, long totalCents, int[] products, RequestContext context) {
+            this.generation = generation;
+            this.day = day;
+            this.totalCents = totalCents;
+            this.products = products;
+            this.context = context;
+            int h = Long.hashCode(generation);
+            h = 31 * h + Long.hashCode(day);
+            h = 31 * h + Long.hashCode(totalCents);
+            h = 31 * h + Arrays.hashCode(products);
+            this.hash = 31 * h + Objects.hashCode(context);
+        }
+
+        static CartKey of(CartSummary summary, long generation, LocalDate today) {
+            int[] productIds = summary.productIds();
+            int[] products = new int[productIds.length * 4];
+            for (int i = 0; i < productIds.length; i++) {
+                products[4 * i] = productIds[i];
+                products[4 * i + 1] = summary.quantityAt(i);
+                products[4 * i + 2] = summary.categoryAt(i);
+                products[4 * i + 3] = summary.brandAt(i);
+            }
+            return new CartKey(generation, today.toEpochDay(), summary.totalCents(), products, summary.context());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof CartKey other
+                    && hash == other.hash
+                    && generation == other.generation
+                    && day == other.day
+                    && totalCents == other.totalCents
+                    && Arrays.equals(products, other.products)
+                    && Objects.equals(context, other.context);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
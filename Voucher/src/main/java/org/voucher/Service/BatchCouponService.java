@@ -0,0 +1,83 @@
+package org.voucher.Service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.voucher.config.EvaluationExecutorFactory;
+import org.voucher.model.BatchCartRequest;
+import org.voucher.model.BatchCartResult;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// Evaluates many carts per request. Referenced coupons are resolved with one
+// findAllById and the carts are evaluated in parallel on a bounded pool.
+@Service
+public class BatchCouponService {
+
+    private final CouponService couponService;
+    private final AsyncTaskExecutor executor;
+
+    @Autowired
+    public BatchCouponService(CouponService couponService,
+                              EvaluationExecutorFactory executorFactory,
+                              @Value("${voucher.batch.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+                              @Value("${voucher.batch.queue-capacity:1000}") int queueCapacity) {
+        this.couponService = couponService;
+        this.executor = executorFactory.create("coupon-batch-", threads, queueCapacity);
+    }
+
+    // One result per cart, in request order; a failing cart does not affect the others
+    public List<BatchCartResult> evaluate(List<BatchCartRequest> carts) {
+        Set<String> couponIds = new LinkedHashSet<>();
+        for (BatchCartRequest cart : carts) {
+            if (cart.getCouponId() != null) {
+                couponIds.add(cart.getCouponId());
+            }
+        }
+        Map<String, Coupon> coupons = couponIds.isEmpty() ? Map.of() : couponService.getCouponsByIds(couponIds);
+
+        List<CompletableFuture<BatchCartResult>> futures = new ArrayList<>(carts.size());
+        for (int i = 0; i < carts.size(); i++) {
+            int index = i;
+            BatchCartRequest cart = carts.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> evaluate(index, cart, coupons), executor));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private BatchCartResult evaluate(int index, BatchCartRequest request, Map<String, Coupon> coupons) {
+        BatchCartResult result = new BatchCartResult();
+        result.setIndex(index);
+        result.setCouponId(request.getCouponId());
+        try {
+            CartRequest cart = request.getCart();
+            if (request.getCouponId() == null) {
+                result.setApplicableCoupons(couponService.getApplicableCoupons(cart));
+            } else {
+                Coupon coupon = coupons.get(request.getCouponId());
+                if (coupon == null) {
+                    throw new RuntimeException("Coupon not found");
+                }
+                result.setAppliedCoupon(couponService.applyCouponToCart(coupon, cart));
+            }
+        } catch (RuntimeException e) {
+            result.setError(Objects.requireNonNullElse(e.getMessage(), e.getClass().getSimpleName()));
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        EvaluationExecutorFactory.shutdown(executor);
+    }
+}
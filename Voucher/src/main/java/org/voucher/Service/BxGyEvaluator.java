@@ -0,0 +1,159 @@
+package org.voucher.Service;
+
+import org.voucher.model.CartItem;
+import org.voucher.rule.BxGyRule;
+
+import java.util.Arrays;
+
+// Works out how a BXGY coupon applies to a cart, counting units rather than cart lines.
+// The offer repeats as often as every buy product has its quantity in the cart, up to the repetition
+// limit; each repetition makes its quantity of each get product free, out of the units the cart holds
+// beyond those bought. Free units are taken from the cheapest lines first, or the most expensive ones
+// if the rule says so. Runs in O(items + rule size) with a handful of arrays per call; only a get
+// product spread over several lines needs its lines sorted by unit price.
+final class BxGyEvaluator {
+
+    private static final int INSERTION_SORT_MAX = 16;
+
+    private BxGyEvaluator() {
+    }
+
+    // How many times the buy condition is met, up to the repetition limit
+    static int repetitions(BxGyRule rule, CartSummary summary) {
+        int repetitions = rule.repetitionLimit();
+        for (int i = 0; i < rule.buyCount() && repetitions > 0; i++) {
+            int quantity = Math.max(0, summary.quantity(rule.buyProductId(i)));
+            repetitions = Math.min(repetitions, quantity / rule.buyNeed(i));
+        }
+        return repetitions;
+    }
+
+    // The buy condition is met and the cart holds at least one unit that becomes free
+    static boolean isApplicable(BxGyRule rule, CartSummary summary) {
+        int repetitions = repetitions(rule, summary);
+        for (int j = 0; repetitions > 0 && j < rule.getCount(); j++) {
+            if (freeUnits(rule, summary, repetitions, j) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static BxGyMatch evaluate(BxGyRule rule, CartSummary summary) {
+        int repetitions = repetitions(rule, summary);
+        if (repetitions == 0) {
+            return BxGyMatch.NONE;
+        }
+        int getCount = rule.getCount();
+        long[] remaining = new long[getCount];
+        boolean any = false;
+        for (int j = 0; j < getCount; j++) {
+            remaining[j] = freeUnits(rule, summary, repetitions, j);
+            any |= remaining[j] > 0;
+        }
+        if (!any) {
+            return BxGyMatch.NONE;
+        }
+
+        // Group the lines of each get product, in cart order, with a counting sort
+        CartItem[] items = summary.items();
+        int[] groupOf = new int[items.length];
+        int[] start = new int[getCount + 1];
+        for (int i = 0; i < items.length; i++) {
+            int j = items[i].getQuantity() > 0 ? rule.getIndexOf(items[i].getProductId()) : -1;
+            groupOf[i] = j >= 0 && remaining[j] > 0 ? j : -1;
+            if (groupOf[i] >= 0) {
+                start[j + 1]++;
+            }
+        }
+        for (int j = 0; j < getCount; j++) {
+            start[j + 1] += start[j];
+        }
+        int[] ordered = new int[start[getCount]];
+        int[] next = Arrays.copyOf(start, getCount);
+        for (int i = 0; i < items.length; i++) {
+            if (groupOf[i] >= 0) {
+                ordered[next[groupOf[i]]++] = i;
+            }
+        }
+
+        int[] lines = new int[ordered.length];
+        int[] units = new int[ordered.length];
+        long[] cents = new long[ordered.length];
+        int count = 0;
+        long discount = 0;
+        boolean cheapestFirst = rule.freeItems() == BxGyRule.FreeItems.CHEAPEST;
+        for (int j = 0; j < getCount; j++) {
+            if (start[j + 1] - start[j] > 1) {
+                sortByUnitPrice(ordered, start[j], start[j + 1], items, cheapestFirst);
+            }
+            for (int k = start[j]; k < start[j + 1] && remaining[j] > 0; k++) {
+                CartItem item = items[ordered[k]];
+                int take = (int) Math.min(remaining[j], item.getQuantity());
+                long value = unitsValue(item, take);
+                lines[count] = ordered[k];
+                units[count] = take;
+                cents[count] = value;
+                count++;
+                discount += value;
+                remaining[j] -= take;
+            }
+        }
+        return new BxGyMatch(repetitions, Arrays.copyOf(lines, count), Arrays.copyOf(units, count),
+                Arrays.copyOf(cents, count), discount);
+    }
+
+    // Units of get product j the cart can give free: the repetitions' quantity, limited to
+    // the units left once those needed to meet the buy condition are set aside
+    private static long freeUnits(BxGyRule rule, CartSummary summary, int repetitions, int j) {
+        long wanted = (long) repetitions * rule.getQuantity(j);
+        long available = Math.max(0, summary.quantity(rule.getProductId(j)))
+                - (long) repetitions * rule.getBoughtQuantity(j);
+        return Math.max(0, Math.min(wanted, available));
+    }
+
+    // take of the line's units are worth that share of its price, rounded down,
+    // so freeing every unit of a line is worth exactly its price
+    private static long unitsValue(CartItem item, int take) {
+        long price = item.getPriceCents();
+        int quantity = item.getQuantity();
+        return take == quantity ? price : price / quantity * take + price % quantity * take / quantity;
+    }
+
+    // Stable sort of ordered[from, to) by the unit price of the lines they point at
+    private static void sortByUnitPrice(int[] ordered, int from, int to, CartItem[] items, boolean ascending) {
+        int sign = ascending ? 1 : -1;
+        if (to - from <= INSERTION_SORT_MAX) {
+            for (int k = from + 1; k < to; k++) {
+                int line = ordered[k];
+                int m = k - 1;
+                while (m >= from && sign * compareUnitPrice(items[ordered[m]], items[line]) > 0) {
+                    ordered[m + 1] = ordered[m];
+                    m--;
+                }
+                ordered[m + 1] = line;
+            }
+            return;
+        }
+        Integer[] boxed = new Integer[to - from];
+        for (int k = from; k < to; k++) {
+            boxed[k - from] = ordered[k];
+        }
+        Arrays.sort(boxed, (a, b) -> sign * compareUnitPrice(items[a], items[b]));
+        for (int k = from; k < to; k++) {
+            ordered[k] = boxed[k - from];
+        }
+    }
+
+    // price / quantity of one line against the other, cross-multiplied in 128 bits
+    private static int compareUnitPrice(CartItem a, CartItem b) {
+        long left = a.getPriceCents();
+        long right = b.getPriceCents();
+        long high = Math.multiplyHigh(left, b.getQuantity());
+        long otherHigh = Math.multiplyHigh(right, a.getQuantity());
+        if (high != otherHigh) {
+            return Long.compare(high, otherHigh);
+        }
+        return Long.compareUnsigned(left * b.getQuantity(), right * a.getQuantity());
+    }
+}
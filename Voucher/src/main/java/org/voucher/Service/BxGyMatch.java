@@ -0,0 +1,48 @@
+package org.voucher.Service;
+
+// How a BXGY coupon applies to one cart: how many times the offer repeats and which cart lines
+// give how many free units, worth how many cents. Immutable; the parallel arrays are never handed out.
+public final class BxGyMatch {
+
+    static final BxGyMatch NONE = new BxGyMatch(0, new int[0], new int[0], new long[0], 0);
+
+    private final int repetitions;
+    private final int[] lines;
+    private final int[] freeUnits;
+    private final long[] freeCents;
+    private final long discountCents;
+
+    BxGyMatch(int repetitions, int[] lines, int[] freeUnits, long[] freeCents, long discountCents) {
+        this.repetitions = repetitions;
+        this.lines = lines;
+        this.freeUnits = freeUnits;
+        this.freeCents = freeCents;
+        this.discountCents = discountCents;
+    }
+
+    public int repetitions() {
+        return repetitions;
+    }
+
+    public long discountCents() {
+        return discountCents;
+    }
+
+    // Number of cart lines with free units
+    public int size() {
+        return lines.length;
+    }
+
+    // Position of the line in the cart's items
+    public int line(int index) {
+        return lines[index];
+    }
+
+    public int freeUnits(int index) {
+        return freeUnits[index];
+    }
+
+    public long freeCents(int index) {
+        return freeCents[index];
+    }
+}
@@ -0,0 +1,164 @@
+package org.voucher.Service;
+
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.RequestContext;
+
+import java.util.Arrays;
+
+// Per-request aggregate of a cart, built once and shared by every coupon check.
+// Products are held in sorted parallel arrays, so lookups are a binary search on
+// primitive ints with no boxing and no walk over the cart lines.
+public final class CartSummary {
+
+    private final long totalCents;
+    private final CartItem[] items;
+    private final int itemCount;
+    private final int[] productIds;
+    private final int[] lines;
+    private final int[] quantities;
+    private final long[] linePriceCents;
+    // Category and brand of each product, resolved once per request; ProductCategories.UNKNOWN if unmapped
+    private final int[] categoryIds;
+    private final int[] brandIds;
+    private final int[] distinctCategories;
+    private final int[] distinctBrands;
+    private final RequestContext context;
+
+    private CartSummary(long totalCents, CartItem[] items, int[] productIds, ProductCategories categories,
+                        RequestContext context) {
+        this.totalCents = totalCents;
+        this.items = items;
+        this.context = context;
+        this.categoryIds = new int[productIds.length];
+        this.brandIds = new int[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            categoryIds[i] = categories.categoryOf(productIds[i]);
+            brandIds[i] = categories.brandOf(productIds[i]);
+        }
+        this.distinctCategories = distinctKnown(categoryIds);
+        this.distinctBrands = distinctKnown(brandIds);
+        this.itemCount = items.length;
+        this.productIds = productIds;
+        this.lines = new int[productIds.length];
+        this.quantities = new int[productIds.length];
+        this.linePriceCents = new long[productIds.length];
+    }
+
+    public static CartSummary of(CartRequest cart) {
+        return of(cart, ProductCategories.EMPTY);
+    }
+
+    public static CartSummary of(CartRequest cart, ProductCategories categories) {
+        CartItem[] items = cart.getItems() == null ? new CartItem[0] : cart.getItems();
+        int[] ids = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            ids[i] = items[i].getProductId();
+        }
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+
+        CartSummary summary = new CartSummary(cart.getTotalPriceCents(), items, Arrays.copyOf(ids, distinct), categories, cart.getContext());
+        for (CartItem item : items) {
+            int index = summary.indexOf(item.getProductId());
+            summary.lines[index]++;
+            summary.quantities[index] += item.getQuantity();
+            summary.linePriceCents[index] += item.getPriceCents();
+        }
+        return summary;
+    }
+
+    public long totalCents() {
+        return totalCents;
+    }
+
+    // Who the cart belongs to, or null when the request did not say
+    public RequestContext context() {
+        return context;
+    }
+
+    public int itemCount() {
+        return itemCount;
+    }
+
+    // The cart's lines in request order; callers must not modify them
+    public CartItem[] items() {
+        return items;
+    }
+
+    // Distinct product ids in ascending order; callers must not modify the array
+    public int[] productIds() {
+        return productIds;
+    }
+
+    // Position of the product in this summary, or a negative number when it is not in the cart
+    public int indexOf(int productId) {
+        return Arrays.binarySearch(productIds, productId);
+    }
+
+    public boolean contains(int productId) {
+        return indexOf(productId) >= 0;
+    }
+
+    // Number of cart lines for the product
+    public int lines(int productId) {
+        int index = indexOf(productId);
+        return index < 0 ? 0 : lines[index];
+    }
+
+    public int quantity(int productId) {
+        int index = indexOf(productId);
+        return index < 0 ? 0 : quantities[index];
+    }
+
+    // Sum of the prices on the product's cart lines
+    public long linePriceCents(int productId) {
+        int index = indexOf(productId);
+        return index < 0 ? 0 : linePriceCents[index];
+    }
+
+    // Units of the product at the given index, over all its cart lines
+    public int quantityAt(int index) {
+        return quantities[index];
+    }
+
+    // Category of the product at the given index
+    public int categoryAt(int index) {
+        return categoryIds[index];
+    }
+
+    public int brandAt(int index) {
+        return brandIds[index];
+    }
+
+    // Distinct known categories of the cart's products in ascending order; callers must not modify the array
+    public int[] categories() {
+        return distinctCategories;
+    }
+
+    public int[] brands() {
+        return distinctBrands;
+    }
+
+    // Sum of the prices on cart lines at the given index
+    public long linePriceCentsAt(int index) {
+        return linePriceCents[index];
+    }
+
+    private static int[] distinctKnown(int[] ids) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] != ProductCategories.UNKNOWN && (distinct == 0 || sorted[i] != sorted[distinct - 1])) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+}
@@ -0,0 +1,226 @@
+package org.voucher.Service;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.voucher.model.RequestContext;
+import org.voucher.model.Targeting;
+import org.voucher.rule.BxGyRule;
+import org.voucher.rule.CartWiseRule;
+import org.voucher.rule.CategoryWiseRule;
+import org.voucher.rule.CompiledCoupon;
+import org.voucher.rule.ProductWiseRule;
+import org.voucher.util.Money;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Immutable view of the active coupons plus the lookup structures built from them.
+// Coupons are addressed by ordinal (their position in the snapshot) so that
+// candidate sets can be collected in a bitmap and returned in catalog order.
+final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(Map.of());
+
+    private final Map<String, CompiledCoupon> byId;
+    private final CompiledCoupon[] coupons;
+
+    // product_id -> ordinals of PRODUCT_WISE coupons for that product and BXGY coupons buying it
+    private final Map<Integer, int[]> productIndex;
+    // category and brand id -> ordinals of CATEGORY_WISE coupons with that scope
+    private final Map<Integer, int[]> categoryIndex;
+    private final Map<Integer, int[]> brandIndex;
+
+    // CART_WISE coupons sorted by threshold in cents, so "cartTotal > threshold" is a prefix of the arrays
+    private final long[] cartWiseThresholds;
+    private final int[] cartWiseOrdinals;
+    // CART_WISE threshold in cents by ordinal; Long.MAX_VALUE for other coupon types
+    private final long[] thresholdByOrdinal;
+
+    // Targeting dimensions; each maps a segment, region or channel to the coupons limited to it
+    private final TargetIndex segments = new TargetIndex();
+    private final TargetIndex regions = new TargetIndex();
+    private final TargetIndex channels = new TargetIndex();
+
+    CatalogSnapshot(Map<String, CompiledCoupon> byId) {
+        this.byId = Collections.unmodifiableMap(new LinkedHashMap<>(byId));
+        this.coupons = this.byId.values().toArray(new CompiledCoupon[0]);
+
+        Map<Integer, List<Integer>> products = new HashMap<>();
+        Map<Integer, List<Integer>> categories = new HashMap<>();
+        Map<Integer, List<Integer>> brands = new HashMap<>();
+        List<int[]> thresholds = new ArrayList<>();
+        for (int ordinal = 0; ordinal < coupons.length; ordinal++) {
+            Targeting targeting = coupons[ordinal].coupon().getTargeting();
+            segments.add(ordinal, targeting == null ? null : targeting.getSegments());
+            regions.add(ordinal, targeting == null ? null : targeting.getRegions());
+            channels.add(ordinal, targeting == null ? null : targeting.getChannels());
+            switch (coupons[ordinal].rule()) {
+                case CartWiseRule rule -> thresholds.add(new int[]{rule.threshold(), ordinal});
+                case ProductWiseRule rule ->
+                        products.computeIfAbsent(rule.productId(), k -> new ArrayList<>()).add(ordinal);
+                case CategoryWiseRule rule ->
+                        (rule.scope() == CategoryWiseRule.Scope.CATEGORY ? categories : brands)
+                                .computeIfAbsent(rule.scopeId(), k -> new ArrayList<>()).add(ordinal);
+                case BxGyRule rule -> {
+                    for (int i = 0; i < rule.buyCount(); i++) {
+                        List<Integer> postings = products.computeIfAbsent(rule.buyProductId(i), k -> new ArrayList<>());
+                        if (postings.isEmpty() || postings.get(postings.size() - 1) != ordinal) {
+                            postings.add(ordinal);
+                        }
+                    }
+                }
+            }
+        }
+
+        this.productIndex = toPostings(products);
+        this.categoryIndex = toPostings(categories);
+        this.brandIndex = toPostings(brands);
+
+        thresholds.sort((a, b) -> Integer.compare(a[0], b[0]));
+        this.cartWiseThresholds = new long[thresholds.size()];
+        this.cartWiseOrdinals = new int[thresholds.size()];
+        this.thresholdByOrdinal = new long[coupons.length];
+        Arrays.fill(thresholdByOrdinal, Long.MAX_VALUE);
+        for (int i = 0; i < thresholds.size(); i++) {
+            cartWiseThresholds[i] = Money.fromUnits(thresholds.get(i)[0]);
+            cartWiseOrdinals[i] = thresholds.get(i)[1];
+            thresholdByOrdinal[cartWiseOrdinals[i]] = cartWiseThresholds[i];
+        }
+        segments.optimize();
+        regions.optimize();
+        channels.optimize();
+    }
+
+    Map<String, CompiledCoupon> byId() {
+        return byId;
+    }
+
+    int size() {
+        return coupons.length;
+    }
+
+    CompiledCoupon coupon(int ordinal) {
+        return coupons[ordinal];
+    }
+
+    // Ordinals of coupons that the given cart total and products could trigger and that
+    // target the requester. Targeting is resolved first as an AND of per-dimension ORs; when it
+    // leaves fewer coupons than the cart total would match, CART_WISE thresholds are checked
+    // only for the eligible ordinals instead of materialising every matching threshold.
+    RoaringBitmap candidates(CartSummary cart) {
+        long cartTotalCents = cart.totalCents();
+        RoaringBitmap eligible = eligible(cart.context());
+        RoaringBitmap candidates = new RoaringBitmap();
+        int matchedThresholds = countBelow(cartWiseThresholds, cartTotalCents);
+        if (eligible != null && eligible.getCardinality() < matchedThresholds) {
+            for (PeekableIntIterator ordinals = eligible.getIntIterator(); ordinals.hasNext(); ) {
+                int ordinal = ordinals.next();
+                if (thresholdByOrdinal[ordinal] < cartTotalCents) {
+                    candidates.add(ordinal);
+                }
+            }
+        } else {
+            candidates.addN(cartWiseOrdinals, 0, matchedThresholds);
+        }
+        addPostings(candidates, productIndex, cart.productIds());
+        addPostings(candidates, categoryIndex, cart.categories());
+        addPostings(candidates, brandIndex, cart.brands());
+        if (eligible != null) {
+            candidates.and(eligible);
+        }
+        return candidates;
+    }
+
+    private static void addPostings(RoaringBitmap candidates, Map<Integer, int[]> index, int[] keys) {
+        if (index.isEmpty()) {
+            return;
+        }
+        for (int key : keys) {
+            int[] ordinals = index.get(key);
+            if (ordinals != null) {
+                candidates.addN(ordinals, 0, ordinals.length);
+            }
+        }
+    }
+
+    private static Map<Integer, int[]> toPostings(Map<Integer, List<Integer>> lists) {
+        Map<Integer, int[]> index = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, ordinals) -> index.put(key, ordinals.stream().mapToInt(Integer::intValue).toArray()));
+        return index;
+    }
+
+    // Coupons the context may use, or null when no coupon in the snapshot is targeted
+    private RoaringBitmap eligible(RequestContext context) {
+        Collection<String> userSegments = context == null || context.getSegments() == null ? List.of() : context.getSegments();
+        Collection<String> region = context == null || context.getRegion() == null ? List.of() : List.of(context.getRegion());
+        Collection<String> channel = context == null || context.getChannel() == null ? List.of() : List.of(context.getChannel());
+        RoaringBitmap eligible = null;
+        for (RoaringBitmap allowed : new RoaringBitmap[]{
+                segments.allowed(userSegments), regions.allowed(region), channels.allowed(channel)}) {
+            if (allowed != null) {
+                eligible = eligible == null ? allowed : RoaringBitmap.and(eligible, allowed);
+            }
+        }
+        return eligible;
+    }
+
+    // Number of leading entries strictly below the given value
+    private static int countBelow(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == value) {
+            index--;
+        }
+        return index;
+    }
+
+    // One targeting dimension: a compressed bitmap of coupon ordinals per value, plus the
+    // coupons that place no restriction on this dimension
+    private static final class TargetIndex {
+
+        private final Map<String, RoaringBitmap> byValue = new HashMap<>();
+        private final RoaringBitmap unrestricted = new RoaringBitmap();
+
+        private void add(int ordinal, Set<String> values) {
+            if (values == null || values.isEmpty()) {
+                unrestricted.add(ordinal);
+                return;
+            }
+            for (String value : values) {
+                byValue.computeIfAbsent(value, k -> new RoaringBitmap()).add(ordinal);
+            }
+        }
+
+        private void optimize() {
+            unrestricted.runOptimize();
+            byValue.values().forEach(RoaringBitmap::runOptimize);
+        }
+
+        // unrestricted OR the bitmaps of the given values; null while no coupon uses this dimension.
+        // The result may be one of the index's own bitmaps and must not be modified.
+        private RoaringBitmap allowed(Collection<String> values) {
+            if (byValue.isEmpty()) {
+                return null;
+            }
+            List<RoaringBitmap> allowed = new ArrayList<>(values.size() + 1);
+            allowed.add(unrestricted);
+            for (String value : values) {
+                RoaringBitmap bitmap = byValue.get(value);
+                if (bitmap != null) {
+                    allowed.add(bitmap);
+                }
+            }
+            return allowed.size() == 1 ? unrestricted : FastAggregation.or(allowed.iterator());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.voucher.Service;
+
+import com.mongodb.MongoClientSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+import org.voucher.model.Coupon;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+// On-disk copy of the catalog, so a restarting node fills its catalog from local disk and only
+// catches up on the change log instead of reading every coupon from Mongo.
+// Layout: magic, format, catalog version and coupon count; each coupon as the BSON document
+// Mongo stores for it; a CRC32C of those documents. The file is memory-mapped and decoded in place.
+// A snapshot is written to a temporary file and moved over the old one, so readers never see half a file.
+@Slf4j
+@Component
+public class CatalogSnapshotStore {
+
+    private static final int MAGIC = 0x56434154; // "VCAT"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    public record Snapshot(long version, List<Coupon> coupons) {
+    }
+
+    private final MongoConverter converter;
+    private final Path file;
+    private final DocumentCodec codec = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    @Autowired
+    public CatalogSnapshotStore(MongoConverter converter,
+                                @Value("${voucher.catalog.snapshot-file:}") String file) {
+        this.converter = converter;
+        this.file = file.isBlank() ? null : Path.of(file);
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    // Empty when snapshots are off, the file does not exist or it cannot be read
+    public Optional<Snapshot> read() {
+        if (file == null) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Snapshot snapshot = decode(mapped);
+            log.info("Read {} coupons at catalog version {} from {} in {} ms", snapshot.coupons().size(),
+                    snapshot.version(), file, (System.nanoTime() - start) / 1_000_000);
+            return Optional.of(snapshot);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void write(long version, List<Coupon> coupons) {
+        if (file == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(version);
+                out.writeInt(coupons.size());
+                CRC32C crc = new CRC32C();
+                CheckedOutputStream body = new CheckedOutputStream(out, crc);
+                BasicOutputBuffer buffer = new BasicOutputBuffer();
+                for (Coupon coupon : coupons) {
+                    buffer.truncateToPosition(0);
+                    encode(coupon, buffer);
+                    buffer.pipe(body);
+                }
+                out.writeInt((int) crc.getValue());
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote {} coupons at catalog version {} to {} in {} ms", coupons.size(), version, file,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write the catalog snapshot to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void encode(Coupon coupon, BasicOutputBuffer buffer) {
+        Document document = new Document();
+        converter.write(coupon, document);
+        codec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+    }
+
+    private Snapshot decode(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_BYTES + 4 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a catalog snapshot");
+        }
+        if (buffer.getInt(4) != FORMAT) {
+            throw new IOException("unsupported snapshot format " + buffer.getInt(4));
+        }
+        long version = buffer.getLong(8);
+        int count = buffer.getInt(16);
+        int bodyEnd = buffer.limit() - 4;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(HEADER_BYTES, bodyEnd - HEADER_BYTES));
+        if ((int) crc.getValue() != buffer.getInt(bodyEnd)) {
+            throw new IOException("checksum mismatch");
+        }
+        List<Coupon> coupons = new ArrayList<>(count);
+        // Every BSON document starts with its own little-endian length
+        ByteBuffer bson = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int position = HEADER_BYTES;
+        for (int i = 0; i < count; i++) {
+            int length = position + 4 <= bodyEnd ? bson.getInt(position) : -1;
+            if (length < 5 || length > bodyEnd - position) {
+                throw new IOException("truncated coupon " + i);
+            }
+            try (BsonBinaryReader reader = new BsonBinaryReader(bson.slice(position, length))) {
+                Document document = codec.decode(reader, DecoderContext.builder().build());
+                coupons.add(converter.read(Coupon.class, document));
+            }
+            position += length;
+        }
+        if (position != bodyEnd) {
+            throw new IOException("unexpected bytes after " + count + " coupons");
+        }
+        return new Snapshot(version, coupons);
+    }
+}
@@ -0,0 +1,275 @@
+package org.voucher.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.voucher.model.CatalogChange;
+import org.voucher.model.CatalogStatus;
+import org.voucher.model.Coupon;
+import org.voucher.repository.CatalogChangeRepository;
+import org.voucher.repository.CouponRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps the catalogs of several nodes coherent through a versioned change log in Mongo.
+// Every coupon write takes the next catalog version and logs which coupon changed; each node
+// polls for the entries after the version it has applied and re-reads only those coupons.
+// A polled log rather than a change stream, so it works on a standalone mongod as well as a replica set.
+// Versions are taken before their entry is inserted, so entries can become visible out of order:
+// the node only applies a gap-free run of versions, and if a missing version has not shown up
+// within the gap timeout (its writer died in between, or the entry expired) it reloads everything.
+// The coupon code filter follows the same log: codes of coupons upserted elsewhere are added to it,
+// and a RELOAD entry or a gap reload rebuilds it, since either may stand for codes it never saw.
+// With a snapshot file configured, the catalog and its version are written to local disk periodically
+// and at shutdown, and a restarting node starts from that snapshot and catches up on the log.
+@Slf4j
+@Component
+public class CatalogSync implements MeterBinder {
+
+    private final CatalogChangeRepository changeRepository;
+    private final CouponRepository couponRepository;
+    private final CouponCatalog couponCatalog;
+    private final CouponCodeIndex codeIndex;
+    private final CatalogSnapshotStore snapshotStore;
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final long maxLagNanos;
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    private volatile long version;
+    // When the current gap was first seen, or -1; guarded by pollLock
+    private long gapSince = -1;
+    // When this node last had every logged change applied, or -1 if it never has
+    private volatile long caughtUpAt = -1;
+
+    @Autowired
+    public CatalogSync(CatalogChangeRepository changeRepository,
+                       CouponRepository couponRepository,
+                       CouponCatalog couponCatalog,
+                       CouponCodeIndex codeIndex,
+                       CatalogSnapshotStore snapshotStore,
+                       @Value("${voucher.catalog.sync-batch-size:1000}") int batchSize,
+                       @Value("${voucher.catalog.gap-timeout-ms:10000}") long gapTimeoutMillis,
+                       @Value("${voucher.catalog.max-lag-ms:5000}") long maxLagMillis) {
+        this.changeRepository = changeRepository;
+        this.couponRepository = couponRepository;
+        this.couponCatalog = couponCatalog;
+        this.codeIndex = codeIndex;
+        this.snapshotStore = snapshotStore;
+        this.batchSize = batchSize;
+        this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+    }
+
+    // The version is read before the catalog loads, so changes made during the load are applied again
+    // by the next poll rather than missed; re-applying a change is harmless
+    @PostConstruct
+    public void start() {
+        boolean restored;
+        pollLock.lock();
+        try {
+            restored = restoreSnapshot();
+            if (!restored) {
+                reloadAll();
+            }
+        } finally {
+            pollLock.unlock();
+        }
+        if (restored) {
+            // Catch up on the changes made since the snapshot before serving anything
+            poll();
+        }
+    }
+
+    // Caller holds pollLock. Only usable while the log still holds every change after the snapshot.
+    private boolean restoreSnapshot() {
+        Optional<CatalogSnapshotStore.Snapshot> stored = snapshotStore.read();
+        if (stored.isEmpty()) {
+            return false;
+        }
+        long snapshotVersion = stored.get().version();
+        long current = changeRepository.currentVersion();
+        if (snapshotVersion > current) {
+            log.warn("Catalog snapshot is at version {} but the change log only reaches {}; reloading instead",
+                    snapshotVersion, current);
+            return false;
+        }
+        if (snapshotVersion < current) {
+            List<CatalogChange> next = changeRepository.findAfter(snapshotVersion, 1);
+            if (next.isEmpty() || next.get(0).getVersion() != snapshotVersion + 1) {
+                log.warn("Catalog snapshot at version {} is older than the change log; reloading instead",
+                        snapshotVersion);
+                return false;
+            }
+        }
+        couponCatalog.restore(stored.get().coupons());
+        version = snapshotVersion;
+        gapSince = -1;
+        return true;
+    }
+
+    // The version and coupons are taken together under pollLock, so the snapshot holds every change
+    // up to its version; local writes caught after it are applied again on restore
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${voucher.catalog.snapshot-interval-ms:300000}",
+            initialDelayString = "${voucher.catalog.snapshot-interval-ms:300000}")
+    public void writeSnapshot() {
+        if (!snapshotStore.isEnabled()) {
+            return;
+        }
+        long snapshotVersion;
+        List<Coupon> coupons;
+        pollLock.lock();
+        try {
+            snapshotVersion = version;
+            coupons = couponCatalog.registeredCoupons();
+        } finally {
+            pollLock.unlock();
+        }
+        snapshotStore.write(snapshotVersion, coupons);
+    }
+
+    // Called after a coupon has been written to Mongo
+    public void recordUpsert(String couponId) {
+        record(CatalogChange.Kind.UPSERT, couponId);
+    }
+
+    public void recordDelete(String couponId) {
+        record(CatalogChange.Kind.DELETE, couponId);
+    }
+
+    // Reloads this node's catalog and code filter and tells the others to do the same. The reload starts
+    // from a version at or past the RELOAD entry, so this node does not reload a second time when it polls.
+    public void reloadEverywhere() {
+        record(CatalogChange.Kind.RELOAD, null);
+        pollLock.lock();
+        try {
+            reloadAll();
+        } finally {
+            pollLock.unlock();
+        }
+        codeIndex.rebuild();
+    }
+
+    private void record(CatalogChange.Kind kind, String couponId) {
+        long next = changeRepository.nextVersion();
+        changeRepository.insert(new CatalogChange(next, kind, couponId, Instant.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${voucher.catalog.sync-interval-ms:1000}")
+    public void poll() {
+        if (!pollLock.tryLock()) {
+            return;
+        }
+        try {
+            while (true) {
+                List<CatalogChange> changes = changeRepository.findAfter(version, batchSize);
+                int contiguous = 0;
+                while (contiguous < changes.size() && changes.get(contiguous).getVersion() == version + contiguous + 1) {
+                    contiguous++;
+                }
+                if (contiguous > 0) {
+                    gapSince = -1;
+                    apply(changes.subList(0, contiguous));
+                    continue;
+                }
+                if (changes.isEmpty()) {
+                    gapSince = -1;
+                    caughtUpAt = System.nanoTime();
+                    return;
+                }
+                long now = System.nanoTime();
+                if (gapSince < 0) {
+                    gapSince = now;
+                }
+                if (now - gapSince < gapTimeoutNanos) {
+                    return;
+                }
+                log.warn("Catalog version {} never appeared in the change log; reloading the catalog", version + 1);
+                reloadAll();
+                codeIndex.rebuild();
+            }
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    // Caller holds pollLock
+    private void apply(List<CatalogChange> changes) {
+        long last = changes.get(changes.size() - 1).getVersion();
+        // Only the latest change per coupon matters
+        Map<String, CatalogChange.Kind> latest = new LinkedHashMap<>();
+        for (CatalogChange change : changes) {
+            if (change.getKind() == CatalogChange.Kind.RELOAD) {
+                couponCatalog.reload();
+                codeIndex.rebuild();
+                version = last;
+                return;
+            }
+            latest.put(change.getCouponId(), change.getKind());
+        }
+        List<String> upserted = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        latest.forEach((id, kind) -> (kind == CatalogChange.Kind.UPSERT ? upserted : removed).add(id));
+        List<Coupon> coupons = new ArrayList<>();
+        if (!upserted.isEmpty()) {
+            for (Coupon coupon : couponRepository.findAllById(upserted)) {
+                coupons.add(coupon);
+                codeIndex.add(coupon.getCode());
+            }
+            // Upserted and then deleted before this poll
+            if (coupons.size() < upserted.size()) {
+                upserted.removeAll(coupons.stream().map(Coupon::getId).toList());
+                removed.addAll(upserted);
+            }
+        }
+        couponCatalog.apply(coupons, removed);
+        version = last;
+    }
+
+    // Caller holds pollLock
+    private void reloadAll() {
+        long current = changeRepository.currentVersion();
+        couponCatalog.reload();
+        version = current;
+        gapSince = -1;
+        caughtUpAt = System.nanoTime();
+    }
+
+    // True while the last time this node had applied the whole log is within max-lag, so anything
+    // written elsewhere before then has reached this node's catalog and code filter. Polls that keep
+    // failing or a gap that has not closed make it false until the node catches up again.
+    public boolean isCaughtUp() {
+        long at = caughtUpAt;
+        return at >= 0 && System.nanoTime() - at <= maxLagNanos;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public CatalogStatus status() {
+        return new CatalogStatus(version, couponCatalog.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("coupon.catalog.version", this, CatalogSync::version)
+                .description("Catalog change-log version this node has applied")
+                .register(registry);
+    }
+}
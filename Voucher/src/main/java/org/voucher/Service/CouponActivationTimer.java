@@ -0,0 +1,161 @@
+package org.voucher.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Fires a callback for a coupon at the instant its schedule opens or closes.
+// Pending transitions sit in a priority queue ordered by time. One daemon thread sleeps
+// until the earliest one is due and is woken early when an earlier one is added.
+// Each coupon has at most one pending transition: rescheduling or cancelling replaces it,
+// and the superseded queue entry is skipped when it comes up.
+@Slf4j
+final class CouponActivationTimer {
+
+    // Far-off transitions are re-checked at least this often; also keeps the wait within awaitNanos' range
+    private static final Duration MAX_WAIT = Duration.ofHours(1);
+
+    private record Transition(Instant at, String couponId) {
+    }
+
+    private final Clock clock;
+    private final Consumer<String> onTransition;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Transition> queue = new PriorityQueue<>(Comparator.comparing(Transition::at));
+    private final Map<String, Instant> pending = new HashMap<>();
+    private Thread thread;
+    private volatile boolean running = true;
+
+    CouponActivationTimer(Clock clock, Consumer<String> onTransition) {
+        this.clock = clock;
+        this.onTransition = onTransition;
+    }
+
+    void stop() {
+        running = false;
+        Thread current = thread;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    void schedule(String couponId, Instant at) {
+        lock.lock();
+        try {
+            if (thread == null && running) {
+                // Started with the first transition, so catalogs without schedules never start a thread
+                thread = Thread.ofPlatform().name("coupon-activation").daemon().start(this::run);
+            }
+            pending.put(couponId, at);
+            Transition transition = new Transition(at, couponId);
+            queue.add(transition);
+            if (queue.peek() == transition) {
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void cancel(String couponId) {
+        lock.lock();
+        try {
+            pending.remove(couponId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            pending.clear();
+            queue.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Removes and returns the coupons whose transition is due at now
+    List<String> pollDue(Instant now) {
+        List<String> due = new ArrayList<>();
+        lock.lock();
+        try {
+            Transition head;
+            while ((head = queue.peek()) != null && !head.at().isAfter(now)) {
+                queue.poll();
+                if (head.at().equals(pending.get(head.couponId()))) {
+                    pending.remove(head.couponId());
+                    due.add(head.couponId());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return due;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                awaitNextDue();
+                for (String couponId : pollDue(clock.instant())) {
+                    fire(couponId);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void awaitNextDue() throws InterruptedException {
+        lock.lock();
+        try {
+            while (running) {
+                Transition head = queue.peek();
+                if (head == null) {
+                    changed.await();
+                    continue;
+                }
+                Duration wait = Duration.between(clock.instant(), head.at());
+                if (wait.isNegative() || wait.isZero()) {
+                    return;
+                }
+                changed.awaitNanos((wait.compareTo(MAX_WAIT) > 0 ? MAX_WAIT : wait).toNanos());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fire(String couponId) {
+        try {
+            onTransition.accept(couponId);
+        } catch (RuntimeException e) {
+            log.warn("Activation update for coupon {} failed", couponId, e);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package org.voucher.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.model.Coupon;
+import org.voucher.repository.CouponRepository;
+import org.voucher.rule.CompiledCoupon;
+import org.voucher.rule.CouponSchedule;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory snapshot of active coupons, so cart evaluation never has to go to Mongo.
+// Readers see an immutable snapshot; writers copy, modify and republish it.
+// Writers serialize on a ReentrantLock rather than a monitor so a virtual thread
+// waiting for the lock unmounts instead of pinning its carrier.
+// Coupons with a validity range or daily window are held back while their schedule is closed;
+// an activation timer republishes the snapshot at the instant a schedule opens or closes.
+@Slf4j
+@Component
+public class CouponCatalog implements MeterBinder {
+
+    private record Registered(CompiledCoupon compiled, CouponSchedule schedule) {
+    }
+
+    private final CouponRepository couponRepository;
+    private final Clock clock;
+    private final CouponActivationTimer activationTimer;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Active, unexpired coupons whether or not their schedule is open; guarded by writeLock
+    private final Map<String, Registered> registered = new LinkedHashMap<>();
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+    // Bumped every time the snapshot is republished; written under writeLock
+    private volatile long generation;
+
+    @Autowired
+    public CouponCatalog(CouponRepository couponRepository) {
+        this(couponRepository, Clock.systemUTC());
+    }
+
+    CouponCatalog(CouponRepository couponRepository, Clock clock) {
+        this.couponRepository = couponRepository;
+        this.clock = clock;
+        this.activationTimer = new CouponActivationTimer(clock, this::onTransition);
+    }
+
+    // Load every active coupon from Mongo, replacing the current snapshot.
+    // CatalogSync calls this at startup, after noting the catalog version it starts from.
+    public void reload() {
+        replace(couponRepository.findAll(), "MongoDB");
+    }
+
+    // Replace the catalog with coupons read from an on-disk snapshot; expired ones are skipped as on reload
+    public void restore(Iterable<Coupon> coupons) {
+        replace(coupons, "the snapshot");
+    }
+
+    private void replace(Iterable<Coupon> coupons, String source) {
+        LocalDate today = LocalDate.now();
+        Map<String, Registered> loaded = new LinkedHashMap<>();
+        for (Coupon coupon : coupons) {
+            if (isLive(coupon, today)) {
+                try {
+                    loaded.put(coupon.getId(), new Registered(CompiledCoupon.of(coupon), CouponSchedule.of(coupon)));
+                } catch (InvalidCouponException e) {
+                    log.warn("Skipping coupon {} with malformed details: {}", coupon.getId(), e.getMessage());
+                }
+            }
+        }
+        writeLock.lock();
+        try {
+            Instant now = clock.instant();
+            registered.clear();
+            activationTimer.clear();
+            for (Map.Entry<String, Registered> entry : loaded.entrySet()) {
+                registered.put(entry.getKey(), entry.getValue());
+                reschedule(entry.getKey(), entry.getValue(), now);
+            }
+            publish(now);
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Loaded {} active coupons from {} into the catalog, {} of them open now",
+                loaded.size(), source, snapshot.size());
+    }
+
+    // Every active coupon held, open or waiting for its schedule, as written to a catalog snapshot
+    public List<Coupon> registeredCoupons() {
+        writeLock.lock();
+        try {
+            List<Coupon> coupons = new ArrayList<>(registered.size());
+            for (Registered entry : registered.values()) {
+                coupons.add(entry.compiled().coupon());
+            }
+            return coupons;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Add, replace or drop a coupon after it has been written to Mongo
+    public void upsert(Coupon coupon) {
+        upsert(CompiledCoupon.of(coupon));
+    }
+
+    public void upsert(CompiledCoupon compiled) {
+        Coupon coupon = compiled.coupon();
+        CouponSchedule schedule = CouponSchedule.of(coupon);
+        writeLock.lock();
+        try {
+            Instant now = clock.instant();
+            if (isLive(coupon, LocalDate.now())) {
+                Registered entry = new Registered(compiled, schedule);
+                registered.put(coupon.getId(), entry);
+                reschedule(coupon.getId(), entry, now);
+            } else {
+                registered.remove(coupon.getId());
+                activationTimer.cancel(coupon.getId());
+            }
+            publish(now);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Changes made on other nodes, applied with a single republish. Upserted coupons are compiled
+    // outside the lock; one with malformed details is dropped like an inactive one.
+    public void apply(Collection<Coupon> upserts, Collection<String> removals) {
+        LocalDate today = LocalDate.now();
+        Map<String, Registered> live = new LinkedHashMap<>();
+        List<String> dropped = new ArrayList<>(removals);
+        for (Coupon coupon : upserts) {
+            try {
+                if (isLive(coupon, today)) {
+                    live.put(coupon.getId(), new Registered(CompiledCoupon.of(coupon), CouponSchedule.of(coupon)));
+                    continue;
+                }
+            } catch (InvalidCouponException e) {
+                log.warn("Dropping coupon {} with malformed details: {}", coupon.getId(), e.getMessage());
+            }
+            dropped.add(coupon.getId());
+        }
+        writeLock.lock();
+        try {
+            Instant now = clock.instant();
+            for (String id : dropped) {
+                registered.remove(id);
+                activationTimer.cancel(id);
+            }
+            for (Map.Entry<String, Registered> entry : live.entrySet()) {
+                registered.put(entry.getKey(), entry.getValue());
+                reschedule(entry.getKey(), entry.getValue(), now);
+            }
+            publish(now);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(String id) {
+        writeLock.lock();
+        try {
+            if (registered.remove(id) == null) {
+                return;
+            }
+            activationTimer.cancel(id);
+            if (snapshot.byId().containsKey(id)) {
+                publish(clock.instant());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Drop coupons whose expiration date has passed
+    public void evictExpired(LocalDate today) {
+        writeLock.lock();
+        try {
+            boolean removed = registered.entrySet().removeIf(entry -> {
+                if (isLive(entry.getValue().compiled().coupon(), today)) {
+                    return false;
+                }
+                activationTimer.cancel(entry.getKey());
+                return true;
+            });
+            if (removed) {
+                publish(clock.instant());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Runs transitions that are due now instead of waiting for the timer thread
+    void runDueTransitions() {
+        for (String id : activationTimer.pollDue(clock.instant())) {
+            onTransition(id);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        activationTimer.stop();
+    }
+
+    // Active coupons that have not expired as of the given day
+    public List<Coupon> getActiveCoupons(LocalDate today) {
+        CatalogSnapshot current = snapshot;
+        List<Coupon> result = new ArrayList<>(current.size());
+        for (int ordinal = 0; ordinal < current.size(); ordinal++) {
+            Coupon coupon = current.coupon(ordinal).coupon();
+            if (coupon.getExpirationDate().isAfter(today)) {
+                result.add(coupon);
+            }
+        }
+        return result;
+    }
+
+    public Optional<CompiledCoupon> find(String id) {
+        return Optional.ofNullable(snapshot.byId().get(id));
+    }
+
+    // Unexpired coupons that the cart's total, products, categories or brands can trigger, limited
+    // to those targeting the request's context. CART_WISE, PRODUCT_WISE and CATEGORY_WISE candidates
+    // are exact matches; BXGY candidates buy at least one of the products and still need their quantities checked.
+    public List<CompiledCoupon> findCandidates(CartSummary cart, LocalDate today) {
+        CatalogSnapshot current = snapshot;
+        RoaringBitmap candidates = current.candidates(cart);
+        List<CompiledCoupon> result = new ArrayList<>(candidates.getCardinality());
+        for (PeekableIntIterator ordinals = candidates.getIntIterator(); ordinals.hasNext(); ) {
+            CompiledCoupon compiled = current.coupon(ordinals.next());
+            if (compiled.coupon().getExpirationDate().isAfter(today)) {
+                result.add(compiled);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    // Changes whenever the set of open coupons may have changed, so results worked out from
+    // one snapshot can be told apart from those of the next
+    public long generation() {
+        return generation;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("coupon.catalog.size", this, CouponCatalog::size)
+                .description("Active coupons held in memory")
+                .register(registry);
+        Gauge.builder("coupon.catalog.scheduled", activationTimer, CouponActivationTimer::pendingCount)
+                .description("Coupons waiting for their schedule to open or close")
+                .register(registry);
+    }
+
+    // Called by the activation timer when a coupon's schedule may have opened or closed
+    private void onTransition(String id) {
+        writeLock.lock();
+        try {
+            Registered entry = registered.get(id);
+            if (entry == null) {
+                return;
+            }
+            Instant now = clock.instant();
+            reschedule(id, entry, now);
+            if (entry.schedule().isOpen(now) != snapshot.byId().containsKey(id)) {
+                publish(now);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Arms the timer for the coupon's next transition. Coupons whose schedule has closed
+    // for good are dropped. Caller holds writeLock.
+    private void reschedule(String id, Registered entry, Instant now) {
+        CouponSchedule schedule = entry.schedule();
+        if (schedule.isAlwaysOpen()) {
+            activationTimer.cancel(id);
+            return;
+        }
+        Instant next = schedule.nextTransition(now);
+        if (next != null) {
+            activationTimer.schedule(id, next);
+        } else {
+            activationTimer.cancel(id);
+            if (!schedule.isOpen(now)) {
+                registered.remove(id);
+            }
+        }
+    }
+
+    // Republishes the snapshot with the registered coupons that are open now. Caller holds writeLock.
+    private void publish(Instant now) {
+        Map<String, CompiledCoupon> open = new LinkedHashMap<>();
+        for (Map.Entry<String, Registered> entry : registered.entrySet()) {
+            if (entry.getValue().schedule().isOpen(now)) {
+                open.put(entry.getKey(), entry.getValue().compiled());
+            }
+        }
+        snapshot = new CatalogSnapshot(open);
+        generation++;
+    }
+
+    private static boolean isLive(Coupon coupon, LocalDate today) {
+        return coupon.isActive()
+                && coupon.getExpirationDate() != null
+                && coupon.getExpirationDate().isAfter(today);
+    }
+}
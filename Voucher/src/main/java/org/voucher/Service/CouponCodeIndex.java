@@ -0,0 +1,106 @@
+package org.voucher.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.voucher.repository.CouponRepository;
+import org.voucher.util.BloomFilter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Bloom filter of every coupon code in Mongo, so a lookup of a code that does not exist,
+// which is what guessing traffic mostly sends, is answered without a database round-trip.
+// New codes are added as they are written, on this node by CouponService and on the others by
+// CatalogSync when it applies the change log, which also rebuilds the filter on a RELOAD.
+// A code written elsewhere is missing here until the next poll, so CouponService only trusts a
+// rejection while CatalogSync is caught up with the log.
+// Deleted codes keep their bits until the next rebuild, which only costs an extra lookup. The filter is rebuilt periodically and after bulk imports,
+// sized for twice the codes it holds.
+@Slf4j
+@Component
+public class CouponCodeIndex {
+
+    private static final long MIN_CAPACITY = 100_000;
+
+    private final CouponRepository couponRepository;
+    private final double falsePositiveRate;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicLong added = new AtomicLong();
+
+    // null until the first build, when every lookup goes to Mongo
+    private volatile BloomFilter filter;
+    // Set while a rebuild streams codes, so codes written meanwhile reach the new filter too
+    private volatile BloomFilter building;
+    private volatile long capacity;
+
+    @Autowired
+    public CouponCodeIndex(CouponRepository couponRepository,
+                           @Value("${voucher.codes.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.couponRepository = couponRepository;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${voucher.codes.rebuild-interval-ms:3600000}",
+            initialDelayString = "${voucher.codes.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            long codes = couponRepository.countByCodeIsNotNull();
+            long newCapacity = Math.max(MIN_CAPACITY, codes * 2);
+            BloomFilter next = BloomFilter.create(newCapacity, falsePositiveRate);
+            building = next;
+            long loaded = 0;
+            try (Stream<String> stream = couponRepository.streamCodes()) {
+                for (String code : (Iterable<String>) stream::iterator) {
+                    next.put(code);
+                    loaded++;
+                }
+            }
+            filter = next;
+            building = null;
+            capacity = newCapacity;
+            added.set(loaded);
+            log.info("Built the coupon code filter from {} codes in {} ms ({} bits, {} hashes)", loaded,
+                    (System.nanoTime() - start) / 1_000_000, next.bitCount(), next.hashCount());
+        } catch (RuntimeException e) {
+            building = null;
+            log.warn("Could not rebuild the coupon code filter, keeping the previous one: {}", e.getMessage());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Call after the code has been written to Mongo
+    public void add(String code) {
+        if (code == null) {
+            return;
+        }
+        // building before filter: a rebuild publishes filter before clearing building,
+        // so a code can miss building only if filter already is the new one
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(code);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(code);
+        }
+        if (added.incrementAndGet() == capacity) {
+            log.info("Coupon code filter reached its capacity of {} codes; false positives grow until it is rebuilt",
+                    capacity);
+        }
+    }
+
+    // False means the code is certainly not in Mongo
+    public boolean mightExist(String code) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(code);
+    }
+}
@@ -0,0 +1,58 @@
+package org.voucher.Service;
+
+import org.voucher.exception.InvalidCouponException;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Coupon codes are stored upper case without whitespace, so " bf24-k3x9 " finds BF24-K3X9
+final class CouponCodes {
+
+    private static final Pattern VALID = Pattern.compile("[A-Z0-9-]{3,40}");
+    private static final Pattern PREFIX = Pattern.compile("[A-Z0-9-]{0,16}");
+
+    private CouponCodes() {
+    }
+
+    // The normalized code, or null when it cannot be a valid code
+    static String normalize(String code) {
+        if (code == null) {
+            return null;
+        }
+        String result = canonical(code);
+        return VALID.matcher(result).matches() ? result : null;
+    }
+
+    // Generated codes are saved normalized, so their prefix must be too: bf24- and BF24- are one prefix.
+    // null is the empty prefix.
+    static String requirePrefix(String prefix) {
+        String normalized = prefix == null ? "" : canonical(prefix);
+        if (!PREFIX.matcher(normalized).matches()) {
+            throw new InvalidCouponException("Prefix must be up to 16 of A-Z, 0-9 and '-'");
+        }
+        return normalized;
+    }
+
+    // For coupons being saved: null stays null, anything else must normalize to a valid code
+    static String require(String code) {
+        if (code == null) {
+            return null;
+        }
+        String normalized = normalize(code);
+        if (normalized == null) {
+            throw new InvalidCouponException("Coupon code must be 3 to 40 letters, digits or '-'");
+        }
+        return normalized;
+    }
+
+    private static String canonical(String code) {
+        StringBuilder normalized = new StringBuilder(code.length());
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toUpperCase(Locale.ROOT);
+    }
+}
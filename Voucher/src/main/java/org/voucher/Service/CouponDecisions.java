@@ -0,0 +1,155 @@
+package org.voucher.Service;
+
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponDecision;
+import org.voucher.model.RequestContext;
+import org.voucher.model.Targeting;
+import org.voucher.rule.BxGyRule;
+import org.voucher.rule.CartWiseRule;
+import org.voucher.rule.CategoryWiseRule;
+import org.voucher.rule.CouponRule;
+import org.voucher.rule.CouponSchedule;
+import org.voucher.rule.ProductWiseRule;
+import org.voucher.util.Money;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Explains coupon decisions: which check decided whether a coupon applies to a cart and the values
+// it compared. Makes the same checks as CouponService, in the order it makes them, and only runs
+// when an explanation was asked for or a decision was sampled, never on the plain applicable path.
+final class CouponDecisions {
+
+    private CouponDecisions() {
+    }
+
+    // The rule check for a coupon that is otherwise usable
+    static CouponDecision explain(Coupon coupon, CouponRule rule, CartSummary summary) {
+        return switch (rule) {
+            case CartWiseRule cartWise -> decision(coupon,
+                    summary.totalCents() > Money.fromUnits(cartWise.threshold()), "cart_total > threshold",
+                    "cart_total", Money.toDecimal(summary.totalCents()), "threshold", cartWise.threshold());
+            case ProductWiseRule productWise -> decision(coupon,
+                    summary.contains(productWise.productId()), "product_id in cart",
+                    "product_id", productWise.productId(), "cart_products", summary.productIds());
+            case BxGyRule bxGy -> explainBxGy(coupon, bxGy, summary);
+            case CategoryWiseRule categoryWise -> explainCategory(coupon, categoryWise, summary);
+        };
+    }
+
+    // The checks a coupon must pass before its rule is looked at, or null when it passes them all
+    static CouponDecision checkAvailability(Coupon coupon, RequestContext context, Instant now, LocalDate today) {
+        if (!coupon.isActive()) {
+            return decision(coupon, false, "active", "active", false);
+        }
+        if (coupon.getExpirationDate() == null || !coupon.getExpirationDate().isAfter(today)) {
+            return decision(coupon, false, "expiration_date > today",
+                    "expiration_date", coupon.getExpirationDate(), "today", today);
+        }
+        CouponSchedule schedule;
+        try {
+            schedule = CouponSchedule.of(coupon);
+        } catch (InvalidCouponException e) {
+            return invalid(coupon, e);
+        }
+        if (!schedule.isOpen(now)) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("now", now);
+            values.put("valid_from", coupon.getValidFrom());
+            values.put("valid_until", coupon.getValidUntil());
+            values.put("daily_window", coupon.getDailyWindow());
+            return new CouponDecision(coupon.getId(), coupon.getType(), false, "now within validity window", values);
+        }
+        Targeting targeting = coupon.getTargeting();
+        if (targeting != null) {
+            Set<String> segments = context == null || context.getSegments() == null ? Set.of() : context.getSegments();
+            String region = context == null ? null : context.getRegion();
+            String channel = context == null ? null : context.getChannel();
+            if (!CouponService.allows(targeting.getSegments(), segments)) {
+                return decision(coupon, false, "context.segments in targeting.segments",
+                        "targeting.segments", targeting.getSegments(), "context.segments", segments);
+            }
+            if (!CouponService.allows(targeting.getRegions(), region == null ? Set.of() : Set.of(region))) {
+                return decision(coupon, false, "context.region in targeting.regions",
+                        "targeting.regions", targeting.getRegions(), "context.region", region);
+            }
+            if (!CouponService.allows(targeting.getChannels(), channel == null ? Set.of() : Set.of(channel))) {
+                return decision(coupon, false, "context.channel in targeting.channels",
+                        "targeting.channels", targeting.getChannels(), "context.channel", channel);
+            }
+        }
+        return null;
+    }
+
+    // A stored coupon whose details or schedule no longer compile
+    static CouponDecision invalid(Coupon coupon, InvalidCouponException e) {
+        return decision(coupon, false, "valid details", "error", e.getMessage());
+    }
+
+    static CouponDecision notFound(String couponId) {
+        return new CouponDecision(couponId, null, false, "coupon exists", Map.of("coupon_id", couponId));
+    }
+
+    // Reports the first buy product the cart has too few of; with the buy condition met, the free units
+    private static CouponDecision explainBxGy(Coupon coupon, BxGyRule rule, CartSummary summary) {
+        int repetitions = BxGyEvaluator.repetitions(rule, summary);
+        if (repetitions == 0) {
+            for (int i = 0; i < rule.buyCount(); i++) {
+                int quantity = summary.quantity(rule.buyProductId(i));
+                if (quantity < rule.buyNeed(i)) {
+                    return decision(coupon, false, "buy quantity in cart >= quantity needed",
+                            "product_id", rule.buyProductId(i), "quantity_in_cart", quantity,
+                            "quantity_needed", rule.buyNeed(i));
+                }
+            }
+            // Only a repetition limit of zero leaves the buy condition unmet with every quantity there
+            return decision(coupon, false, "repetition_limit > 0", "repetition_limit", rule.repetitionLimit());
+        }
+        BxGyMatch match = BxGyEvaluator.evaluate(rule, summary);
+        List<Map<String, Object>> getProducts = new ArrayList<>(rule.getCount());
+        for (int j = 0; j < rule.getCount(); j++) {
+            Map<String, Object> product = new LinkedHashMap<>();
+            product.put("product_id", rule.getProductId(j));
+            product.put("quantity_in_cart", summary.quantity(rule.getProductId(j)));
+            product.put("quantity_bought", (long) repetitions * rule.getBoughtQuantity(j));
+            product.put("quantity_free", (long) repetitions * rule.getQuantity(j));
+            getProducts.add(product);
+        }
+        int freeUnits = 0;
+        for (int i = 0; i < match.size(); i++) {
+            freeUnits += match.freeUnits(i);
+        }
+        return decision(coupon, match.size() > 0, "free units in cart > 0",
+                "repetitions", repetitions, "free_units", freeUnits, "get_products", getProducts);
+    }
+
+    private static CouponDecision explainCategory(Coupon coupon, CategoryWiseRule rule, CartSummary summary) {
+        boolean category = rule.scope() == CategoryWiseRule.Scope.CATEGORY;
+        boolean found = false;
+        for (int i = 0; i < summary.productIds().length && !found; i++) {
+            found = (category ? summary.categoryAt(i) : summary.brandAt(i)) == rule.scopeId();
+        }
+        return category
+                ? decision(coupon, found, "category_id in cart",
+                        "category_id", rule.scopeId(), "cart_categories", summary.categories())
+                : decision(coupon, found, "brand_id in cart",
+                        "brand_id", rule.scopeId(), "cart_brands", summary.brands());
+    }
+
+    // Values alternate name and value, in the order they are reported
+    private static CouponDecision decision(Coupon coupon, boolean applicable, String predicate, Object... values) {
+        Map<String, Object> compared = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i += 2) {
+            Object value = values[i + 1];
+            compared.put((String) values[i], value instanceof int[] ids ? Arrays.stream(ids).boxed().toList() : value);
+        }
+        return new CouponDecision(coupon.getId(), coupon.getType(), applicable, predicate, compared);
+    }
+}
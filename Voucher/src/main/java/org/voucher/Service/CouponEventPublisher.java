@@ -0,0 +1,220 @@
+package org.voucher.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponEvent;
+import org.voucher.util.MpscRingBuffer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Write-behind pipeline for the coupon audit trail and per-coupon counts.
+// Callers put events in a bounded lock-free MPSC ring buffer and return; a scheduled flusher takes
+// them out in batches of batch-size and hands each batch to the configured CouponEventSink.
+// When the buffer is full, admin events (create, update, delete) wait up to offer-timeout for room
+// and checkout events (applied, redeemed, shown) are dropped at once, so a slow sink never holds up
+// a checkout; either overflow policy can be changed per kind. A batch the sink rejects is retried on
+// the following flushes, holding back the rest of the queue, and dropped after max-retries.
+@Slf4j
+@Component
+public class CouponEventPublisher implements MeterBinder {
+
+    public enum Overflow {
+        DROP, // drop the new event
+        WAIT // wait up to offer-timeout for room, then drop it
+    }
+
+    private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final CouponEventSink sink;
+    private final boolean enabled;
+    private final MpscRingBuffer<CouponEvent> buffer;
+    private final int batchSize;
+    private final Overflow adminOverflow;
+    private final Overflow checkoutOverflow;
+    private final long offerTimeoutNanos;
+    private final int maxRetries;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder droppedFull = new LongAdder();
+    private final LongAdder droppedFailed = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    // Guarded by flushLock
+    private List<CouponEvent> pending;
+    private int attempts;
+    // Age of the oldest event in the last batch written, in nanoseconds
+    private volatile long lagNanos;
+
+    @Autowired
+    public CouponEventPublisher(CouponEventSink sink,
+                                @Value("${voucher.events.enabled:true}") boolean enabled,
+                                @Value("${voucher.events.buffer-size:65536}") int bufferSize,
+                                @Value("${voucher.events.batch-size:1000}") int batchSize,
+                                @Value("${voucher.events.admin-overflow:WAIT}") Overflow adminOverflow,
+                                @Value("${voucher.events.checkout-overflow:DROP}") Overflow checkoutOverflow,
+                                @Value("${voucher.events.offer-timeout-ms:100}") long offerTimeoutMillis,
+                                @Value("${voucher.events.max-retries:5}") int maxRetries) {
+        this.sink = sink;
+        this.enabled = enabled;
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.adminOverflow = adminOverflow;
+        this.checkoutOverflow = checkoutOverflow;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    public void created(Coupon coupon) {
+        publish(CouponEvent.of(CouponEvent.Type.CREATED, coupon.getId()));
+    }
+
+    public void updated(Coupon coupon) {
+        publish(CouponEvent.of(CouponEvent.Type.UPDATED, coupon.getId()));
+    }
+
+    public void deleted(String couponId) {
+        publish(CouponEvent.of(CouponEvent.Type.DELETED, couponId));
+    }
+
+    public void applied(Coupon coupon, long discountCents) {
+        CouponEvent event = CouponEvent.of(CouponEvent.Type.APPLIED, coupon.getId());
+        event.setDiscountCents(discountCents);
+        publish(event);
+    }
+
+    public void redeemed(Coupon coupon, String userId, long discountCents) {
+        CouponEvent event = CouponEvent.of(CouponEvent.Type.REDEEMED, coupon.getId());
+        event.setDiscountCents(discountCents);
+        event.setUserId(userId);
+        publish(event);
+    }
+
+    // One event for every coupon an applicable-coupons answer listed
+    public void shown(List<Coupon> coupons) {
+        if (!enabled || coupons.isEmpty()) {
+            return;
+        }
+        List<String> couponIds = new ArrayList<>(coupons.size());
+        for (Coupon coupon : coupons) {
+            couponIds.add(coupon.getId());
+        }
+        CouponEvent event = CouponEvent.of(CouponEvent.Type.SHOWN, null);
+        event.setCouponIds(couponIds);
+        publish(event);
+    }
+
+    private void publish(CouponEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (buffer.offer(event) || (overflowOf(event) == Overflow.WAIT && offerWithin(event, offerTimeoutNanos))) {
+            published.increment();
+        } else {
+            droppedFull.increment();
+        }
+    }
+
+    private Overflow overflowOf(CouponEvent event) {
+        return event.getType().isAdmin() ? adminOverflow : checkoutOverflow;
+    }
+
+    private boolean offerWithin(CouponEvent event, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(WAIT_PARK_NANOS);
+            if (buffer.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${voucher.events.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (true) {
+                if (pending == null) {
+                    List<CouponEvent> batch = new ArrayList<>(Math.min(batchSize, buffer.size()));
+                    buffer.drain(batch::add, batchSize);
+                    if (batch.isEmpty()) {
+                        return;
+                    }
+                    pending = batch;
+                    attempts = 0;
+                }
+                if (!write(pending)) {
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Caller holds flushLock. False when the batch is kept for another attempt.
+    private boolean write(List<CouponEvent> batch) {
+        try {
+            sink.write(batch);
+            written.add(batch.size());
+            lagNanos = Duration.between(batch.get(0).getAt(), Instant.now()).toNanos();
+        } catch (RuntimeException e) {
+            if (++attempts <= maxRetries) {
+                log.warn("Could not write {} coupon events (attempt {}), retrying: {}", batch.size(), attempts,
+                        e.getMessage());
+                return false;
+            }
+            log.error("Dropping {} coupon events after {} attempts: {}", batch.size(), attempts, e.getMessage());
+            droppedFailed.add(batch.size());
+        }
+        pending = null;
+        return true;
+    }
+
+    public int queued() {
+        return buffer.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("coupon.events.published", published, LongAdder::sum)
+                .description("Coupon events queued for the audit trail and coupon stats")
+                .register(registry);
+        FunctionCounter.builder("coupon.events.written", written, LongAdder::sum)
+                .description("Coupon events written by the event sink")
+                .register(registry);
+        FunctionCounter.builder("coupon.events.dropped", droppedFull, LongAdder::sum)
+                .description("Coupon events dropped")
+                .tag("reason", "full")
+                .register(registry);
+        FunctionCounter.builder("coupon.events.dropped", droppedFailed, LongAdder::sum)
+                .description("Coupon events dropped")
+                .tag("reason", "sink_error")
+                .register(registry);
+        Gauge.builder("coupon.events.queued", this, CouponEventPublisher::queued)
+                .description("Coupon events waiting to be written")
+                .register(registry);
+        Gauge.builder("coupon.events.lag", this, publisher -> publisher.lagNanos / 1e9)
+                .description("Age of the oldest event in the last batch written, in seconds")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+}
@@ -0,0 +1,12 @@
+package org.voucher.Service;
+
+import org.voucher.model.CouponEvent;
+
+import java.util.List;
+
+// Where CouponEventPublisher writes its batches; voucher.events.sink picks mongo (default) or file.
+// A write that throws is retried with the same batch.
+public interface CouponEventSink {
+
+    void write(List<CouponEvent> events);
+}
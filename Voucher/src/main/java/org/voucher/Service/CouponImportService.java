@@ -0,0 +1,301 @@
+package org.voucher.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.model.CodeSequence;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponRequest;
+import org.voucher.model.ImportFormat;
+import org.voucher.model.ImportResult;
+import org.voucher.repository.CodeSequenceRepository;
+import org.voucher.repository.CouponRepository;
+import org.voucher.util.CodeGenerator;
+import org.voucher.util.CsvReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Streams coupons from CSV or NDJSON, or mints them from a template with generated codes,
+// and writes them with unordered bulk inserts. Rows are read, validated and written one batch
+// at a time, so memory stays flat however large the input is.
+// The catalog is rebuilt once at the end instead of after every batch.
+@Slf4j
+@Service
+public class CouponImportService {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+    // CSV columns holding JSON rather than plain values
+    private static final Set<String> JSON_COLUMNS = Set.of("details", "dailyWindow", "targeting");
+
+    private final CouponService couponService;
+    private final CouponRepository couponRepository;
+    private final CodeSequenceRepository codeSequenceRepository;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long progressInterval;
+    private final Counter insertedRows;
+    private final Counter rejectedRows;
+    private final Counter failedRows;
+
+    @Autowired
+    public CouponImportService(CouponService couponService,
+                               CouponRepository couponRepository,
+                               CodeSequenceRepository codeSequenceRepository,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${voucher.import.batch-size:1000}") int batchSize,
+                               @Value("${voucher.import.progress-interval:100000}") long progressInterval) {
+        this.couponService = couponService;
+        this.couponRepository = couponRepository;
+        this.codeSequenceRepository = codeSequenceRepository;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.progressInterval = progressInterval;
+        this.insertedRows = rowCounter(meterRegistry, "inserted");
+        this.rejectedRows = rowCounter(meterRegistry, "rejected");
+        this.failedRows = rowCounter(meterRegistry, "failed");
+    }
+
+    private static Counter rowCounter(MeterRegistry registry, String result) {
+        return Counter.builder("coupon.import.rows")
+                .description("Coupon rows handled by bulk imports and code generation")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public ImportResult importCoupons(Reader source, ImportFormat format) throws IOException {
+        BufferedReader reader = new BufferedReader(source, 1 << 16);
+        Run run = new Run();
+        try {
+            if (format == ImportFormat.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+            return run.finish();
+        } finally {
+            run.publish();
+        }
+    }
+
+    // count coupons copying the template, each with the next code of the prefix's sequence.
+    // The sequence and its key live in code_sequences, so every run with a prefix continues where
+    // the last one stopped and codes never repeat across runs or nodes.
+    // The template and prefix are checked once up front, so a bad one fails fast and takes no codes.
+    // The prefix is normalized like the codes themselves, so prefixes differing in case share a sequence.
+    public ImportResult generateCoupons(CouponRequest template, int count, String prefix) {
+        // a negative count would move the sequence back and hand out codes again
+        if (count <= 0) {
+            throw new InvalidCouponException("Count must be positive");
+        }
+        couponService.prepareNew(toCoupon(template));
+        String codePrefix = CouponCodes.requirePrefix(prefix);
+        CodeSequence sequence = codeSequenceRepository.reserve(codePrefix, count, new SecureRandom().nextLong());
+        if (sequence.getNext() > CodeGenerator.CAPACITY) {
+            throw new InvalidCouponException("Prefix '" + codePrefix + "' has fewer than " + count + " codes left");
+        }
+        CodeGenerator generator = new CodeGenerator(codePrefix, sequence.getKey());
+        long first = sequence.getNext() - count;
+        Run run = new Run();
+        try {
+            for (int i = 0; i < count; i++) {
+                CouponRequest row = copy(template);
+                row.setCode(generator.code(first + i));
+                if (row.getMaxRedemptions() == null) {
+                    row.setMaxRedemptions(1);
+                }
+                run.add(i + 1, row);
+            }
+            return run.finish();
+        } finally {
+            run.publish();
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Run run) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                run.add(lineNumber, objectMapper.readValue(line, CouponRequest.class));
+            } catch (JsonProcessingException e) {
+                run.reject(lineNumber, "Malformed row: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    // The header names the CouponRequest fields in each column; details, dailyWindow and targeting hold JSON
+    private void readCsv(BufferedReader reader, Run run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        header.replaceAll(String::strip);
+        List<String> fields;
+        while ((fields = csv.next()) != null) {
+            long line = csv.recordLine();
+            if (fields.size() != header.size()) {
+                run.reject(line, "Expected " + header.size() + " fields but found " + fields.size());
+                continue;
+            }
+            ObjectNode row = objectMapper.createObjectNode();
+            try {
+                for (int i = 0; i < fields.size(); i++) {
+                    String value = fields.get(i);
+                    if (value.isEmpty()) {
+                        continue;
+                    }
+                    String column = header.get(i);
+                    row.set(column, JSON_COLUMNS.contains(column)
+                            ? objectMapper.readTree(value)
+                            : row.textNode(value));
+                }
+                run.add(line, objectMapper.treeToValue(row, CouponRequest.class));
+            } catch (JsonProcessingException e) {
+                run.reject(line, "Malformed row: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static CouponRequest copy(CouponRequest template) {
+        CouponRequest copy = new CouponRequest();
+        copy.setType(template.getType());
+        copy.setDetails(template.getDetails());
+        copy.setValidFrom(template.getValidFrom());
+        copy.setValidUntil(template.getValidUntil());
+        copy.setDailyWindow(template.getDailyWindow());
+        copy.setTargeting(template.getTargeting());
+        copy.setMaxRedemptions(template.getMaxRedemptions());
+        copy.setMaxRedemptionsPerUser(template.getMaxRedemptionsPerUser());
+        return copy;
+    }
+
+    private static Coupon toCoupon(CouponRequest request) {
+        if (request.getMaxRedemptions() != null && request.getMaxRedemptions() <= 0) {
+            throw new InvalidCouponException("Max redemptions must be positive");
+        }
+        if (request.getMaxRedemptionsPerUser() != null && request.getMaxRedemptionsPerUser() <= 0) {
+            throw new InvalidCouponException("Max redemptions per user must be positive");
+        }
+        Coupon coupon = new Coupon();
+        coupon.setCode(request.getCode());
+        coupon.setType(request.getType());
+        coupon.setDetails(request.getDetails());
+        coupon.setValidFrom(request.getValidFrom());
+        coupon.setValidUntil(request.getValidUntil());
+        coupon.setDailyWindow(request.getDailyWindow());
+        coupon.setTargeting(request.getTargeting());
+        coupon.setMaxRedemptions(request.getMaxRedemptions());
+        coupon.setMaxRedemptionsPerUser(request.getMaxRedemptionsPerUser());
+        return coupon;
+    }
+
+    // State of one import: the pending batch, the line each of its rows came from, and the tallies
+    private final class Run {
+
+        private final long startNanos = System.nanoTime();
+        private final List<Coupon> batch = new ArrayList<>(batchSize);
+        private final long[] batchLines = new long[batchSize];
+        private final ImportResult result = new ImportResult();
+
+        private void add(long line, CouponRequest request) {
+            Coupon coupon;
+            try {
+                coupon = toCoupon(request);
+                couponService.prepareNew(coupon);
+            } catch (InvalidCouponException e) {
+                reject(line, e.getMessage());
+                return;
+            }
+            batchLines[batch.size()] = line;
+            batch.add(coupon);
+            if (batch.size() == batchSize) {
+                flush();
+            }
+            countRow();
+        }
+
+        private void reject(long line, String message) {
+            result.setRejected(result.getRejected() + 1);
+            rejectedRows.increment();
+            report(line, message);
+            countRow();
+        }
+
+        private void countRow() {
+            result.setRowsRead(result.getRowsRead() + 1);
+            if (result.getRowsRead() % progressInterval == 0) {
+                logProgress();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int inserted = couponRepository.insertUnordered(batch, (message, index) -> {
+                result.setFailed(result.getFailed() + 1);
+                failedRows.increment();
+                report(batchLines[index], message);
+            });
+            couponService.registerCodes(batch);
+            result.setInserted(result.getInserted() + inserted);
+            insertedRows.increment(inserted);
+            batch.clear();
+        }
+
+        private void report(long line, String message) {
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(new ImportResult.RowError(line, message));
+            }
+        }
+
+        private void logProgress() {
+            long elapsed = System.nanoTime() - startNanos;
+            log.info("Import progress: {} rows read, {} inserted, {} rejected, {} failed, {} rows/s",
+                    result.getRowsRead(), result.getInserted(), result.getRejected(), result.getFailed(),
+                    rowsPerSecond(result.getRowsRead(), elapsed));
+        }
+
+        private ImportResult finish() {
+            flush();
+            long elapsed = System.nanoTime() - startNanos;
+            result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsed));
+            result.setRowsPerSecond(rowsPerSecond(result.getRowsRead(), elapsed));
+            log.info("Import finished: {} rows read, {} inserted, {} rejected, {} failed in {} ms ({} rows/s)",
+                    result.getRowsRead(), result.getInserted(), result.getRejected(), result.getFailed(),
+                    result.getElapsedMillis(), result.getRowsPerSecond());
+            return result;
+        }
+
+        // Also runs when an import stops half way, so the rows already written are served
+        private void publish() {
+            if (result.getInserted() > 0) {
+                couponService.reloadCatalog();
+            }
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long elapsedNanos) {
+        return elapsedNanos == 0 ? rows : rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
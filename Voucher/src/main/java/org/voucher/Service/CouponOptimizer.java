@@ -0,0 +1,176 @@
+package org.voucher.Service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponStack;
+import org.voucher.model.RankedCoupon;
+import org.voucher.rule.CartWiseRule;
+import org.voucher.rule.CouponRule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Ranks applicable coupons by the discount they give a cart and searches for the best stack.
+// Stacking rules: at most one CART_WISE coupon, no two coupons touching the same product,
+// at most maxStackSize coupons, and discounts add up without going past the cart total.
+@Service
+public class CouponOptimizer {
+
+    private final CouponService couponService;
+    private final long latencyBudgetNanos;
+    private final int maxStackSize;
+
+    @Autowired
+    public CouponOptimizer(CouponService couponService,
+                           @Value("${voucher.optimizer.latency-budget-ms:50}") long latencyBudgetMillis,
+                           @Value("${voucher.optimizer.max-stack-size:3}") int maxStackSize) {
+        this.couponService = couponService;
+        this.latencyBudgetNanos = TimeUnit.MILLISECONDS.toNanos(latencyBudgetMillis);
+        this.maxStackSize = maxStackSize;
+    }
+
+    // The limit applicable coupons with the largest discount, best first
+    public List<RankedCoupon> getBestCoupons(CartRequest cart, int limit) {
+        return rank(couponService.getApplicableCouponSavings(cart)).stream()
+                .limit(limit)
+                .map(savings -> new RankedCoupon(savings.compiled().coupon(), savings.discountCents()))
+                .toList();
+    }
+
+    public CouponStack getBestStack(CartRequest cart) {
+        long cartTotal = cart.getTotalPriceCents();
+        List<CouponSavings> ranked = rank(couponService.getApplicableCouponSavings(cart));
+        StackSearch search = new StackSearch(ranked, cartTotal, System.nanoTime() + latencyBudgetNanos);
+        search.run();
+
+        List<Coupon> coupons = new ArrayList<>(search.best.size());
+        for (int index : search.best) {
+            coupons.add(ranked.get(index).compiled().coupon());
+        }
+        CouponStack stack = new CouponStack();
+        stack.setCoupons(coupons);
+        stack.setTotalDiscountCents(search.bestDiscount);
+        stack.setFinalPriceCents(cartTotal - search.bestDiscount);
+        stack.setComplete(!search.timedOut);
+        return stack;
+    }
+
+    private static List<CouponSavings> rank(List<CouponSavings> savings) {
+        return savings.stream()
+                .filter(s -> s.discountCents() > 0)
+                .sorted(Comparator.comparingLong(CouponSavings::discountCents).reversed())
+                .toList();
+    }
+
+    // Depth-first branch-and-bound over coupons sorted by discount, best first.
+    // A branch is cut when even the largest remaining discounts cannot beat the best stack so far.
+    private final class StackSearch {
+
+        private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+        private final long cartTotal;
+        private final long deadline;
+        private final long[] discounts;
+        private final boolean[] cartWise;
+        private final int[][] products;
+        // prefixSums[i] = sum of the first i discounts
+        private final long[] prefixSums;
+
+        private final List<Integer> current = new ArrayList<>();
+        private final Set<Integer> usedProducts = new HashSet<>();
+        private boolean cartWiseUsed;
+        private List<Integer> best = List.of();
+        private long bestDiscount;
+        private long nodes;
+        private boolean timedOut;
+
+        private StackSearch(List<CouponSavings> ranked, long cartTotal, long deadline) {
+            this.cartTotal = cartTotal;
+            this.deadline = deadline;
+            int n = ranked.size();
+            this.discounts = new long[n];
+            this.cartWise = new boolean[n];
+            this.products = new int[n][];
+            this.prefixSums = new long[n + 1];
+            for (int i = 0; i < n; i++) {
+                CouponRule rule = ranked.get(i).compiled().rule();
+                discounts[i] = ranked.get(i).discountCents();
+                cartWise[i] = rule instanceof CartWiseRule;
+                products[i] = ranked.get(i).products();
+                prefixSums[i + 1] = prefixSums[i] + discounts[i];
+            }
+        }
+
+        private void run() {
+            search(0, 0);
+        }
+
+        private void search(int next, long discount) {
+            if (discount > bestDiscount) {
+                bestDiscount = discount;
+                best = List.copyOf(current);
+            }
+            int slots = maxStackSize - current.size();
+            if (slots == 0 || next == discounts.length || timedOut) {
+                return;
+            }
+            // Discounts are sorted, so the next `slots` coupons are the most the rest could add
+            long bound = discount + prefixSums[Math.min(discounts.length, next + slots)] - prefixSums[next];
+            if (Math.min(bound, cartTotal) <= bestDiscount) {
+                return;
+            }
+            if (++nodes % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                timedOut = true;
+                return;
+            }
+            for (int i = next; i < discounts.length && !timedOut; i++) {
+                if (discount + discounts[i] > cartTotal || !compatible(i)) {
+                    continue;
+                }
+                take(i);
+                search(i + 1, discount + discounts[i]);
+                release(i);
+                if (discount + prefixSums[Math.min(discounts.length, i + 1 + slots)] - prefixSums[i + 1] <= bestDiscount) {
+                    break;
+                }
+            }
+        }
+
+        private boolean compatible(int index) {
+            if (cartWise[index] && cartWiseUsed) {
+                return false;
+            }
+            for (int product : products[index]) {
+                if (usedProducts.contains(product)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void take(int index) {
+            current.add(index);
+            cartWiseUsed |= cartWise[index];
+            for (int product : products[index]) {
+                usedProducts.add(product);
+            }
+        }
+
+        private void release(int index) {
+            current.remove(current.size() - 1);
+            if (cartWise[index]) {
+                cartWiseUsed = false;
+            }
+            for (int product : products[index]) {
+                usedProducts.remove(product);
+            }
+        }
+    }
+}
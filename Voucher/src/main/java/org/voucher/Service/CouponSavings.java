@@ -0,0 +1,38 @@
+package org.voucher.Service;
+
+import org.voucher.rule.BxGyRule;
+import org.voucher.rule.CartWiseRule;
+import org.voucher.rule.CategoryWiseRule;
+import org.voucher.rule.CompiledCoupon;
+import org.voucher.rule.CouponRule;
+import org.voucher.rule.ProductWiseRule;
+
+// An applicable coupon, the discount, in cents, it gives a particular cart, and the
+// products it discounts or needs; coupons sharing any of those products cannot be stacked
+public record CouponSavings(CompiledCoupon compiled, long discountCents, int[] products) {
+
+    // For coupons whose products follow from the rule alone
+    public CouponSavings(CompiledCoupon compiled, long discountCents) {
+        this(compiled, discountCents, ruleProducts(compiled.rule()));
+    }
+
+    // CATEGORY_WISE products depend on the cart, so they have to be passed in
+    private static int[] ruleProducts(CouponRule rule) {
+        return switch (rule) {
+            case CartWiseRule cartWise -> new int[0];
+            case ProductWiseRule productWise -> new int[]{productWise.productId()};
+            case BxGyRule bxGy -> {
+                int[] products = new int[bxGy.buyCount() + bxGy.getCount()];
+                for (int i = 0; i < bxGy.buyCount(); i++) {
+                    products[i] = bxGy.buyProductId(i);
+                }
+                for (int i = 0; i < bxGy.getCount(); i++) {
+                    products[bxGy.buyCount() + i] = bxGy.getProductId(i);
+                }
+                yield products;
+            }
+            case CategoryWiseRule categoryWise ->
+                    throw new IllegalArgumentException("CATEGORY_WISE savings need the cart's products in scope");
+        };
+    }
+}
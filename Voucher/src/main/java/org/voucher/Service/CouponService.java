@@ -1,49 +1,155 @@
 package org.voucher.Service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.metrics.CouponMetrics;
+import org.voucher.model.ApplyCouponResponse;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.CatalogStatus;
 import org.voucher.model.Coupon;
+import org.voucher.model.CouponDecision;
+import org.voucher.model.CouponType;
+import org.voucher.model.RequestContext;
+import org.voucher.model.Targeting;
 import org.voucher.repository.CouponRepository;
+import org.voucher.rule.BxGyRule;
+import org.voucher.rule.CartWiseRule;
+import org.voucher.rule.CategoryWiseRule;
+import org.voucher.rule.CompiledCoupon;
+import org.voucher.rule.CouponRule;
+import org.voucher.rule.CouponRuleCompiler;
+import org.voucher.rule.CouponSchedule;
+import org.voucher.rule.ProductWiseRule;
+import org.voucher.util.Money;
 
+import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CouponService {
 
     private final CouponRepository couponRepository;
+    private final CouponCatalog couponCatalog;
+    private final CouponMetrics couponMetrics;
+    private final ProductCategoryStore productCategories;
+    private final CouponCodeIndex codeIndex;
+    private final CatalogSync catalogSync;
+    private final DecisionLog decisionLog;
+    private final CouponEventPublisher events;
+    private final ApplicableCouponCache applicableCache;
 
     @Autowired
-    public CouponService(CouponRepository couponRepository) {
+    public CouponService(CouponRepository couponRepository, CouponCatalog couponCatalog, CouponMetrics couponMetrics,
+                         ProductCategoryStore productCategories, CouponCodeIndex codeIndex, CatalogSync catalogSync,
+                         DecisionLog decisionLog, CouponEventPublisher events, ApplicableCouponCache applicableCache) {
         this.couponRepository = couponRepository;
+        this.couponCatalog = couponCatalog;
+        this.couponMetrics = couponMetrics;
+        this.productCategories = productCategories;
+        this.codeIndex = codeIndex;
+        this.catalogSync = catalogSync;
+        this.decisionLog = decisionLog;
+        this.events = events;
+        this.applicableCache = applicableCache;
     }
 
     // CRUD Operations
     public Coupon createCoupon(Coupon coupon) {
+        CouponRule rule = prepareNew(coupon);
+        Coupon saved = save(coupon);
+        couponCatalog.upsert(new CompiledCoupon(saved, rule));
+        applicableCache.invalidateAll();
+        events.created(saved);
+        return saved;
+    }
+
+    // The unique code index turns a reused code into a duplicate key error.
+    // Other nodes pick the change up from the catalog change log.
+    private Coupon save(Coupon coupon) {
+        try {
+            Coupon saved = couponRepository.save(coupon);
+            codeIndex.add(saved.getCode());
+            catalogSync.recordUpsert(saved.getId());
+            return saved;
+        } catch (DuplicateKeyException e) {
+            throw new InvalidCouponException("Coupon code " + coupon.getCode() + " is already in use");
+        }
+    }
+
+    // Validates a coupon that is about to be created and fills in its dates and active flag.
+    // Throws InvalidCouponException before anything is saved.
+    public CouponRule prepareNew(Coupon coupon) {
+        CouponRule rule = validate(coupon);
         coupon.setCreationDate(LocalDate.now());
         coupon.setExpirationDate(LocalDate.now().plusMonths(2));
         coupon.setActive(true);
-        return couponRepository.save(coupon);
+        return rule;
     }
 
-    public void deactivateExpiredCoupons() {
-        List<Coupon> allCoupons = couponRepository.findAll();
-        LocalDate today = LocalDate.now();
+    // Rejects malformed details, schedules or codes with InvalidCouponException and normalizes the code.
+    // Checked before an update reads the coupon it replaces; prepareUpdate finishes the job.
+    public CouponRule validate(Coupon coupon) {
+        CouponRule rule = CouponRuleCompiler.compile(coupon);
+        CouponSchedule.of(coupon);
+        coupon.setCode(CouponCodes.require(coupon.getCode()));
+        return rule;
+    }
 
-        for (Coupon coupon : allCoupons) {
-            if (coupon.getExpirationDate().isBefore(today) && coupon.isActive()) {
-                coupon.setActive(false);
-                couponRepository.save(coupon);
-            }
+    // A validated replacement keeps the existing coupon's id, dates and active flag
+    public void prepareUpdate(Coupon coupon, Coupon existing) {
+        coupon.setId(existing.getId());
+        coupon.setCreationDate(existing.getCreationDate());
+        coupon.setExpirationDate(existing.getExpirationDate());
+        coupon.setActive(existing.isActive());
+    }
+
+    // Makes codes written around save(), e.g. by a bulk insert, findable straight away
+    public void registerCodes(List<Coupon> coupons) {
+        for (Coupon coupon : coupons) {
+            codeIndex.add(coupon.getCode());
         }
     }
 
-    public List<Coupon> getAllCoupons() {
-        return couponRepository.findAll();
+    // Rebuilds the catalog and the code filter on every node from Mongo after coupons were
+    // written around them, e.g. by a bulk import
+    public void reloadCatalog() {
+        catalogSync.reloadEverywhere();
+    }
+
+    // Deactivates expired coupons with a single updateMany and returns how many were touched
+    public long deactivateExpiredCoupons() {
+        LocalDate today = LocalDate.now();
+        long deactivated = couponRepository.deactivateExpired(today);
+        couponCatalog.evictExpired(today);
+        applicableCache.invalidateAll();
+        return deactivated;
+    }
+
+    // One page of coupons in id order, starting after the given id
+    public List<Coupon> getCouponsPage(String after, int limit) {
+        return couponRepository.findPage(after, limit);
+    }
+
+    // Every coupon straight from a Mongo cursor; the caller must close the stream
+    public Stream<Coupon> streamAllCoupons() {
+        return couponRepository.streamAll();
     }
 
     public Optional<Coupon> getCouponById(String id) {
@@ -51,131 +157,398 @@ public class CouponService {
     }
 
     public Coupon updateCoupon(String id, Coupon coupon) {
+        CouponRule rule = validate(coupon);
         Optional<Coupon> existing = couponRepository.findById(id);
         if (existing.isPresent()) {
-            coupon.setId(id);
-            coupon.setCreationDate(existing.get().getCreationDate());
-            coupon.setExpirationDate(existing.get().getExpirationDate());
-            coupon.setActive(existing.get().isActive());
+            prepareUpdate(coupon, existing.get());
         } else {
             throw new RuntimeException("Coupon not found");
         }
-        return couponRepository.save(coupon);
+        Coupon saved = save(coupon);
+        couponCatalog.upsert(new CompiledCoupon(saved, rule));
+        applicableCache.invalidateAll();
+        events.updated(saved);
+        return saved;
+    }
+
+    // The change-log version this node's catalog has caught up with
+    public CatalogStatus getCatalogStatus() {
+        return catalogSync.status();
     }
 
     public void deleteCoupon(String id) {
         couponRepository.deleteById(id);
+        couponCatalog.remove(id);
+        catalogSync.recordDelete(id);
+        applicableCache.invalidateAll();
+        events.deleted(id);
     }
 
+    // Served from the in-memory catalog rather than Mongo
     public List<Coupon> getAllActiveCoupons() {
-        return couponRepository.findAll().stream()
-                .filter(coupon -> coupon.isActive() && coupon.getExpirationDate().isAfter(LocalDate.now()))
-                .collect(Collectors.toList());
+        return couponCatalog.getActiveCoupons(LocalDate.now());
     }
 
-    // Fetch all applicable coupons for a given cart
-    public List<Coupon> getApplicableCoupons(Map<String, Object> cart) {
-        List<Coupon> activeCoupons = getAllActiveCoupons();
-        return activeCoupons.stream()
-                .filter(coupon -> isCouponApplicable(cart, coupon))
-                .collect(Collectors.toList());
+    // Fetch all applicable coupons for a given cart. An unchanged cart asked about again under the
+    // same catalog is answered from the applicable-coupon cache; the list returned is read-only.
+    public List<Coupon> getApplicableCoupons(CartRequest cart) {
+        List<Coupon> applicable = couponMetrics.timeApplicable(cart.getItems().length, () -> {
+            CartSummary summary = summarize(cart);
+            return applicableCache.get(summary, couponCatalog.generation(), LocalDate.now(), () -> findApplicable(summary).stream()
+                    .map(CompiledCoupon::coupon)
+                    .collect(Collectors.toList()));
+        });
+        events.shown(applicable);
+        return applicable;
     }
 
-    public Map<String, Object> applyCouponToCart(String couponId, Map<String, Object> cart) {
+    // Why each candidate the cart's total, products and context led to does or does not apply,
+    // plus each named coupon wherever it dropped out: missing, inactive, expired, out of its time window,
+    // not targeted at the request or not triggered by the cart
+    public List<CouponDecision> explainApplicableCoupons(CartRequest cart, Collection<String> couponIds) {
+        CartSummary summary = summarize(cart);
+        Map<String, CouponDecision> decisions = new LinkedHashMap<>();
+        for (CompiledCoupon compiled : couponCatalog.findCandidates(summary, LocalDate.now())) {
+            decisions.put(compiled.coupon().getId(), CouponDecisions.explain(compiled.coupon(), compiled.rule(), summary));
+        }
+        List<String> named = couponIds.stream().filter(id -> !decisions.containsKey(id)).distinct().toList();
+        if (named.isEmpty()) {
+            return new ArrayList<>(decisions.values());
+        }
+        Map<String, Coupon> coupons = getCouponsByIds(named);
+        Instant now = Instant.now();
+        LocalDate today = LocalDate.now();
+        for (String id : named) {
+            Coupon coupon = coupons.get(id);
+            decisions.put(id, coupon == null ? CouponDecisions.notFound(id) : explainNamed(coupon, summary, now, today));
+        }
+        return new ArrayList<>(decisions.values());
+    }
+
+    private CouponDecision explainNamed(Coupon coupon, CartSummary summary, Instant now, LocalDate today) {
+        CouponDecision unavailable = CouponDecisions.checkAvailability(coupon, summary.context(), now, today);
+        if (unavailable != null) {
+            return unavailable;
+        }
+        try {
+            CouponRule rule = couponCatalog.find(coupon.getId())
+                    .filter(compiled -> sameRule(compiled.coupon(), coupon))
+                    .map(CompiledCoupon::rule)
+                    .orElseGet(() -> CouponRuleCompiler.compile(coupon));
+            return CouponDecisions.explain(coupon, rule, summary);
+        } catch (InvalidCouponException e) {
+            return CouponDecisions.invalid(coupon, e);
+        }
+    }
+
+    // Applicable coupons checked lazily, one candidate at a time as the stream is consumed,
+    // so a reactive caller sees each match as soon as it is found. The request is sampled into the
+    // decision log up front; coupon.applicable and the scan sizes are recorded when the stream is closed,
+    // so the time includes any wait for the client's demand.
+    public Stream<Coupon> streamApplicableCoupons(CartRequest cart) {
+        long start = System.nanoTime();
+        CartSummary summary = summarize(cart);
+        List<CompiledCoupon> candidates = couponCatalog.findCandidates(summary, LocalDate.now());
+        if (decisionLog.sample()) {
+            decisionLog.record(summary, candidates);
+        }
+        int[] checked = new int[2];
+        return candidates.stream()
+                .peek(compiled -> checked[0]++)
+                .filter(compiled -> isCouponApplicable(summary, compiled.rule()))
+                .peek(compiled -> checked[1]++)
+                .map(CompiledCoupon::coupon)
+                .onClose(() -> {
+                    couponMetrics.recordApplicable(summary.itemCount(), System.nanoTime() - start);
+                    couponMetrics.recordScan(checked[0], checked[1]);
+                });
+    }
+
+    // Applicable coupons with the discount each one gives the cart, worked out from the summary alone
+    public List<CouponSavings> getApplicableCouponSavings(CartRequest cart) {
+        CartSummary summary = summarize(cart);
+        List<CouponSavings> savings = new ArrayList<>();
+        for (CompiledCoupon compiled : findApplicable(summary)) {
+            CouponRule rule = compiled.rule();
+            savings.add(rule instanceof CategoryWiseRule categoryWise
+                    ? new CouponSavings(compiled, discountCents(summary, rule), productsInScope(summary, categoryWise))
+                    : new CouponSavings(compiled, discountCents(summary, rule)));
+        }
+        return savings;
+    }
+
+    public ApplyCouponResponse applyCouponToCart(String couponId, CartRequest cart) {
         Optional<Coupon> couponOpt = couponRepository.findById(couponId);
 
         if (couponOpt.isPresent()) {
-            Coupon coupon = couponOpt.get();
-            if (coupon.isActive() && coupon.getExpirationDate().isAfter(LocalDate.now())) {
-                return calculateDiscount(cart, coupon);
-            } else {
-                throw new RuntimeException("Coupon is either inactive or expired");
-            }
+            return applyCouponToCart(couponOpt.get(), cart);
         }
         throw new RuntimeException("Coupon not found");
     }
 
-    // Helper Method to Check Applicability
-    private boolean isCouponApplicable(Map<String, Object> cart, Coupon coupon) {
-        return switch (coupon.getType()) {
-            case CART_WISE -> {
-                double cartTotal = (double) cart.get("totalPrice");
-                Map<String, Object> cartDetails = coupon.getDetails();
-                yield cartTotal > (int) cartDetails.get("threshold");
+    // Looks a coupon up by the code a shopper typed, in any case and with stray whitespace.
+    // Malformed codes and codes the filter has never seen are answered without touching Mongo,
+    // as long as this node is caught up with the catalog change log.
+    public Optional<Coupon> getCouponByCode(String code) {
+        String normalized = codeToLookUp(code);
+        if (normalized == null) {
+            return Optional.empty();
+        }
+        Optional<Coupon> coupon = couponRepository.findByCode(normalized);
+        recordCodeLookup(coupon.isPresent());
+        return coupon;
+    }
+
+    // The normalized code worth looking up in Mongo, or null when the code certainly does not exist.
+    // Codes written on other nodes reach the filter through the change log, so while this node lags
+    // behind the log a code the filter has not seen may still exist and is looked up anyway.
+    public String codeToLookUp(String code) {
+        String normalized = CouponCodes.normalize(code);
+        if (normalized == null || (!codeIndex.mightExist(normalized) && catalogSync.isCaughtUp())) {
+            couponMetrics.recordCodeFiltered();
+            return null;
+        }
+        return normalized;
+    }
+
+    public void recordCodeLookup(boolean found) {
+        couponMetrics.recordCodeLookup(found);
+    }
+
+    public ApplyCouponResponse applyCouponByCode(String code, CartRequest cart) {
+        return applyCouponToCart(getCouponByCode(code)
+                .orElseThrow(() -> new RuntimeException("Coupon not found")), cart);
+    }
+
+    // Apply a coupon that has already been loaded, e.g. by getCouponsByIds
+    public ApplyCouponResponse applyCouponToCart(Coupon coupon, CartRequest cart) {
+        return applyCouponToCart(coupon, cart, false);
+    }
+
+    // Apply a coupon that is about to be redeemed. Unlike a plain apply, the coupon must apply to the
+    // cart as getApplicableCoupons decides, so a cart under a CART_WISE threshold or without a free
+    // BXGY unit is rejected before it uses up a redemption. No APPLIED event is published: the
+    // redemption is recorded as REDEEMED alone, so coupon_stats does not count it twice.
+    public ApplyCouponResponse applyCouponForRedemption(Coupon coupon, CartRequest cart) {
+        return applyCouponToCart(coupon, cart, true);
+    }
+
+    private ApplyCouponResponse applyCouponToCart(Coupon coupon, CartRequest cart, boolean redemption) {
+        if (coupon.isActive() && coupon.getExpirationDate().isAfter(LocalDate.now())) {
+            Optional<CompiledCoupon> cached = couponCatalog.find(coupon.getId())
+                    .filter(compiled -> sameRule(compiled.coupon(), coupon));
+            couponMetrics.recordRuleCacheLookup(cached.isPresent());
+            CouponRule rule = cached.map(CompiledCoupon::rule)
+                    .orElseGet(() -> CouponRuleCompiler.compile(coupon));
+            if (!CouponSchedule.of(coupon).isOpen(Instant.now())) {
+                throw new RuntimeException("Coupon is outside its valid time window");
             }
-            case PRODUCT_WISE -> {
-                List<Map<String, Object>> items = (List<Map<String, Object>>) cart.get("items");
-                Map<String, Object> productDetails = coupon.getDetails();
-                yield items.stream()
-                        .anyMatch(item -> item.get("product_id").equals(productDetails.get("product_id")));
+            if (!isTargetedAt(coupon.getTargeting(), cart.getContext())) {
+                throw new RuntimeException("Coupon is not available for this customer");
             }
-            case BXGY -> checkBxGyApplicability(cart, coupon.getDetails());
-        };
+            if (redemption && !isCouponApplicable(summarize(cart), rule)) {
+                throw new InvalidCouponException("Coupon does not apply to this cart");
+            }
+            ApplyCouponResponse response = couponMetrics.timeApply(coupon.getType(), () -> applyDiscount(cart, rule));
+            if (!redemption) {
+                events.applied(coupon, response.getTotalDiscountCents());
+            }
+            return response;
+        }
+        throw new RuntimeException("Coupon is either inactive or expired");
+    }
+
+    // Only type and details feed the compiled rule; limits and dates can change without invalidating it
+    private static boolean sameRule(Coupon cached, Coupon coupon) {
+        return cached.getType() == coupon.getType() && Objects.equals(cached.getDetails(), coupon.getDetails());
+    }
+
+    // The same rule the catalog's targeting bitmaps apply: every restricted dimension must match
+    private static boolean isTargetedAt(Targeting targeting, RequestContext context) {
+        if (targeting == null) {
+            return true;
+        }
+        Set<String> segments = context == null || context.getSegments() == null ? Set.of() : context.getSegments();
+        Set<String> region = context == null || context.getRegion() == null ? Set.of() : Set.of(context.getRegion());
+        Set<String> channel = context == null || context.getChannel() == null ? Set.of() : Set.of(context.getChannel());
+        return allows(targeting.getSegments(), segments)
+                && allows(targeting.getRegions(), region)
+                && allows(targeting.getChannels(), channel);
+    }
+
+    static boolean allows(Set<String> targeted, Set<String> values) {
+        if (targeted == null || targeted.isEmpty()) {
+            return true;
+        }
+        for (String value : values) {
+            if (targeted.contains(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Resolve many coupons with a single findAllById, keyed by id
+    public Map<String, Coupon> getCouponsByIds(Collection<String> ids) {
+        Map<String, Coupon> coupons = new HashMap<>();
+        for (Coupon coupon : couponRepository.findAllById(ids)) {
+            coupons.put(coupon.getId(), coupon);
+        }
+        return coupons;
+    }
+
+    // Only coupons the cart's total or products can trigger are looked at.
+    // Candidates are checked one coupon type at a time so that each type is
+    // timed with a single pair of clock reads rather than one per coupon.
+    private List<CompiledCoupon> findApplicable(CartSummary summary) {
+        List<CompiledCoupon> candidates = couponCatalog.findCandidates(summary, LocalDate.now());
+        boolean[] applicable = new boolean[candidates.size()];
+        for (CouponType type : CouponType.values()) {
+            long start = System.nanoTime();
+            int checked = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                CompiledCoupon compiled = candidates.get(i);
+                if (compiled.coupon().getType() == type) {
+                    applicable[i] = isCouponApplicable(summary, compiled.rule());
+                    checked++;
+                }
+            }
+            if (checked > 0) {
+                couponMetrics.recordApplicabilityChecks(type, checked, System.nanoTime() - start);
+            }
+        }
+        List<CompiledCoupon> result = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (applicable[i]) {
+                result.add(candidates.get(i));
+            }
+        }
+        couponMetrics.recordScan(candidates.size(), result.size());
+        if (decisionLog.sample()) {
+            decisionLog.record(summary, candidates);
+        }
+        return result;
     }
 
-    // Helper Method to Apply Discounts
-    private Map<String, Object> calculateDiscount(Map<String, Object> cart, Coupon coupon) {
-        return switch (coupon.getType()) {
-            case CART_WISE -> applyCartWiseDiscount(cart, coupon);
-            case PRODUCT_WISE -> applyProductWiseDiscount(cart, coupon);
-            case BXGY -> applyBxGyDiscount(cart, coupon);
+    // Helper Method to Check Applicability
+    private boolean isCouponApplicable(CartSummary summary, CouponRule rule) {
+        return switch (rule) {
+            case CartWiseRule cartWise -> summary.totalCents() > Money.fromUnits(cartWise.threshold());
+            case ProductWiseRule productWise -> summary.contains(productWise.productId());
+            case BxGyRule bxGy -> BxGyEvaluator.isApplicable(bxGy, summary);
+            case CategoryWiseRule categoryWise -> anyInScope(summary, categoryWise);
         };
     }
 
-    private Map<String, Object> applyCartWiseDiscount(Map<String, Object> cart, Coupon coupon) {
-        HashMap<String, Object> res = new HashMap<>(cart);
-        double cartTotal = (double) cart.get("totalPrice");
-        Map<String, Object> details = coupon.getDetails();
-        double discount = (int) details.get("discount");
-        double discountAmount = cartTotal * (discount / 100);
+    private CartSummary summarize(CartRequest cart) {
+        return CartSummary.of(cart, productCategories.current());
+    }
 
-        res.put("totalDiscount", discountAmount);
-        res.put("finalPrice", cartTotal - discountAmount);
-        return res;
+    private static boolean inScope(CartSummary summary, int index, CategoryWiseRule rule) {
+        int id = rule.scope() == CategoryWiseRule.Scope.CATEGORY ? summary.categoryAt(index) : summary.brandAt(index);
+        return id == rule.scopeId();
     }
 
-    private Map<String, Object> applyProductWiseDiscount(Map<String, Object> cart, Coupon coupon) {
-        List<Map<String, Object>> items = (List<Map<String, Object>>) cart.get("items");
-        Map<String, Object> details = coupon.getDetails();
-        int productId = (int) details.get("product_id");
-        double discount = (int) details.get("discount");
+    private static boolean anyInScope(CartSummary summary, CategoryWiseRule rule) {
+        for (int i = 0; i < summary.productIds().length; i++) {
+            if (inScope(summary, i, rule)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        items.forEach(item -> {
-            if (item.get("product_id").equals(productId)) {
-                double price = (int) item.get("price");
-                double discountAmount = price * (discount / 100);
-                item.put("total_discount", discountAmount);
+    // Cart products the category or brand covers
+    private static int[] productsInScope(CartSummary summary, CategoryWiseRule rule) {
+        int[] productIds = summary.productIds();
+        int[] matching = new int[productIds.length];
+        int count = 0;
+        for (int i = 0; i < productIds.length; i++) {
+            if (inScope(summary, i, rule)) {
+                matching[count++] = productIds[i];
             }
-        });
-        return cart;
+        }
+        return Arrays.copyOf(matching, count);
     }
 
-    private boolean checkBxGyApplicability(Map<String, Object> cart, Map<String, Object> details) {
-        List<Map<String, Object>> buyProducts = (List<Map<String, Object>>) details.get("buy_products");
-        List<Map<String, Object>> cartItems = (List<Map<String, Object>>) cart.get("items");
-        for (Map<String, Object> buyProduct : buyProducts) {
-            int productId = (int) buyProduct.get("product_id");
-            long count = cartItems.stream().filter(item -> item.get("product_id").equals(productId)).count();
-            if (count < (int) buyProduct.get("quantity")) {
-                return false;
+    private static long scopeLinePriceCents(CartSummary summary, CategoryWiseRule rule) {
+        long total = 0;
+        for (int i = 0; i < summary.productIds().length; i++) {
+            if (inScope(summary, i, rule)) {
+                total += summary.linePriceCentsAt(i);
             }
         }
-        return true;
+        return total;
+    }
+
+    // Discount in cents a coupon gives the cart, without building the discounted cart
+    private long discountCents(CartSummary summary, CouponRule rule) {
+        return switch (rule) {
+            case CartWiseRule cartWise ->
+                    Money.percentOf(summary.totalCents(), cartWise.discountBasisPoints(), cartWise.rounding());
+            case ProductWiseRule productWise ->
+                    Money.percentOf(summary.linePriceCents(productWise.productId()),
+                            productWise.discountBasisPoints(), productWise.rounding());
+            case BxGyRule bxGy -> BxGyEvaluator.evaluate(bxGy, summary).discountCents();
+            case CategoryWiseRule categoryWise ->
+                    Money.percentOf(scopeLinePriceCents(summary, categoryWise),
+                            categoryWise.discountBasisPoints(), categoryWise.rounding());
+        };
+    }
+
+    // Helper Method to Apply Discounts.
+    // The discount is the one discountCents gives; this also builds the resulting cart lines.
+    private ApplyCouponResponse applyDiscount(CartRequest cart, CouponRule rule) {
+        CartSummary summary = summarize(cart);
+        long totalDiscount = discountCents(summary, rule);
+        CartItem[] items = switch (rule) {
+            case CartWiseRule cartWise -> copyItems(cart.getItems());
+            case ProductWiseRule productWise -> markLineDiscounts(cart.getItems(),
+                    productId -> productId == productWise.productId(),
+                    productWise.discountBasisPoints(), productWise.rounding(), totalDiscount);
+            case BxGyRule bxGy -> markFreeItems(cart.getItems(), BxGyEvaluator.evaluate(bxGy, summary));
+            case CategoryWiseRule categoryWise -> markLineDiscounts(cart.getItems(),
+                    productId -> inScope(summary, summary.indexOf(productId), categoryWise),
+                    categoryWise.discountBasisPoints(), categoryWise.rounding(), totalDiscount);
+        };
+        return new ApplyCouponResponse(items, totalDiscount, summary.totalCents() - totalDiscount);
+    }
+
+    private static CartItem[] copyItems(CartItem[] items) {
+        CartItem[] copy = new CartItem[items.length];
+        for (int i = 0; i < items.length; i++) {
+            copy[i] = items[i].copy();
+        }
+        return copy;
     }
 
-    private Map<String, Object> applyBxGyDiscount(Map<String, Object> cart, Coupon coupon) {
-        List<Map<String, Object>> getProducts = (List<Map<String, Object>>) coupon.getDetails().get("get_products");
-        List<Map<String, Object>> items = (List<Map<String, Object>>) cart.get("items");
-        int repetitionLimit = (int) coupon.getDetails().get("repetition_limit");
+    // Each matching line gets its share of the discount; the last one takes the rounding remainder
+    // so the lines always add up to the total
+    private static CartItem[] markLineDiscounts(CartItem[] items, IntPredicate matches, int discountBasisPoints,
+                                                RoundingMode rounding, long totalDiscount) {
+        CartItem[] result = copyItems(items);
+        long remaining = totalDiscount;
+        CartItem last = null;
+        for (CartItem item : result) {
+            if (matches.test(item.getProductId())) {
+                long discount = Money.percentOf(item.getPriceCents(), discountBasisPoints, rounding);
+                item.setTotalDiscountCents(discount);
+                remaining -= discount;
+                last = item;
+            }
+        }
+        if (last != null) {
+            last.setTotalDiscountCents(last.getTotalDiscountCents() + remaining);
+        }
+        return result;
+    }
 
-        for (int i = 0; i < repetitionLimit; i++) {
-            getProducts.forEach(freeProduct -> {
-                Map<String, Object> newItem = new HashMap<>();
-                newItem.put("product_id", freeProduct.get("product_id"));
-                newItem.put("price", 0);
-                items.add(newItem);
-            });
+    // Lines with free units carry what those units were worth
+    private static CartItem[] markFreeItems(CartItem[] items, BxGyMatch match) {
+        CartItem[] result = copyItems(items);
+        for (int i = 0; i < match.size(); i++) {
+            result[match.line(i)].setTotalDiscountCents(match.freeCents(i));
         }
-        return cart;
+        return result;
     }
 }
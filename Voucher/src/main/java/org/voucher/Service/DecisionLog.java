@@ -0,0 +1,123 @@
+package org.voucher.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.voucher.model.CouponDecision;
+import org.voucher.rule.CompiledCoupon;
+import org.voucher.util.Money;
+import org.voucher.util.MpscRingBuffer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Always-on sample of applicable-coupon decisions, for finding out afterwards why a cart did not get a coupon.
+// One request in sample-rate hands its cart summary and the candidates it checked to a lock-free ring buffer;
+// a scheduled flush explains those decisions off the request thread and writes each request as one JSON line
+// to the org.voucher.decisions logger. An unsampled request pays for one random draw, a sampled one for a
+// small allocation and a compare-and-set; when the buffer is full the entry is dropped rather than waited for.
+@Slf4j
+@Component
+public class DecisionLog implements MeterBinder {
+
+    private static final Logger decisions = LoggerFactory.getLogger("org.voucher.decisions");
+
+    private record Entry(long atMillis, CartSummary summary, List<CompiledCoupon> candidates) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int sampleRate;
+    private final MpscRingBuffer<Entry> buffer;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @Autowired
+    public DecisionLog(ObjectMapper objectMapper,
+                       @Value("${voucher.decisions.sample-rate:1000}") int sampleRate,
+                       @Value("${voucher.decisions.buffer-size:8192}") int bufferSize) {
+        this.objectMapper = objectMapper;
+        this.sampleRate = Math.max(0, sampleRate);
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+    }
+
+    // Whether this request's decisions should be recorded: one in sample-rate, never when it is 0
+    public boolean sample() {
+        int rate = sampleRate;
+        return rate > 0 && (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0);
+    }
+
+    // Candidates are the catalog's compiled coupons, which never change once built,
+    // so holding on to them until the flush is safe
+    public void record(CartSummary summary, List<CompiledCoupon> candidates) {
+        if (buffer.offer(new Entry(System.currentTimeMillis(), summary, candidates))) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${voucher.decisions.flush-interval-ms:1000}")
+    public void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            buffer.drain(this::write, Integer.MAX_VALUE);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(Entry entry) {
+        if (!decisions.isInfoEnabled()) {
+            return;
+        }
+        CartSummary summary = entry.summary();
+        List<CouponDecision> explained = new ArrayList<>(entry.candidates().size());
+        for (CompiledCoupon compiled : entry.candidates()) {
+            explained.add(CouponDecisions.explain(compiled.coupon(), compiled.rule(), summary));
+        }
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("at", Instant.ofEpochMilli(entry.atMillis()));
+        line.put("items", summary.items());
+        line.put("totalPrice", Money.toDecimal(summary.totalCents()));
+        line.put("context", summary.context());
+        line.put("decisions", explained);
+        try {
+            decisions.info(objectMapper.writeValueAsString(line));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not write a coupon decision: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("coupon.decisions", recorded, LongAdder::sum)
+                .description("Sampled applicable-coupon decisions put in the decision log")
+                .tag("result", "recorded")
+                .register(registry);
+        FunctionCounter.builder("coupon.decisions", dropped, LongAdder::sum)
+                .description("Sampled applicable-coupon decisions dropped because the decision log was full")
+                .tag("result", "dropped")
+                .register(registry);
+    }
+}
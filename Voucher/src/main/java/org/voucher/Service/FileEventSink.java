@@ -0,0 +1,128 @@
+package org.voucher.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.voucher.model.CouponEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Writes events as JSON lines to coupon-events-<date>.<n>.jsonl in a local directory, for shipping
+// with a log forwarder instead of writing to Mongo. A new file is started each day and whenever the
+// current one passes max-file-bytes, checked between batches; old files are left for the forwarder or
+// logrotate to remove. A batch is written whole or not at all: a write that fails part way is cut back off
+// the file before the publisher retries, so a retried batch does not leave its lines twice.
+// Writes hold a ReentrantLock rather than a monitor, so a virtual thread blocked on the file does not pin
+// its carrier.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "voucher.events.sink", havingValue = "file")
+public class FileEventSink implements CouponEventSink {
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final ObjectWriter writer;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel out;
+    private LocalDate day;
+    private int index;
+    private long bytes;
+
+    @Autowired
+    public FileEventSink(ObjectMapper objectMapper,
+                         @Value("${voucher.events.file-directory:events}") String directory,
+                         @Value("${voucher.events.max-file-bytes:67108864}") long maxFileBytes) {
+        this(objectMapper, Path.of(directory), maxFileBytes, Clock.systemUTC());
+    }
+
+    FileEventSink(ObjectMapper objectMapper, Path directory, long maxFileBytes, Clock clock) {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.writer = objectMapper.writer();
+        this.clock = clock;
+    }
+
+    @Override
+    public void write(List<CouponEvent> events) {
+        lock.lock();
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (CouponEvent event : events) {
+                lines.append(writer.writeValueAsString(event)).append('\n');
+            }
+            ByteBuffer batch = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            rollIfNeeded();
+            long start = out.position();
+            try {
+                while (batch.hasRemaining()) {
+                    out.write(batch);
+                }
+            } catch (IOException e) {
+                out.truncate(start);
+                throw e;
+            }
+            bytes += batch.capacity();
+        } catch (IOException e) {
+            // Start a fresh file on the retry rather than append to one that failed half way
+            close();
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rollIfNeeded() throws IOException {
+        LocalDate today = LocalDate.now(clock);
+        if (out != null && today.equals(day) && bytes < maxFileBytes) {
+            return;
+        }
+        close();
+        if (!today.equals(day)) {
+            day = today;
+            index = 0;
+        }
+        Files.createDirectories(directory);
+        Path file;
+        do {
+            file = directory.resolve("coupon-events-" + day + "." + index++ + ".jsonl");
+        } while (Files.exists(file));
+        out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        bytes = 0;
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("Could not close the coupon event file: {}", e.getMessage());
+            }
+            out = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.voucher.Service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.voucher.model.CouponEvent;
+import org.voucher.model.CouponStats;
+import org.voucher.repository.CouponEventRepository;
+import org.voucher.repository.CouponStatsRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Audit events go to coupon_events with one bulk insert per batch; impressions, applications and
+// redemptions are summed per coupon and added to coupon_stats with one bulk write of $inc upserts.
+// Both parts are safe to repeat: events carry a client-side id, so a second insert skips them, and
+// the stats only take a batch id once. A batch is known by its first event's id, which stays the same
+// across the publisher's retries, and a retry after the stats part failed does not insert the audit
+// events again.
+// CouponEventPublisher calls write from one flusher at a time, under its flush lock.
+@Component
+@ConditionalOnProperty(name = "voucher.events.sink", havingValue = "mongo", matchIfMissing = true)
+public class MongoEventSink implements CouponEventSink {
+
+    private final CouponEventRepository eventRepository;
+    private final CouponStatsRepository statsRepository;
+    // Batch whose audit events are already in, while its stats part is still being retried
+    private String auditWritten;
+
+    @Autowired
+    public MongoEventSink(CouponEventRepository eventRepository, CouponStatsRepository statsRepository) {
+        this.eventRepository = eventRepository;
+        this.statsRepository = statsRepository;
+    }
+
+    @Override
+    public void write(List<CouponEvent> events) {
+        List<CouponEvent> audit = new ArrayList<>(events.size());
+        Map<String, CouponStats> deltas = new LinkedHashMap<>();
+        for (CouponEvent event : events) {
+            switch (event.getType()) {
+                case SHOWN -> {
+                    for (String couponId : event.getCouponIds()) {
+                        CouponStats delta = delta(deltas, couponId, event);
+                        delta.setImpressions(delta.getImpressions() + 1);
+                    }
+                }
+                case APPLIED -> {
+                    audit.add(event);
+                    CouponStats delta = delta(deltas, event.getCouponId(), event);
+                    delta.setApplications(delta.getApplications() + 1);
+                }
+                case REDEEMED -> {
+                    audit.add(event);
+                    CouponStats delta = delta(deltas, event.getCouponId(), event);
+                    delta.setRedemptions(delta.getRedemptions() + 1);
+                }
+                default -> audit.add(event);
+            }
+        }
+        String batchId = events.get(0).getId();
+        if (!audit.isEmpty() && !batchId.equals(auditWritten)) {
+            eventRepository.insertUnordered(audit);
+            auditWritten = batchId;
+        }
+        statsRepository.increment(deltas.values(), batchId);
+    }
+
+    private static CouponStats delta(Map<String, CouponStats> deltas, String couponId, CouponEvent event) {
+        CouponStats delta = deltas.computeIfAbsent(couponId, id -> new CouponStats(id, 0, 0, 0, event.getAt()));
+        if (event.getAt().isAfter(delta.getLastEventAt())) {
+            delta.setLastEventAt(event.getAt());
+        }
+        return delta;
+    }
+}
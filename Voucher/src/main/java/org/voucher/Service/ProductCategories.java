@@ -0,0 +1,66 @@
+package org.voucher.Service;
+
+import org.voucher.util.IntIntMap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// Immutable product_id -> category and brand lookup, read from a CSV with lines
+// "product_id,category_id[,brand_id]". Blank lines, lines starting with '#' and a header are skipped.
+public final class ProductCategories {
+
+    public static final int UNKNOWN = -1;
+    public static final ProductCategories EMPTY = new ProductCategories(new IntIntMap(0), new IntIntMap(0));
+
+    private final IntIntMap categories;
+    private final IntIntMap brands;
+
+    private ProductCategories(IntIntMap categories, IntIntMap brands) {
+        this.categories = categories;
+        this.brands = brands;
+    }
+
+    public static ProductCategories parse(Reader source) throws IOException {
+        IntIntMap categories = new IntIntMap(1024);
+        IntIntMap brands = new IntIntMap(1024);
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#") || (lineNumber == 1 && line.startsWith("product_id"))) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length < 2 || fields.length > 3) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected product_id,category_id[,brand_id]");
+            }
+            try {
+                int productId = Integer.parseInt(fields[0].strip());
+                if (!fields[1].isBlank()) {
+                    categories.put(productId, Integer.parseInt(fields[1].strip()));
+                }
+                if (fields.length == 3 && !fields[2].isBlank()) {
+                    brands.put(productId, Integer.parseInt(fields[2].strip()));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": ids must be integers", e);
+            }
+        }
+        return new ProductCategories(categories, brands);
+    }
+
+    public int categoryOf(int productId) {
+        return categories.get(productId, UNKNOWN);
+    }
+
+    public int brandOf(int productId) {
+        return brands.get(productId, UNKNOWN);
+    }
+
+    public int size() {
+        return Math.max(categories.size(), brands.size());
+    }
+}
@@ -0,0 +1,71 @@
+package org.voucher.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Holds the current product -> category/brand lookup, loaded from voucher.products.file at startup
+// and swapped in whole whenever the file changes. A file that fails to parse leaves the
+// previous lookup in place until it is changed again.
+@Slf4j
+@Component
+public class ProductCategoryStore {
+
+    private final Path file;
+    private volatile ProductCategories current = ProductCategories.EMPTY;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private FileTime seenModifiedTime;
+
+    @Autowired
+    public ProductCategoryStore(@Value("${voucher.products.file:}") String file) {
+        this.file = file.isBlank() ? null : Path.of(file);
+    }
+
+    public ProductCategories current() {
+        return current;
+    }
+
+    @PostConstruct
+    public void load() {
+        reloadIfChanged();
+    }
+
+    // Checks the file's modification time and reparses it only when it has changed
+    @Scheduled(fixedDelayString = "${voucher.products.reload-interval-ms:10000}")
+    public void reloadIfChanged() {
+        if (file == null) {
+            return;
+        }
+        reloadLock.lock();
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.equals(seenModifiedTime)) {
+                return;
+            }
+            seenModifiedTime = modified;
+            long start = System.nanoTime();
+            ProductCategories loaded;
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                loaded = ProductCategories.parse(reader);
+            }
+            current = loaded;
+            log.info("Loaded categories for {} products from {} in {} ms",
+                    loaded.size(), file, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not load product categories from {}, keeping the previous ones: {}", file, e.getMessage());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
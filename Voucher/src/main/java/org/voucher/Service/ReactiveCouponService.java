@@ -0,0 +1,147 @@
+package org.voucher.Service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.model.ApplyCouponResponse;
+import org.voucher.model.CartRequest;
+import org.voucher.model.CatalogStatus;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponDecision;
+import org.voucher.repository.ReactiveCouponRepository;
+import org.voucher.rule.CompiledCoupon;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+// CouponService for the reactive profile. Mongo access goes through the reactive driver;
+// coupon evaluation is in-memory, so it reuses CouponService and the shared catalog.
+@Service
+@Profile("reactive")
+public class ReactiveCouponService {
+
+    private final ReactiveCouponRepository couponRepository;
+    private final CouponService couponService;
+    private final CouponCatalog couponCatalog;
+    private final CatalogSync catalogSync;
+    private final CouponEventPublisher events;
+
+    @Autowired
+    public ReactiveCouponService(ReactiveCouponRepository couponRepository, CouponService couponService,
+                                 CouponCatalog couponCatalog, CatalogSync catalogSync, CouponEventPublisher events) {
+        this.couponRepository = couponRepository;
+        this.couponService = couponService;
+        this.couponCatalog = couponCatalog;
+        this.catalogSync = catalogSync;
+        this.events = events;
+    }
+
+    // Validation and defaults come from CouponService, so both stacks accept exactly the same coupons
+    public Mono<Coupon> createCoupon(Coupon coupon) {
+        return Mono.fromCallable(() -> couponService.prepareNew(coupon))
+                .flatMap(rule -> save(coupon)
+                        .doOnNext(saved -> couponCatalog.upsert(new CompiledCoupon(saved, rule)))
+                        .doOnNext(events::created));
+    }
+
+    public Flux<Coupon> getCouponsPage(String after, int limit) {
+        return couponRepository.findPage(after, limit);
+    }
+
+    public Flux<Coupon> streamAllCoupons() {
+        return couponRepository.streamAll();
+    }
+
+    public Mono<Coupon> getCouponById(String id) {
+        return couponRepository.findById(id);
+    }
+
+    // Codes the filter rules out complete empty without a Mongo read
+    public Mono<Coupon> getCouponByCode(String code) {
+        return Mono.defer(() -> {
+            String normalized = couponService.codeToLookUp(code);
+            if (normalized == null) {
+                return Mono.empty();
+            }
+            return couponRepository.findByCode(normalized)
+                    .doOnSuccess(coupon -> couponService.recordCodeLookup(coupon != null));
+        });
+    }
+
+    public Mono<Coupon> updateCoupon(String id, Coupon coupon) {
+        return Mono.fromCallable(() -> couponService.validate(coupon))
+                .flatMap(rule -> couponRepository.findById(id)
+                        .switchIfEmpty(Mono.error(() -> new RuntimeException("Coupon not found")))
+                        .flatMap(existing -> {
+                            couponService.prepareUpdate(coupon, existing);
+                            return save(coupon);
+                        })
+                        .doOnNext(saved -> couponCatalog.upsert(new CompiledCoupon(saved, rule)))
+                        .doOnNext(events::updated));
+    }
+
+    public Mono<CatalogStatus> getCatalogStatus() {
+        return Mono.fromSupplier(catalogSync::status);
+    }
+
+    public Mono<Void> deleteCoupon(String id) {
+        return couponRepository.deleteById(id)
+                .then(Mono.fromRunnable(() -> couponCatalog.remove(id)))
+                .then(logChange(() -> catalogSync.recordDelete(id)))
+                .then(Mono.fromRunnable(() -> events.deleted(id)));
+    }
+
+    // The whole answer at once, through the applicable-coupon cache like the servlet stack.
+    // Evaluation is CPU work, so it runs on the parallel scheduler rather than the event loop.
+    public Mono<List<Coupon>> getApplicableCoupons(CartRequest cart) {
+        return Mono.fromCallable(() -> couponService.getApplicableCoupons(cart))
+                .subscribeOn(Schedulers.parallel());
+    }
+
+    // Emits each applicable coupon as soon as it is found; evaluation only runs as far as demand reaches.
+    // A stream cannot be cached, so this is only for NDJSON clients.
+    // Impressions are counted once the whole answer has gone out.
+    public Flux<Coupon> streamApplicableCoupons(CartRequest cart) {
+        return Flux.defer(() -> {
+            List<Coupon> shown = new ArrayList<>();
+            return Flux.fromStream(couponService.streamApplicableCoupons(cart))
+                    .doOnNext(shown::add)
+                    .doOnComplete(() -> events.shown(shown));
+        });
+    }
+
+    // Named coupons the catalog does not hold are read with the blocking repository, so this runs off the event loop
+    public Mono<List<CouponDecision>> explainApplicableCoupons(CartRequest cart, List<String> couponIds) {
+        return Mono.fromCallable(() -> couponService.explainApplicableCoupons(cart, couponIds))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<ApplyCouponResponse> applyCouponToCart(String couponId, CartRequest cart) {
+        return couponRepository.findById(couponId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Coupon not found")))
+                .map(coupon -> couponService.applyCouponToCart(coupon, cart));
+    }
+
+    public Mono<ApplyCouponResponse> applyCouponByCode(String code, CartRequest cart) {
+        return getCouponByCode(code)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Coupon not found")))
+                .map(coupon -> couponService.applyCouponToCart(coupon, cart));
+    }
+
+    private Mono<Coupon> save(Coupon coupon) {
+        return couponRepository.save(coupon)
+                .doOnNext(saved -> couponService.registerCodes(List.of(saved)))
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new InvalidCouponException("Coupon code " + coupon.getCode() + " is already in use"))
+                .flatMap(saved -> logChange(() -> catalogSync.recordUpsert(saved.getId())).thenReturn(saved));
+    }
+
+    // The change log is written through the blocking driver
+    private static Mono<Void> logChange(Runnable record) {
+        return Mono.fromRunnable(record).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+}
@@ -0,0 +1,152 @@
+package org.voucher.Service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.exception.RedemptionLimitException;
+import org.voucher.model.ApplyCouponResponse;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.repository.RedemptionCounterRepository;
+import org.voucher.repository.UserRedemptionRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Redeems coupons against their total and per-user limits.
+// The total limit is enforced through leases: each node reserves a block of redemptions with one
+// conditional update on the coupon's counter and hands them out from memory, so a hot coupon costs
+// one Mongo round trip per block instead of every request contending on the same document.
+// Per-user limits are a conditional $inc on the (coupon, user) document, which only that user contends on.
+@Service
+public class RedemptionService {
+
+    // Leases are capped at this fraction of the limit, so units held by one node
+    // leave little unsold when the others run out
+    private static final int LEASE_FRACTION = 10;
+
+    private final CouponService couponService;
+    private final RedemptionCounterRepository counterRepository;
+    private final UserRedemptionRepository userRedemptionRepository;
+    private final CouponEventPublisher events;
+    private final int leaseSize;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RedemptionService(CouponService couponService,
+                             RedemptionCounterRepository counterRepository,
+                             UserRedemptionRepository userRedemptionRepository,
+                             CouponEventPublisher events,
+                             @Value("${voucher.redemptions.lease-size:50}") int leaseSize) {
+        this.couponService = couponService;
+        this.counterRepository = counterRepository;
+        this.userRedemptionRepository = userRedemptionRepository;
+        this.events = events;
+        this.leaseSize = Math.max(1, leaseSize);
+    }
+
+    // Applies the coupon and counts the redemption; nothing is counted if the coupon is unavailable
+    // or the cart does not meet its condition
+    public ApplyCouponResponse redeem(String couponId, String userId, CartRequest cart) {
+        Coupon coupon = couponService.getCouponById(couponId)
+                .orElseThrow(() -> new RuntimeException("Coupon not found"));
+        ApplyCouponResponse response = couponService.applyCouponForRedemption(coupon, cart);
+        reserve(coupon, userId);
+        events.redeemed(coupon, userId, response.getTotalDiscountCents());
+        return response;
+    }
+
+    public ApplyCouponResponse redeemByCode(String code, String userId, CartRequest cart) {
+        Coupon coupon = couponService.getCouponByCode(code)
+                .orElseThrow(() -> new RuntimeException("Coupon not found"));
+        ApplyCouponResponse response = couponService.applyCouponForRedemption(coupon, cart);
+        reserve(coupon, userId);
+        events.redeemed(coupon, userId, response.getTotalDiscountCents());
+        return response;
+    }
+
+    // The per-user count is taken last, so a rejection only ever has a leased unit to give back
+    void reserve(Coupon coupon, String userId) {
+        Integer perUserLimit = coupon.getMaxRedemptionsPerUser();
+        if (perUserLimit != null && (userId == null || userId.isBlank())) {
+            throw new InvalidCouponException("userId is required for coupons with a per-user limit");
+        }
+        Lease lease = null;
+        if (coupon.getMaxRedemptions() != null) {
+            lease = leases.computeIfAbsent(coupon.getId(), Lease::new);
+            if (!lease.take(coupon.getMaxRedemptions())) {
+                throw new RedemptionLimitException("Coupon has reached its redemption limit");
+            }
+        }
+        if (perUserLimit != null && !userRedemptionRepository.tryRedeem(coupon.getId(), userId, perUserLimit)) {
+            if (lease != null) {
+                lease.giveBack();
+            }
+            throw new RedemptionLimitException("User has reached the redemption limit for this coupon");
+        }
+    }
+
+    // Unused leased units go back to the shared counter so other nodes can sell them
+    @PreDestroy
+    public void releaseLeases() {
+        leases.values().forEach(Lease::release);
+    }
+
+    private final class Lease {
+
+        private final String couponId;
+        private final AtomicLong available = new AtomicLong();
+        private final ReentrantLock refillLock = new ReentrantLock();
+
+        private Lease(String couponId) {
+            this.couponId = couponId;
+        }
+
+        private boolean take(int limit) {
+            if (tryTake()) {
+                return true;
+            }
+            // One thread per coupon refills; the rest wait and then use what it fetched
+            refillLock.lock();
+            try {
+                if (tryTake()) {
+                    return true;
+                }
+                long size = Math.max(1, Math.min(leaseSize, limit / LEASE_FRACTION));
+                long granted = counterRepository.reserve(couponId, size, limit);
+                if (granted == 0) {
+                    return false;
+                }
+                available.addAndGet(granted - 1);
+                return true;
+            } finally {
+                refillLock.unlock();
+            }
+        }
+
+        private boolean tryTake() {
+            long current;
+            while ((current = available.get()) > 0) {
+                if (available.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void giveBack() {
+            available.incrementAndGet();
+        }
+
+        private void release() {
+            long unused = available.getAndSet(0);
+            if (unused > 0) {
+                counterRepository.release(couponId, unused);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.voucher.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import org.voucher.Service.CouponImportService;
+import org.voucher.model.CouponRequest;
+import org.voucher.model.ImportFormat;
+import org.voucher.model.ImportResult;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Command-line bulk import, run instead of serving requests:
+//   java -jar Voucher.jar --spring.main.web-application-type=none --import=coupons.csv
+//   java -jar Voucher.jar --spring.main.web-application-type=none --generate=1000000 --template=template.json --prefix=BF24-
+// Prints the ImportResult as JSON and exits, with status 2 when any row was rejected or refused.
+@Component
+public class CouponImportRunner implements ApplicationRunner {
+
+    private final CouponImportService couponImportService;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+
+    @Autowired
+    public CouponImportRunner(CouponImportService couponImportService, ObjectMapper objectMapper,
+                              ConfigurableApplicationContext context) {
+        this.couponImportService = couponImportService;
+        this.objectMapper = objectMapper;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        ImportResult result;
+        if (args.containsOption("import")) {
+            Path file = Path.of(single(args, "import"));
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                result = couponImportService.importCoupons(reader, ImportFormat.fromFileName(file.toString()));
+            }
+        } else if (args.containsOption("generate")) {
+            CouponRequest template = objectMapper.readValue(
+                    Files.readString(Path.of(single(args, "template"))), CouponRequest.class);
+            String prefix = args.containsOption("prefix") ? single(args, "prefix") : "";
+            result = couponImportService.generateCoupons(template, Integer.parseInt(single(args, "generate")), prefix);
+        } else {
+            return;
+        }
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result));
+        int status = result.getRejected() + result.getFailed() > 0 ? 2 : 0;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+
+    private static String single(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        if (values == null || values.size() != 1 || values.get(0).isBlank()) {
+            throw new IllegalArgumentException("--" + name + " needs exactly one value");
+        }
+        return values.get(0);
+    }
+}
@@ -0,0 +1,71 @@
+package org.voucher.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+// Builds the bounded executors used to fan out coupon evaluation.
+// With spring.threads.virtual.enabled=true each task gets its own virtual thread and
+// the concurrency limit bounds how many run at once; otherwise a fixed platform pool
+// with a bounded queue is used, and the submitting thread runs the task when it is full.
+// The executors are deliberately not beans: an Executor bean would switch off Boot's
+// applicationTaskExecutor.
+@Component
+public class EvaluationExecutorFactory {
+
+    private final ThreadPoolTaskExecutorBuilder threadPoolBuilder;
+    private final SimpleAsyncTaskExecutorBuilder virtualThreadBuilder;
+    private final boolean virtualThreads;
+
+    @Autowired
+    public EvaluationExecutorFactory(ThreadPoolTaskExecutorBuilder threadPoolBuilder,
+                                     SimpleAsyncTaskExecutorBuilder virtualThreadBuilder,
+                                     Environment environment) {
+        this.threadPoolBuilder = threadPoolBuilder;
+        this.virtualThreadBuilder = virtualThreadBuilder;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public AsyncTaskExecutor create(String threadNamePrefix, int concurrency, int queueCapacity) {
+        if (virtualThreads) {
+            return virtualThreadBuilder
+                    .virtualThreads(true)
+                    .threadNamePrefix(threadNamePrefix)
+                    .concurrencyLimit(concurrency)
+                    .build();
+        }
+        ThreadPoolTaskExecutor executor = threadPoolBuilder
+                .threadNamePrefix(threadNamePrefix)
+                .corePoolSize(concurrency)
+                .maxPoolSize(concurrency)
+                .queueCapacity(queueCapacity)
+                .build();
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Stops an executor made by create
+    public static void shutdown(AsyncTaskExecutor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor threadPool) {
+            threadPool.shutdown();
+        } else if (executor instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to close executor", e);
+            }
+        }
+    }
+}
@@ -1,40 +1,126 @@
 package org.voucher.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.voucher.Service.BatchCouponService;
+import org.voucher.Service.CouponImportService;
+import org.voucher.Service.CouponOptimizer;
 import org.voucher.Service.CouponService;
+import org.voucher.Service.RedemptionService;
 import org.voucher.model.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
+// Servlet API; the reactive profile serves the same endpoints through CouponRouter
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/coupons")
 public class CouponController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final CouponService couponService;
+    private final BatchCouponService batchCouponService;
+    private final CouponOptimizer couponOptimizer;
+    private final RedemptionService redemptionService;
+    private final CouponImportService couponImportService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public CouponController(CouponService couponService) {
+    public CouponController(CouponService couponService, BatchCouponService batchCouponService,
+                            CouponOptimizer couponOptimizer, RedemptionService redemptionService,
+                            CouponImportService couponImportService, ObjectMapper objectMapper) {
         this.couponService = couponService;
+        this.batchCouponService = batchCouponService;
+        this.couponOptimizer = couponOptimizer;
+        this.redemptionService = redemptionService;
+        this.couponImportService = couponImportService;
+        this.objectMapper = objectMapper;
     }
 
     // Create a new coupon
     @PostMapping
     public ResponseEntity<Coupon> createCoupon(@Valid @RequestBody CouponRequest request) {
         Coupon coupon = new Coupon();
+        coupon.setCode(request.getCode());
         coupon.setType(request.getType());
         coupon.setDetails(request.getDetails());
+        coupon.setValidFrom(request.getValidFrom());
+        coupon.setValidUntil(request.getValidUntil());
+        coupon.setDailyWindow(request.getDailyWindow());
+        coupon.setTargeting(request.getTargeting());
+        coupon.setMaxRedemptions(request.getMaxRedemptions());
+        coupon.setMaxRedemptionsPerUser(request.getMaxRedemptionsPerUser());
         Coupon createdCoupon = couponService.createCoupon(coupon);
         return ResponseEntity.ok(createdCoupon);
     }
 
-    // Get all coupons
+    // Get coupons one page at a time in id order.
+    // A full page carries X-Next-Cursor; pass it back as ?after= to get the next one.
     @GetMapping
-    public ResponseEntity<List<Coupon>> getAllCoupons() {
-        return ResponseEntity.ok(couponService.getAllCoupons());
+    public ResponseEntity<List<Coupon>> getAllCoupons(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Coupon> page = couponService.getCouponsPage(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, page.get(page.size() - 1).getId());
+        }
+        return response.body(page);
+    }
+
+    // Export every coupon as newline-delimited JSON, streamed from a Mongo cursor
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCoupons() {
+        StreamingResponseBody body = out -> {
+            try (Stream<Coupon> coupons = couponService.streamAllCoupons()) {
+                Iterator<Coupon> iterator = coupons.iterator();
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // Bulk-create coupons from a CSV or NDJSON body, read as a stream and written in unordered batches
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportResult> importCoupons(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        ImportFormat format = ImportFormat.fromContentType(contentType);
+        return ResponseEntity.ok(couponImportService.importCoupons(
+                new InputStreamReader(body, StandardCharsets.UTF_8), format));
+    }
+
+    // Mint count single-use coupons from a template, each with its own generated code
+    @PostMapping("/generate")
+    public ResponseEntity<ImportResult> generateCoupons(@Valid @RequestBody GenerateCodesRequest request) {
+        return ResponseEntity.ok(couponImportService.generateCoupons(
+                request.getTemplate(), request.getCount(), request.getPrefix()));
+    }
+
+    // The catalog version this node has applied; equal versions on all nodes mean equal catalogs
+    @GetMapping("/catalog/version")
+    public ResponseEntity<CatalogStatus> getCatalogStatus() {
+        return ResponseEntity.ok(couponService.getCatalogStatus());
     }
 
     // Get a specific coupon by ID
@@ -45,12 +131,27 @@ public class CouponController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Get a coupon by the code a shopper typed; case and whitespace do not matter
+    @GetMapping("/code/{code}")
+    public ResponseEntity<Coupon> getCouponByCode(@PathVariable String code) {
+        return couponService.getCouponByCode(code)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     // Update a specific coupon by ID
     @PutMapping("/{id}")
     public ResponseEntity<Coupon> updateCoupon(@PathVariable String id, @Valid @RequestBody CouponRequest request) {
         Coupon coupon = new Coupon();
+        coupon.setCode(request.getCode());
         coupon.setType(request.getType());
         coupon.setDetails(request.getDetails());
+        coupon.setValidFrom(request.getValidFrom());
+        coupon.setValidUntil(request.getValidUntil());
+        coupon.setDailyWindow(request.getDailyWindow());
+        coupon.setTargeting(request.getTargeting());
+        coupon.setMaxRedemptions(request.getMaxRedemptions());
+        coupon.setMaxRedemptionsPerUser(request.getMaxRedemptionsPerUser());
 
         Coupon updatedCoupon = couponService.updateCoupon(id, coupon);
         return ResponseEntity.ok(updatedCoupon);
@@ -63,15 +164,35 @@ public class CouponController {
         return ResponseEntity.noContent().build();
     }
 
-    // Fetch all applicable coupons for a given cart
+    // Fetch all applicable coupons for a given cart.
+    // With explain=true, also say for each candidate, and each coupon named with coupon=<id>, why it does or does not apply.
     @PostMapping("/applicable-coupons")
-    public ResponseEntity<ApplicableCouponResponse> getApplicableCoupons(@Valid @RequestBody CartRequest cartRequest) {
-        List<Coupon> applicableCoupons = couponService.getApplicableCoupons(Map.of(
-                "items", cartRequest.getItems(),
-                "totalPrice", cartRequest.getTotalPrice()
-        ));
+    public ResponseEntity<ApplicableCouponResponse> getApplicableCoupons(
+            @Valid @RequestBody CartRequest cartRequest,
+            @RequestParam(defaultValue = "false") boolean explain,
+            @RequestParam(name = "coupon", required = false) List<String> couponIds) {
+        List<Coupon> applicableCoupons = couponService.getApplicableCoupons(cartRequest);
         ApplicableCouponResponse response = new ApplicableCouponResponse();
         response.setApplicableCoupons(applicableCoupons);
+        if (explain) {
+            response.setDecisions(couponService.explainApplicableCoupons(cartRequest,
+                    couponIds == null ? List.of() : couponIds));
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // Rank applicable coupons by the discount they give this cart.
+    // With stack=true, also search for the best combination of coupons that can be used together.
+    @PostMapping("/best-coupons")
+    public ResponseEntity<BestCouponsResponse> getBestCoupons(
+            @Valid @RequestBody CartRequest cartRequest,
+            @RequestParam(defaultValue = "3") int limit,
+            @RequestParam(defaultValue = "false") boolean stack) {
+        BestCouponsResponse response = new BestCouponsResponse();
+        response.setBestCoupons(couponOptimizer.getBestCoupons(cartRequest, Math.max(1, limit)));
+        if (stack) {
+            response.setBestStack(couponOptimizer.getBestStack(cartRequest));
+        }
         return ResponseEntity.ok(response);
     }
 
@@ -81,16 +202,41 @@ public class CouponController {
             @PathVariable String id,
             @Valid @RequestBody CartRequest cartRequest) {
 
-        Map<String, Object> updatedCart = couponService.applyCouponToCart(id, Map.of(
-                "items", cartRequest.getItems(),
-                "totalPrice", cartRequest.getTotalPrice()
-        ));
+        return ResponseEntity.ok(couponService.applyCouponToCart(id, cartRequest));
+    }
+
+    // Apply the coupon with this code to the cart
+    @PostMapping("/apply-code/{code}")
+    public ResponseEntity<ApplyCouponResponse> applyCouponByCode(
+            @PathVariable String code,
+            @Valid @RequestBody CartRequest cartRequest) {
+
+        return ResponseEntity.ok(couponService.applyCouponByCode(code, cartRequest));
+    }
 
-        ApplyCouponResponse response = new ApplyCouponResponse();
-        response.setItems((List<Map<String, Object>>) updatedCart.get("items"));
-        response.setTotalDiscount((double) updatedCart.get("totalDiscount"));
-        response.setFinalPrice((double) updatedCart.get("finalPrice"));
+    // Apply a coupon and count it against its redemption limits; 409 once a limit is reached
+    @PostMapping("/{id}/redeem")
+    public ResponseEntity<ApplyCouponResponse> redeemCoupon(
+            @PathVariable String id,
+            @Valid @RequestBody RedeemRequest request) {
+
+        return ResponseEntity.ok(redemptionService.redeem(id, request.getUserId(), request.getCart()));
+    }
+
+    @PostMapping("/code/{code}/redeem")
+    public ResponseEntity<ApplyCouponResponse> redeemCouponByCode(
+            @PathVariable String code,
+            @Valid @RequestBody RedeemRequest request) {
+
+        return ResponseEntity.ok(redemptionService.redeemByCode(code, request.getUserId(), request.getCart()));
+    }
 
+    // Evaluate many carts in one call: entries with a couponId apply that coupon,
+    // the others list their applicable coupons. Each result carries its own error.
+    @PostMapping("/batch")
+    public ResponseEntity<BatchApplyResponse> applyBatch(@Valid @RequestBody BatchApplyRequest request) {
+        BatchApplyResponse response = new BatchApplyResponse();
+        response.setResults(batchCouponService.evaluate(request.getCarts()));
         return ResponseEntity.ok(response);
     }
 }
@@ -0,0 +1,286 @@
+package org.voucher.controller;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import org.voucher.Service.BatchCouponService;
+import org.voucher.Service.CouponImportService;
+import org.voucher.Service.CouponOptimizer;
+import org.voucher.Service.ReactiveCouponService;
+import org.voucher.Service.RedemptionService;
+import org.voucher.model.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Handler functions behind CouponRouter, mirroring CouponController endpoint for endpoint.
+// Bodies are validated against the same constraints CouponController checks with @Valid, and a
+// violation, a missing body or a malformed number answers 400 as it does there.
+// Work that blocks (the batch endpoint's findAllById, imports) or can run for a while (stack search)
+// is moved off the event loop.
+@Component
+@Profile("reactive")
+public class CouponHandler {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveCouponService couponService;
+    private final BatchCouponService batchCouponService;
+    private final CouponOptimizer couponOptimizer;
+    private final RedemptionService redemptionService;
+    private final CouponImportService couponImportService;
+    private final Validator validator;
+
+    @Autowired
+    public CouponHandler(ReactiveCouponService couponService, BatchCouponService batchCouponService,
+                         CouponOptimizer couponOptimizer, RedemptionService redemptionService,
+                         CouponImportService couponImportService, Validator validator) {
+        this.couponService = couponService;
+        this.batchCouponService = batchCouponService;
+        this.couponOptimizer = couponOptimizer;
+        this.redemptionService = redemptionService;
+        this.couponImportService = couponImportService;
+        this.validator = validator;
+    }
+
+    public Mono<ServerResponse> createCoupon(ServerRequest request) {
+        return body(request, CouponRequest.class)
+                .flatMap(body -> couponService.createCoupon(toCoupon(body)))
+                .flatMap(coupon -> ServerResponse.ok().bodyValue(coupon));
+    }
+
+    // A full page carries X-Next-Cursor, as with CouponController
+    public Mono<ServerResponse> getAllCoupons(ServerRequest request) {
+        String after = request.queryParam("after").orElse(null);
+        int limit = intParam(request, "limit", 100);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return couponService.getCouponsPage(after, pageSize)
+                .collectList()
+                .flatMap(page -> {
+                    ServerResponse.BodyBuilder response = ServerResponse.ok();
+                    if (page.size() == pageSize) {
+                        response.header(CouponController.NEXT_CURSOR_HEADER, page.get(page.size() - 1).getId());
+                    }
+                    return response.bodyValue(page);
+                });
+    }
+
+    // NDJSON written as the client reads it; the Mongo cursor only fetches what has been asked for
+    public Mono<ServerResponse> exportCoupons(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(couponService.streamAllCoupons(), Coupon.class);
+    }
+
+    public Mono<ServerResponse> getCatalogStatus(ServerRequest request) {
+        return couponService.getCatalogStatus()
+                .flatMap(status -> ServerResponse.ok().bodyValue(status));
+    }
+
+    public Mono<ServerResponse> getCouponById(ServerRequest request) {
+        return couponService.getCouponById(request.pathVariable("id"))
+                .flatMap(coupon -> ServerResponse.ok().bodyValue(coupon))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> getCouponByCode(ServerRequest request) {
+        return couponService.getCouponByCode(request.pathVariable("code"))
+                .flatMap(coupon -> ServerResponse.ok().bodyValue(coupon))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> updateCoupon(ServerRequest request) {
+        return body(request, CouponRequest.class)
+                .flatMap(body -> couponService.updateCoupon(request.pathVariable("id"), toCoupon(body)))
+                .flatMap(coupon -> ServerResponse.ok().bodyValue(coupon));
+    }
+
+    public Mono<ServerResponse> deleteCoupon(ServerRequest request) {
+        return couponService.deleteCoupon(request.pathVariable("id"))
+                .then(ServerResponse.noContent().build());
+    }
+
+    // With Accept: application/x-ndjson each applicable coupon is written as soon as it is found;
+    // otherwise the response has the same shape as CouponController's, including explain=true,
+    // and comes from the applicable-coupon cache when the cart was seen before.
+    // A streamed response has nowhere to put decisions, so it ignores explain.
+    public Mono<ServerResponse> getApplicableCoupons(ServerRequest request) {
+        boolean streaming = request.headers().accept().contains(MediaType.APPLICATION_NDJSON);
+        boolean explain = request.queryParam("explain").map(Boolean::parseBoolean).orElse(false);
+        List<String> couponIds = request.queryParams().getOrDefault("coupon", List.of());
+        return body(request, CartRequest.class).flatMap(cart -> {
+            if (streaming) {
+                return ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(couponService.streamApplicableCoupons(cart), Coupon.class);
+            }
+            Mono<ApplicableCouponResponse> response = couponService.getApplicableCoupons(cart).map(coupons -> {
+                ApplicableCouponResponse body = new ApplicableCouponResponse();
+                body.setApplicableCoupons(coupons);
+                return body;
+            });
+            if (explain) {
+                response = response.flatMap(body -> couponService.explainApplicableCoupons(cart, couponIds)
+                        .map(decisions -> {
+                            body.setDecisions(decisions);
+                            return body;
+                        }));
+            }
+            return response.flatMap(body -> ServerResponse.ok().bodyValue(body));
+        });
+    }
+
+    public Mono<ServerResponse> getBestCoupons(ServerRequest request) {
+        int limit = intParam(request, "limit", 3);
+        boolean stack = request.queryParam("stack").map(Boolean::parseBoolean).orElse(false);
+        return body(request, CartRequest.class)
+                .publishOn(Schedulers.parallel())
+                .map(cart -> {
+                    BestCouponsResponse response = new BestCouponsResponse();
+                    response.setBestCoupons(couponOptimizer.getBestCoupons(cart, Math.max(1, limit)));
+                    if (stack) {
+                        response.setBestStack(couponOptimizer.getBestStack(cart));
+                    }
+                    return response;
+                })
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    public Mono<ServerResponse> applyCouponToCart(ServerRequest request) {
+        return body(request, CartRequest.class)
+                .flatMap(cart -> couponService.applyCouponToCart(request.pathVariable("id"), cart))
+                .flatMap(updatedCart -> ServerResponse.ok().bodyValue(updatedCart));
+    }
+
+    public Mono<ServerResponse> applyCouponByCode(ServerRequest request) {
+        return body(request, CartRequest.class)
+                .flatMap(cart -> couponService.applyCouponByCode(request.pathVariable("code"), cart))
+                .flatMap(updatedCart -> ServerResponse.ok().bodyValue(updatedCart));
+    }
+
+    // Redemption counters are updated through the blocking driver
+    public Mono<ServerResponse> redeemCoupon(ServerRequest request) {
+        return body(request, RedeemRequest.class)
+                .publishOn(Schedulers.boundedElastic())
+                .map(body -> redemptionService.redeem(request.pathVariable("id"), body.getUserId(), body.getCart()))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    public Mono<ServerResponse> redeemCouponByCode(ServerRequest request) {
+        return body(request, RedeemRequest.class)
+                .publishOn(Schedulers.boundedElastic())
+                .map(body -> redemptionService.redeemByCode(request.pathVariable("code"), body.getUserId(),
+                        body.getCart()))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    public Mono<ServerResponse> applyBatch(ServerRequest request) {
+        return body(request, BatchApplyRequest.class)
+                .publishOn(Schedulers.boundedElastic())
+                .map(body -> {
+                    BatchApplyResponse response = new BatchApplyResponse();
+                    response.setResults(batchCouponService.evaluate(body.getCarts()));
+                    return response;
+                })
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    // The body is read as a stream, as with CouponController: the import pulls buffers as it parses,
+    // so a large file is never held in memory. The import writes through the blocking repository.
+    public Mono<ServerResponse> importCoupons(ServerRequest request) {
+        ImportFormat format = ImportFormat.fromContentType(request.headers().firstHeader(HttpHeaders.CONTENT_TYPE));
+        return Mono.fromCallable(() -> {
+                    try (InputStream body = inputStream(request.body(BodyExtractors.toDataBuffers()))) {
+                        return couponImportService.importCoupons(
+                                new InputStreamReader(body, StandardCharsets.UTF_8), format);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+
+    public Mono<ServerResponse> generateCoupons(ServerRequest request) {
+        return body(request, GenerateCodesRequest.class)
+                .publishOn(Schedulers.boundedElastic())
+                .map(body -> couponImportService.generateCoupons(body.getTemplate(), body.getCount(), body.getPrefix()))
+                .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+
+    // The decoded body, checked like a @Valid @RequestBody
+    private <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing")))
+                .doOnNext(this::validate);
+    }
+
+    private void validate(Object body) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(body);
+        if (!violations.isEmpty()) {
+            throw new ServerWebInputException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        String value = request.queryParam(name).orElse(null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Query parameter '" + name + "' must be a whole number");
+        }
+    }
+
+    // Blocks for each buffer in turn, asking for at most 16 ahead; each buffer is released once read
+    private static InputStream inputStream(Flux<DataBuffer> buffers) {
+        Iterator<DataBuffer> iterator = buffers.toIterable(16).iterator();
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return iterator.next().asInputStream(true);
+            }
+        });
+    }
+
+    private static Coupon toCoupon(CouponRequest request) {
+        Coupon coupon = new Coupon();
+        coupon.setCode(request.getCode());
+        coupon.setType(request.getType());
+        coupon.setDetails(request.getDetails());
+        coupon.setValidFrom(request.getValidFrom());
+        coupon.setValidUntil(request.getValidUntil());
+        coupon.setDailyWindow(request.getDailyWindow());
+        coupon.setTargeting(request.getTargeting());
+        coupon.setMaxRedemptions(request.getMaxRedemptions());
+        coupon.setMaxRedemptionsPerUser(request.getMaxRedemptionsPerUser());
+        return coupon;
+    }
+}
@@ -0,0 +1,41 @@
+package org.voucher.controller;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+// Functional routes for the reactive profile, at the same paths as CouponController
+@Configuration
+@Profile("reactive")
+public class CouponRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> couponRoutes(CouponHandler handler) {
+        return RouterFunctions.route()
+                .path("/api/v1/coupons", coupons -> coupons
+                        .POST("", handler::createCoupon)
+                        .GET("", handler::getAllCoupons)
+                        .GET("/export", handler::exportCoupons)
+                        .POST("/import", RequestPredicates.contentType(MediaType.parseMediaType("text/csv"),
+                                MediaType.APPLICATION_NDJSON), handler::importCoupons)
+                        .POST("/generate", handler::generateCoupons)
+                        .POST("/applicable-coupons", handler::getApplicableCoupons)
+                        .POST("/best-coupons", handler::getBestCoupons)
+                        .POST("/apply-coupon/{id}", handler::applyCouponToCart)
+                        .POST("/batch", handler::applyBatch)
+                        .POST("/{id}/redeem", handler::redeemCoupon)
+                        .GET("/code/{code}", handler::getCouponByCode)
+                        .GET("/catalog/version", handler::getCatalogStatus)
+                        .POST("/apply-code/{code}", handler::applyCouponByCode)
+                        .POST("/code/{code}/redeem", handler::redeemCouponByCode)
+                        .GET("/{id}", handler::getCouponById)
+                        .PUT("/{id}", handler::updateCoupon)
+                        .DELETE("/{id}", handler::deleteCoupon))
+                .build();
+    }
+}
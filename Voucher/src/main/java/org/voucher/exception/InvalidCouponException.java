@@ -0,0 +1,12 @@
+package org.voucher.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCouponException extends RuntimeException {
+
+    public InvalidCouponException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package org.voucher.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class RedemptionLimitException extends RuntimeException {
+
+    public RedemptionLimitException(String message) {
+        super(message);
+    }
+}
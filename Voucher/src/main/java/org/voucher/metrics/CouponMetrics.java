@@ -0,0 +1,131 @@
+package org.voucher.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.voucher.model.CouponType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Meters for the coupon evaluation hot path. Every meter is registered up front,
+// so recording never goes through a registry lookup.
+// Repository and Mongo driver calls are timed by Spring Boot's
+// spring.data.repository.invocations and mongodb.driver.commands meters.
+@Component
+public class CouponMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final Timer applicableTimer;
+    private final DistributionSummary cartItems;
+    private final DistributionSummary scanned;
+    private final DistributionSummary matched;
+    private final Map<CouponType, Timer> applicabilityTimers = new EnumMap<>(CouponType.class);
+    private final Map<CouponType, Counter> applicabilityChecks = new EnumMap<>(CouponType.class);
+    private final Map<CouponType, Timer> applyTimers = new EnumMap<>(CouponType.class);
+    private final Counter ruleCacheHits;
+    private final Counter ruleCacheMisses;
+    private final Counter codesFiltered;
+    private final Counter codesFound;
+    private final Counter codesMissing;
+
+    @Autowired
+    public CouponMetrics(MeterRegistry registry) {
+        this.applicableTimer = Timer.builder("coupon.applicable")
+                .description("Time to find the applicable coupons for a cart")
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.cartItems = DistributionSummary.builder("coupon.cart.items")
+                .description("Items per evaluated cart")
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+        this.scanned = DistributionSummary.builder("coupon.applicable.scanned")
+                .description("Candidate coupons checked per applicable-coupons request")
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+        this.matched = DistributionSummary.builder("coupon.applicable.matched")
+                .description("Coupons found applicable per applicable-coupons request")
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+        for (CouponType type : CouponType.values()) {
+            applicabilityTimers.put(type, Timer.builder("coupon.applicability")
+                    .description("Time spent checking coupons of one type against a cart")
+                    .tag("type", type.name())
+                    .publishPercentiles(PERCENTILES)
+                    .register(registry));
+            applicabilityChecks.put(type, Counter.builder("coupon.applicability.checks")
+                    .description("Coupons of one type checked against a cart")
+                    .tag("type", type.name())
+                    .register(registry));
+            applyTimers.put(type, Timer.builder("coupon.apply")
+                    .description("Time to work out a coupon's discount for a cart")
+                    .tag("type", type.name())
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.ruleCacheHits = Counter.builder("coupon.rule.cache")
+                .description("Compiled rule lookups in the catalog when applying a coupon")
+                .tag("result", "hit")
+                .register(registry);
+        this.ruleCacheMisses = Counter.builder("coupon.rule.cache")
+                .description("Compiled rule lookups in the catalog when applying a coupon")
+                .tag("result", "miss")
+                .register(registry);
+        this.codesFiltered = codeLookups(registry, "filtered");
+        this.codesFound = codeLookups(registry, "found");
+        this.codesMissing = codeLookups(registry, "missing");
+    }
+
+    // filtered: rejected by the code filter without a Mongo read; found and missing: looked up in Mongo
+    private static Counter codeLookups(MeterRegistry registry, String result) {
+        return Counter.builder("coupon.code.lookups")
+                .description("Coupon code lookups by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public <T> T timeApplicable(int items, Supplier<T> evaluation) {
+        cartItems.record(items);
+        return applicableTimer.record(evaluation);
+    }
+
+    // For evaluations that are not a single call, such as a stream consumed by a reactive client
+    public void recordApplicable(int items, long elapsedNanos) {
+        cartItems.record(items);
+        applicableTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordApplicabilityChecks(CouponType type, int checked, long elapsedNanos) {
+        applicabilityChecks.get(type).increment(checked);
+        applicabilityTimers.get(type).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordScan(int scannedCoupons, int matchedCoupons) {
+        scanned.record(scannedCoupons);
+        matched.record(matchedCoupons);
+    }
+
+    public <T> T timeApply(CouponType type, Supplier<T> evaluation) {
+        return applyTimers.get(type).record(evaluation);
+    }
+
+    public void recordRuleCacheLookup(boolean hit) {
+        (hit ? ruleCacheHits : ruleCacheMisses).increment();
+    }
+
+    public void recordCodeFiltered() {
+        codesFiltered.increment();
+    }
+
+    public void recordCodeLookup(boolean found) {
+        (found ? codesFound : codesMissing).increment();
+    }
+}
@@ -1,5 +1,6 @@
 package org.voucher.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.util.List;
@@ -7,4 +8,8 @@ import java.util.List;
 @Data
 public class ApplicableCouponResponse {
     private List<Coupon> applicableCoupons;
+
+    // Only with explain=true
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<CouponDecision> decisions;
 }
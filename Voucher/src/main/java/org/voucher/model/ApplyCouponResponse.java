@@ -1,13 +1,23 @@
 package org.voucher.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
-import java.util.List;
-import java.util.Map;
-
+// The cart after a coupon was applied: discounted or added items and the new totals
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class ApplyCouponResponse {
-    private List<Map<String, Object>> items;
-    private double totalDiscount;
-    private double finalPrice;
+    private CartItem[] items;
+
+    @JsonProperty("totalDiscount")
+    @JsonSerialize(using = CentsSerializer.class)
+    private long totalDiscountCents;
+
+    @JsonProperty("finalPrice")
+    @JsonSerialize(using = CentsSerializer.class)
+    private long finalPriceCents;
 }
@@ -0,0 +1,16 @@
+package org.voucher.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchApplyRequest {
+    @Valid
+    @NotEmpty(message = "Carts list must not be empty")
+    @Size(max = 500, message = "At most 500 carts can be evaluated per request")
+    private List<BatchCartRequest> carts;
+}
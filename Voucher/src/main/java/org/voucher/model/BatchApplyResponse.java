@@ -0,0 +1,11 @@
+package org.voucher.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchApplyResponse {
+    // One result per requested cart, in request order
+    private List<BatchCartResult> results;
+}
@@ -0,0 +1,15 @@
+package org.voucher.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class BatchCartRequest {
+    // Coupon to apply; when absent the entry asks for the cart's applicable coupons instead
+    private String couponId;
+
+    @Valid
+    @NotNull(message = "Cart must not be null")
+    private CartRequest cart;
+}
@@ -0,0 +1,16 @@
+package org.voucher.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchCartResult {
+    private int index;
+    private String couponId;
+    private List<Coupon> applicableCoupons;
+    private ApplyCouponResponse appliedCoupon;
+    private String error;
+}
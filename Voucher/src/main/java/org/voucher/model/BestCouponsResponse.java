@@ -0,0 +1,13 @@
+package org.voucher.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BestCouponsResponse {
+    private List<RankedCoupon> bestCoupons;
+    private CouponStack bestStack;
+}
@@ -0,0 +1,40 @@
+package org.voucher.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One cart line. Prices travel as decimal amounts in JSON and are held in cents.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItem {
+
+    @JsonProperty("product_id")
+    private int productId;
+
+    private int quantity;
+
+    @JsonProperty("price")
+    @JsonSerialize(using = CentsSerializer.class)
+    @JsonDeserialize(using = CentsDeserializer.class)
+    private long priceCents;
+
+    // Set on lines a PRODUCT_WISE or CATEGORY_WISE coupon discounted, or with units a BXGY coupon made free
+    @JsonProperty("total_discount")
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    @JsonSerialize(using = CentsSerializer.class)
+    private long totalDiscountCents;
+
+    public CartItem(int productId, int quantity, long priceCents) {
+        this(productId, quantity, priceCents, 0);
+    }
+
+    public CartItem copy() {
+        return new CartItem(productId, quantity, priceCents, totalDiscountCents);
+    }
+}
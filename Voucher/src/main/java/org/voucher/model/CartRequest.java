@@ -1,17 +1,31 @@
 package org.voucher.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 
-import java.util.List;
-import java.util.Map;
-
 @Data
 public class CartRequest {
     @NotNull(message = "Items list must not be null")
-    private List<Map<String, Object>> items;
+    private CartItem[] items = new CartItem[0];
 
     @PositiveOrZero(message = "Total price must be a positive value")
-    private double totalPrice;
+    @JsonProperty("totalPrice")
+    @JsonSerialize(using = CentsSerializer.class)
+    @JsonDeserialize(using = CentsDeserializer.class)
+    private long totalPriceCents;
+
+    // Segments, region and channel of the shopper, for targeted coupons
+    private RequestContext context;
+
+    public CartRequest() {
+    }
+
+    public CartRequest(CartItem[] items, long totalPriceCents) {
+        this.items = items;
+        this.totalPriceCents = totalPriceCents;
+    }
 }
@@ -0,0 +1,33 @@
+package org.voucher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// One entry of the catalog change log. Every coupon write gets the next catalog version,
+// and each node applies the entries after the version it has, in version order.
+// Entries expire after a week; a node that far behind finds a gap and reloads everything.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "coupon_catalog_changes")
+public class CatalogChange {
+
+    public enum Kind {
+        UPSERT, // re-read the coupon and add, replace or drop it
+        DELETE,
+        RELOAD // many coupons changed at once, e.g. a bulk import; reload the whole catalog
+    }
+
+    @Id
+    private long version;
+    private Kind kind;
+    private String couponId; // null for RELOAD
+    @Indexed(expireAfter = "7d")
+    private Instant recordedAt;
+}
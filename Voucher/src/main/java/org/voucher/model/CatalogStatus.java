@@ -0,0 +1,12 @@
+package org.voucher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// The catalog version a node has applied, and how many coupons it serves
+@Data
+@AllArgsConstructor
+public class CatalogStatus {
+    private long version;
+    private int coupons;
+}
@@ -0,0 +1,30 @@
+package org.voucher.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import org.voucher.util.Money;
+
+import java.io.IOException;
+
+// Reads a decimal amount such as 12.5 into cents (1250). Integers skip the decimal parse;
+// fractional amounts are parsed from the token text, never through a double.
+public class CentsDeserializer extends JsonDeserializer<Long> {
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        try {
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                return Money.fromUnits(parser.getLongValue());
+            }
+            if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                return Money.fromDecimal(parser.getDecimalValue());
+            }
+        } catch (ArithmeticException e) {
+            return (Long) context.handleWeirdNumberValue(Long.class, parser.getNumberValue(), "amount out of range");
+        }
+        return (Long) context.handleUnexpectedToken(Long.class, parser);
+    }
+}
@@ -0,0 +1,17 @@
+package org.voucher.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.voucher.util.Money;
+
+import java.io.IOException;
+
+// Writes cents back out as a decimal amount, e.g. 1250 as 12.50
+public class CentsSerializer extends JsonSerializer<Long> {
+
+    @Override
+    public void serialize(Long cents, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeNumber(Money.toDecimal(cents));
+    }
+}
@@ -0,0 +1,22 @@
+package org.voucher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+// Where code generation stands for one prefix: the generator key every run with the prefix uses,
+// and the first sequence number no run has taken yet. Runs continue from next, so codes sharing a
+// prefix never repeat, whichever node or run minted them.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "code_sequences")
+public class CodeSequence {
+    @MongoId(FieldType.STRING)
+    private String prefix;
+    private long key;
+    private long next;
+}
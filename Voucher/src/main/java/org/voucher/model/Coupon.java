@@ -2,19 +2,31 @@ package org.voucher.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Map;
 
 @Data
 @Document(collection = "coupons")
+@CompoundIndex(name = "active_expiration", def = "{'isActive': 1, 'expirationDate': 1}")
 public class Coupon {
     @Id
     private String id;
+    @Indexed(unique = true, sparse = true)
+    private String code; // upper case, no whitespace; null for coupons applied by id only
     private CouponType type; // cart-wise, product-wise, bxgy
     private Map<String, Object> details; // Stores dynamic details based on type
     private boolean isActive;
     private LocalDate creationDate;
     private LocalDate expirationDate;
+    private Instant validFrom; // usable from this instant; null means as soon as it is created
+    private Instant validUntil; // usable until just before this instant; null means until expirationDate
+    private DailyWindow dailyWindow; // optional recurring window inside validFrom..validUntil
+    private Targeting targeting; // segments, regions and channels the coupon is limited to; null means everyone
+    private Integer maxRedemptions; // total uses across all users; null means unlimited
+    private Integer maxRedemptionsPerUser; // uses per userId; null means unlimited
 }
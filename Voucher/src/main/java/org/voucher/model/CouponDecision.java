@@ -0,0 +1,22 @@
+package org.voucher.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// Why a coupon does or does not apply to a cart: the check that decided it and the values it compared.
+// For an applicable coupon the predicate is the rule check it passed.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CouponDecision {
+    private String couponId;
+    private CouponType type;
+    private boolean applicable;
+    private String predicate;
+    private Map<String, Object> values;
+}
@@ -0,0 +1,49 @@
+package org.voucher.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+// Something that happened to a coupon, for the audit trail and the per-coupon counts in coupon_stats.
+// SHOWN carries every coupon one applicable-coupons answer listed and is only counted, never stored.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Document(collection = "coupon_events")
+@CompoundIndex(name = "coupon_at", def = "{'couponId': 1, 'at': 1}")
+public class CouponEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, APPLIED, REDEEMED, SHOWN;
+
+        // Written from the admin API rather than the checkout path
+        public boolean isAdmin() {
+            return this == CREATED || this == UPDATED || this == DELETED;
+        }
+    }
+
+    @Id
+    private String id;
+    private Type type;
+    private String couponId; // null for SHOWN
+    @Transient
+    private List<String> couponIds; // SHOWN only
+    private Long discountCents; // APPLIED and REDEEMED
+    private String userId; // REDEEMED
+    private Instant at;
+
+    // The id is assigned here rather than by Mongo, so a retried insert of the same event is recognised
+    public static CouponEvent of(Type type, String couponId) {
+        return new CouponEvent(ObjectId.get().toHexString(), type, couponId, null, null, null, Instant.now());
+    }
+}
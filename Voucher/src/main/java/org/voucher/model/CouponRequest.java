@@ -1,14 +1,28 @@
 package org.voucher.model;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
+import java.time.Instant;
 import java.util.Map;
 
 @Data
 public class CouponRequest {
+    private String code;
     private CouponType type;
 
     @NotNull(message = "Coupon details must not be null")
     private Map<String, Object> details;
+
+    private Instant validFrom;
+    private Instant validUntil;
+    private DailyWindow dailyWindow;
+    private Targeting targeting;
+
+    @Positive(message = "Max redemptions must be positive")
+    private Integer maxRedemptions;
+
+    @Positive(message = "Max redemptions per user must be positive")
+    private Integer maxRedemptionsPerUser;
 }
@@ -0,0 +1,23 @@
+package org.voucher.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CouponStack {
+    private List<Coupon> coupons;
+
+    @JsonProperty("totalDiscount")
+    @JsonSerialize(using = CentsSerializer.class)
+    private long totalDiscountCents;
+
+    @JsonProperty("finalPrice")
+    @JsonSerialize(using = CentsSerializer.class)
+    private long finalPriceCents;
+
+    // False when the latency budget ran out before the search finished; the stack is then the best found so far
+    private boolean complete;
+}
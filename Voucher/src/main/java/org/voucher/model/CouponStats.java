@@ -0,0 +1,27 @@
+package org.voucher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+import java.time.Instant;
+
+// How often a coupon was listed as applicable, applied and redeemed. Applications are applies that were
+// not redemptions; a redemption is only counted under redemptions.
+// Counts lag the events by up to one flush of the event pipeline and lose whatever it dropped.
+// The stored document also keeps the ids of the last event batches added to it, so a retry is not counted twice.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "coupon_stats")
+public class CouponStats {
+    @MongoId(FieldType.STRING)
+    private String couponId;
+    private long impressions;
+    private long applications;
+    private long redemptions;
+    private Instant lastEventAt;
+}
@@ -1,5 +1,5 @@
 package org.voucher.model;
 
 public enum CouponType {
-    CART_WISE, PRODUCT_WISE, BXGY
+    CART_WISE, PRODUCT_WISE, BXGY, CATEGORY_WISE
 }
@@ -0,0 +1,18 @@
+package org.voucher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+// A window that opens every day, e.g. a 17:00-19:00 happy hour, in the given time zone.
+// An end before the start runs past midnight (22:00-02:00).
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyWindow {
+    private LocalTime start;
+    private LocalTime end;
+    private String zone; // IANA zone id such as "Europe/Paris"; UTC when absent
+}
@@ -0,0 +1,24 @@
+package org.voucher.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class GenerateCodesRequest {
+
+    // Every generated coupon copies this, with its own code; maxRedemptions defaults to 1
+    @Valid
+    @NotNull(message = "Template must not be null")
+    private CouponRequest template;
+
+    @Positive(message = "Count must be positive")
+    @Max(value = 50_000_000, message = "Count must be at most 50000000")
+    private int count;
+
+    @Pattern(regexp = "[A-Z0-9-]{0,16}", message = "Prefix must be up to 16 of A-Z, 0-9 and '-'")
+    private String prefix;
+}
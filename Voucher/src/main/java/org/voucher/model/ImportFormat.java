@@ -0,0 +1,31 @@
+package org.voucher.model;
+
+import java.util.Locale;
+
+// Row formats accepted by the bulk import
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    public static ImportFormat fromContentType(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.startsWith("text/csv")) {
+            return CSV;
+        }
+        if (type.startsWith("application/x-ndjson") || type.startsWith("application/jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType);
+    }
+
+    public static ImportFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot tell the import format of " + fileName + "; use .csv, .ndjson or .jsonl");
+    }
+}
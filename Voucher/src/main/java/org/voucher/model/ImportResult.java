@@ -0,0 +1,25 @@
+package org.voucher.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of a bulk import or code generation run.
+// Only the first errors are kept, so a bad file cannot make the report grow without bound.
+@Data
+public class ImportResult {
+    private long rowsRead;
+    private long inserted;
+    private long rejected; // rows that failed validation and were never sent to Mongo
+    private long failed; // rows Mongo refused, such as duplicate keys
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    public static class RowError {
+        private final long line;
+        private final String message;
+    }
+}
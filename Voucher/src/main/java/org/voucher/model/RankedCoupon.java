@@ -0,0 +1,18 @@
+package org.voucher.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankedCoupon {
+    private Coupon coupon;
+
+    @JsonProperty("discount")
+    @JsonSerialize(using = CentsSerializer.class)
+    private long discountCents;
+}
@@ -0,0 +1,15 @@
+package org.voucher.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class RedeemRequest {
+    // Required when the coupon has a per-user limit
+    private String userId;
+
+    @Valid
+    @NotNull(message = "Cart must not be null")
+    private CartRequest cart;
+}
@@ -0,0 +1,21 @@
+package org.voucher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+// Redemptions reserved for one coupon, kept apart from the coupon document so that
+// coupon updates never overwrite the counter. Nodes reserve in blocks (leases), so
+// this can run ahead of the redemptions actually made by the number of unused leased units.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "coupon_redemption_counters")
+public class RedemptionCounter {
+    @MongoId(FieldType.STRING)
+    private String couponId;
+    private long reserved;
+}
@@ -0,0 +1,17 @@
+package org.voucher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+// Who is asking, matched against coupon targeting. Missing values only match untargeted coupons.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestContext {
+    private Set<String> segments;
+    private String region;
+    private String channel;
+}
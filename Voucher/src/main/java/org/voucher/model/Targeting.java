@@ -0,0 +1,18 @@
+package org.voucher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+// Who may use a coupon. An empty or missing set places no restriction on that dimension;
+// otherwise the request must match at least one of its values.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Targeting {
+    private Set<String> segments;
+    private Set<String> regions;
+    private Set<String> channels;
+}
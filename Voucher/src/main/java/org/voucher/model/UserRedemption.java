@@ -0,0 +1,22 @@
+package org.voucher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// How many times one user has redeemed one coupon
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "coupon_user_redemptions")
+@CompoundIndex(name = "coupon_user", def = "{'couponId': 1, 'userId': 1}", unique = true)
+public class UserRedemption {
+    @Id
+    private String id;
+    private String couponId;
+    private String userId;
+    private int count;
+}
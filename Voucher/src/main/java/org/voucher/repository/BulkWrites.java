@@ -0,0 +1,22 @@
+package org.voucher.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.data.mongodb.BulkOperationException;
+
+final class BulkWrites {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private BulkWrites() {
+    }
+
+    // True when every write the bulk rejected hit a unique index, i.e. it had already been done
+    static boolean onlyDuplicateKeys(BulkOperationException e) {
+        for (BulkWriteError error : e.getErrors()) {
+            if (error.getCode() != DUPLICATE_KEY) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
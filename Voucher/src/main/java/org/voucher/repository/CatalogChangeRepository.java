@@ -0,0 +1,9 @@
+package org.voucher.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import org.voucher.model.CatalogChange;
+
+@Repository
+public interface CatalogChangeRepository extends MongoRepository<CatalogChange, Long>, CatalogChangeRepositoryCustom {
+}
@@ -0,0 +1,17 @@
+package org.voucher.repository;
+
+import org.voucher.model.CatalogChange;
+
+import java.util.List;
+
+public interface CatalogChangeRepositoryCustom {
+
+    // Atomically takes the next catalog version; versions start at 1 and never repeat
+    long nextVersion();
+
+    // The last version handed out, 0 before the first write
+    long currentVersion();
+
+    // Up to limit changes with a version greater than after, in version order
+    List<CatalogChange> findAfter(long after, int limit);
+}
@@ -0,0 +1,51 @@
+package org.voucher.repository;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.voucher.model.CatalogChange;
+
+import java.util.List;
+
+public class CatalogChangeRepositoryImpl implements CatalogChangeRepositoryCustom {
+
+    private static final String VERSION_COLLECTION = "coupon_catalog_version";
+    private static final String VERSION_ID = "catalog";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CatalogChangeRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // A single upserting $inc, so concurrent writers on any node get distinct, increasing versions
+    @Override
+    public long nextVersion() {
+        Document counter = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(VERSION_ID)),
+                new Update().inc("version", 1L),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class, VERSION_COLLECTION);
+        return ((Number) counter.get("version")).longValue();
+    }
+
+    @Override
+    public long currentVersion() {
+        Document counter = mongoTemplate.findById(VERSION_ID, Document.class, VERSION_COLLECTION);
+        return counter == null ? 0 : ((Number) counter.get("version")).longValue();
+    }
+
+    @Override
+    public List<CatalogChange> findAfter(long after, int limit) {
+        Query query = new Query(Criteria.where("version").gt(after))
+                .with(Sort.by(Sort.Direction.ASC, "version"))
+                .limit(limit);
+        return mongoTemplate.find(query, CatalogChange.class);
+    }
+}
@@ -0,0 +1,9 @@
+package org.voucher.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import org.voucher.model.CodeSequence;
+
+@Repository
+public interface CodeSequenceRepository extends MongoRepository<CodeSequence, String>, CodeSequenceRepositoryCustom {
+}
@@ -0,0 +1,10 @@
+package org.voucher.repository;
+
+import org.voucher.model.CodeSequence;
+
+public interface CodeSequenceRepositoryCustom {
+
+    // Takes the next count sequence numbers of the prefix and returns the sequence after taking them,
+    // so the range is [next - count, next). The first run for a prefix stores newKey as its key.
+    CodeSequence reserve(String prefix, long count, long newKey);
+}
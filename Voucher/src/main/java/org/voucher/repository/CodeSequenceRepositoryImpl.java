@@ -0,0 +1,34 @@
+package org.voucher.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.voucher.model.CodeSequence;
+
+public class CodeSequenceRepositoryImpl implements CodeSequenceRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CodeSequenceRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // One upserting findAndModify: $inc next by count, and $setOnInsert the key on first use.
+    // Two runs creating the same prefix at once race on _id; the loser retries and finds the document.
+    @Override
+    public CodeSequence reserve(String prefix, long count, long newKey) {
+        Query query = new Query(Criteria.where("_id").is(prefix));
+        Update update = new Update().inc("next", count).setOnInsert("key", newKey);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        try {
+            return mongoTemplate.findAndModify(query, update, options, CodeSequence.class);
+        } catch (DuplicateKeyException e) {
+            return mongoTemplate.findAndModify(query, update, options, CodeSequence.class);
+        }
+    }
+}
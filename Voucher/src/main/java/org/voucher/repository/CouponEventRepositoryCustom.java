@@ -0,0 +1,12 @@
+package org.voucher.repository;
+
+import org.voucher.model.CouponEvent;
+
+import java.util.List;
+
+public interface CouponEventRepositoryCustom {
+
+    // Inserts the batch in one unordered bulk write and returns how many were inserted;
+    // events already stored under their id are left as they are
+    int insertUnordered(List<CouponEvent> events);
+}
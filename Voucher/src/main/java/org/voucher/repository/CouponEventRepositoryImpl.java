@@ -0,0 +1,36 @@
+package org.voucher.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.voucher.model.CouponEvent;
+
+import java.util.List;
+
+public class CouponEventRepositoryImpl implements CouponEventRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CouponEventRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Events carry their id from the client, so events a retried batch already inserted fail on _id
+    // and are skipped while the rest still go in
+    @Override
+    public int insertUnordered(List<CouponEvent> events) {
+        try {
+            return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CouponEvent.class)
+                    .insert(events)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            if (!BulkWrites.onlyDuplicateKeys(e)) {
+                throw e;
+            }
+            return e.getResult().getInsertedCount();
+        }
+    }
+}
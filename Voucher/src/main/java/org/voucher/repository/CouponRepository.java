@@ -4,6 +4,12 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import org.voucher.model.Coupon;
 
+import java.util.Optional;
+
 @Repository
-public interface CouponRepository extends MongoRepository<Coupon, String> {
+public interface CouponRepository extends MongoRepository<Coupon, String>, CouponRepositoryCustom {
+
+    Optional<Coupon> findByCode(String code);
+
+    long countByCodeIsNotNull();
 }
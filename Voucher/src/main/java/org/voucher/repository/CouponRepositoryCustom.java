@@ -0,0 +1,28 @@
+package org.voucher.repository;
+
+import org.voucher.model.Coupon;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+
+// Operations that need MongoTemplate rather than derived queries
+public interface CouponRepositoryCustom {
+
+    // Marks every active coupon that expired before the given day inactive, returning how many changed
+    long deactivateExpired(LocalDate today);
+
+    // Up to limit coupons with an id greater than after (or from the start when after is null), in id order
+    List<Coupon> findPage(String after, int limit);
+
+    // Every coupon, read lazily from a Mongo cursor; the caller must close the stream
+    Stream<Coupon> streamAll();
+
+    // Every coupon code, read lazily with only the code field; the caller must close the stream
+    Stream<String> streamCodes();
+
+    // Inserts the batch in one unordered bulk write, so one bad document does not stop the rest.
+    // Returns how many were inserted and reports each refused document's message and index in the batch.
+    int insertUnordered(List<Coupon> coupons, ObjIntConsumer<String> onFailure);
+}
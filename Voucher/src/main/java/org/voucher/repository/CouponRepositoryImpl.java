@@ -0,0 +1,74 @@
+package org.voucher.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.voucher.model.Coupon;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+
+public class CouponRepositoryImpl implements CouponRepositoryCustom {
+
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CouponRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // One server-side updateMany, served by the (isActive, expirationDate) index
+    @Override
+    public long deactivateExpired(LocalDate today) {
+        Query query = new Query(Criteria.where("isActive").is(true).and("expirationDate").lt(today));
+        return mongoTemplate.updateMulti(query, Update.update("isActive", false), Coupon.class)
+                .getModifiedCount();
+    }
+
+    // Keyset pagination on _id, so deep pages cost the same as the first one
+    @Override
+    public List<Coupon> findPage(String after, int limit) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id")).limit(limit);
+        if (after != null) {
+            query.addCriteria(Criteria.where("id").gt(after));
+        }
+        return mongoTemplate.find(query, Coupon.class);
+    }
+
+    @Override
+    public Stream<Coupon> streamAll() {
+        return mongoTemplate.stream(new Query().cursorBatchSize(EXPORT_BATCH_SIZE), Coupon.class);
+    }
+
+    @Override
+    public Stream<String> streamCodes() {
+        Query query = new Query(Criteria.where("code").ne(null)).cursorBatchSize(EXPORT_BATCH_SIZE);
+        query.fields().include("code");
+        return mongoTemplate.stream(query, Coupon.class).map(Coupon::getCode);
+    }
+
+    @Override
+    public int insertUnordered(List<Coupon> coupons, ObjIntConsumer<String> onFailure) {
+        try {
+            return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Coupon.class)
+                    .insert(coupons)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                onFailure.accept(error.getMessage(), error.getIndex());
+            }
+            return e.getResult().getInsertedCount();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.voucher.repository;
+
+import org.voucher.model.CouponStats;
+
+import java.util.Collection;
+
+public interface CouponStatsRepositoryCustom {
+
+    // Adds each entry's counts to the coupon's stats, creating them on first use. A coupon whose stats
+    // already took the batch with this id is skipped, so a retried batch is never counted twice.
+    void increment(Collection<CouponStats> deltas, String batchId);
+}
@@ -0,0 +1,52 @@
+package org.voucher.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.voucher.model.CouponStats;
+
+import java.util.Collection;
+
+public class CouponStatsRepositoryImpl implements CouponStatsRepositoryCustom {
+
+    // Batch ids remembered per coupon; far more than the batches written while one is being retried
+    static final int RECENT_BATCHES = 64;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CouponStatsRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // One upserting $inc per coupon, all in a single unordered bulk write. Each also pushes the batch id
+    // onto the coupon's recent batches and only matches a document that does not hold it yet; for one
+    // that does, the upsert turns into an insert that fails on _id, which means the $inc is already in.
+    @Override
+    public void increment(Collection<CouponStats> deltas, String batchId) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CouponStats.class);
+        for (CouponStats delta : deltas) {
+            Update update = new Update()
+                    .inc("impressions", delta.getImpressions())
+                    .inc("applications", delta.getApplications())
+                    .inc("redemptions", delta.getRedemptions())
+                    .max("lastEventAt", delta.getLastEventAt());
+            update.push("batches").slice(-RECENT_BATCHES).each(batchId);
+            bulk.upsert(new Query(Criteria.where("_id").is(delta.getCouponId()).and("batches").ne(batchId)), update);
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            if (!BulkWrites.onlyDuplicateKeys(e)) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.voucher.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import org.voucher.model.Coupon;
+import reactor.core.publisher.Mono;
+
+// Non-blocking access to the coupons collection, used by the reactive profile
+@Repository
+public interface ReactiveCouponRepository extends ReactiveMongoRepository<Coupon, String>, ReactiveCouponRepositoryCustom {
+
+    Mono<Coupon> findByCode(String code);
+}
@@ -0,0 +1,14 @@
+package org.voucher.repository;
+
+import org.voucher.model.Coupon;
+import reactor.core.publisher.Flux;
+
+// Reactive counterparts of the CouponRepositoryCustom reads
+public interface ReactiveCouponRepositoryCustom {
+
+    // Up to limit coupons with an id greater than after (or from the start when after is null), in id order
+    Flux<Coupon> findPage(String after, int limit);
+
+    // Every coupon; the cursor fetches more batches only as the subscriber asks for them
+    Flux<Coupon> streamAll();
+}
@@ -0,0 +1,36 @@
+package org.voucher.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.voucher.model.Coupon;
+import reactor.core.publisher.Flux;
+
+public class ReactiveCouponRepositoryImpl implements ReactiveCouponRepositoryCustom {
+
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    public ReactiveCouponRepositoryImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Same keyset pagination as CouponRepositoryImpl.findPage
+    @Override
+    public Flux<Coupon> findPage(String after, int limit) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id")).limit(limit);
+        if (after != null) {
+            query.addCriteria(Criteria.where("id").gt(after));
+        }
+        return mongoTemplate.find(query, Coupon.class);
+    }
+
+    @Override
+    public Flux<Coupon> streamAll() {
+        return mongoTemplate.find(new Query().cursorBatchSize(EXPORT_BATCH_SIZE), Coupon.class);
+    }
+}
@@ -0,0 +1,12 @@
+package org.voucher.repository;
+
+// Atomic counter operations that need MongoTemplate
+public interface RedemptionCounterRepositoryCustom {
+
+    // Reserves up to requested redemptions without going past limit and returns how many
+    // were granted, 0 once the limit is reached
+    long reserve(String couponId, long requested, long limit);
+
+    // Hands back reserved redemptions that were never used
+    void release(String couponId, long count);
+}
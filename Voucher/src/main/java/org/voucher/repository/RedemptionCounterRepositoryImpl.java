@@ -0,0 +1,56 @@
+package org.voucher.repository;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.voucher.model.RedemptionCounter;
+
+import java.util.List;
+
+public class RedemptionCounterRepositoryImpl implements RedemptionCounterRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public RedemptionCounterRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // One conditional findAndModify: {reserved < limit} -> reserved = min(limit, reserved + requested).
+    // The document is created on first use; a missing document and an exhausted one both fail
+    // the condition, so the update is retried once after making sure the document exists.
+    @Override
+    public long reserve(String couponId, long requested, long limit) {
+        Query query = new Query(Criteria.where("couponId").is(couponId).and("reserved").lt(limit));
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set",
+                new Document("reserved", new Document("$min",
+                        List.of(limit, new Document("$add", List.of("$reserved", requested))))))));
+        FindAndModifyOptions returnOld = FindAndModifyOptions.options().returnNew(false);
+
+        RedemptionCounter before = mongoTemplate.findAndModify(query, update, returnOld, RedemptionCounter.class);
+        if (before == null) {
+            try {
+                mongoTemplate.insert(new RedemptionCounter(couponId, 0));
+            } catch (DuplicateKeyException e) {
+                // Another node created it, or the limit has been reached
+            }
+            before = mongoTemplate.findAndModify(query, update, returnOld, RedemptionCounter.class);
+            if (before == null) {
+                return 0;
+            }
+        }
+        return Math.min(requested, limit - before.getReserved());
+    }
+
+    @Override
+    public void release(String couponId, long count) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("couponId").is(couponId)),
+                new Update().inc("reserved", -count), RedemptionCounter.class);
+    }
+}
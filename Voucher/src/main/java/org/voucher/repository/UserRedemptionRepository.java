@@ -0,0 +1,9 @@
+package org.voucher.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import org.voucher.model.UserRedemption;
+
+@Repository
+public interface UserRedemptionRepository extends MongoRepository<UserRedemption, String>, UserRedemptionRepositoryCustom {
+}
@@ -0,0 +1,7 @@
+package org.voucher.repository;
+
+public interface UserRedemptionRepositoryCustom {
+
+    // Counts one redemption for the user unless they already have limit; false when they do
+    boolean tryRedeem(String couponId, String userId, int limit);
+}
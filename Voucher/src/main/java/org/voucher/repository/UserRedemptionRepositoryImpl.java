@@ -0,0 +1,36 @@
+package org.voucher.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.voucher.model.UserRedemption;
+
+public class UserRedemptionRepositoryImpl implements UserRedemptionRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public UserRedemptionRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Conditional $inc on {couponId, userId, count < limit}. The unique (couponId, userId) index
+    // makes the first insert race-free: whoever loses it retries the conditional $inc.
+    @Override
+    public boolean tryRedeem(String couponId, String userId, int limit) {
+        Query query = new Query(Criteria.where("couponId").is(couponId).and("userId").is(userId).and("count").lt(limit));
+        Update increment = new Update().inc("count", 1);
+        if (mongoTemplate.updateFirst(query, increment, UserRedemption.class).getModifiedCount() == 1) {
+            return true;
+        }
+        try {
+            mongoTemplate.insert(new UserRedemption(null, couponId, userId, 1));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return mongoTemplate.updateFirst(query, increment, UserRedemption.class).getModifiedCount() == 1;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.voucher.rule;
+
+import java.util.Arrays;
+
+// Buy the listed quantities of some products, get others free, up to the repetition limit.
+// Products are held in parallel primitive arrays that are never handed out.
+// A product may be both bought and given free ("buy 2 get 1 of the same"); each repetition then
+// needs both quantities of it, precomputed here so evaluation does no lookups between the lists.
+public final class BxGyRule implements CouponRule {
+
+    // Which of the cart's units of a get product become free when it has more than needed
+    public enum FreeItems {
+        CHEAPEST, MOST_EXPENSIVE
+    }
+
+    private final int[] buyProductIds;
+    private final int[] buyQuantities;
+    private final int[] getProductIds;
+    private final int[] getQuantities;
+    private final int repetitionLimit;
+    private final FreeItems freeItems;
+    // Units of the buy product one repetition uses, counting those it gives free
+    private final int[] buyNeeds;
+    // Units of the get product one repetition uses to meet the buy condition
+    private final int[] getBoughtQuantities;
+    // Get product ids in ascending order and their index in getProductIds
+    private final int[] sortedGetProductIds;
+    private final int[] sortedGetIndexes;
+
+    public BxGyRule(int[] buyProductIds, int[] buyQuantities,
+                    int[] getProductIds, int[] getQuantities, int repetitionLimit) {
+        this(buyProductIds, buyQuantities, getProductIds, getQuantities, repetitionLimit, FreeItems.CHEAPEST);
+    }
+
+    public BxGyRule(int[] buyProductIds, int[] buyQuantities,
+                    int[] getProductIds, int[] getQuantities, int repetitionLimit, FreeItems freeItems) {
+        this.buyProductIds = buyProductIds.clone();
+        this.buyQuantities = buyQuantities.clone();
+        this.getProductIds = getProductIds.clone();
+        this.getQuantities = getQuantities.clone();
+        this.repetitionLimit = repetitionLimit;
+        this.freeItems = freeItems;
+        this.buyNeeds = this.buyQuantities.clone();
+        this.getBoughtQuantities = new int[getProductIds.length];
+        for (int i = 0; i < buyProductIds.length; i++) {
+            for (int j = 0; j < getProductIds.length; j++) {
+                if (buyProductIds[i] == getProductIds[j]) {
+                    buyNeeds[i] += getQuantities[j];
+                    getBoughtQuantities[j] = buyQuantities[i];
+                }
+            }
+        }
+        long[] packed = new long[getProductIds.length];
+        for (int j = 0; j < getProductIds.length; j++) {
+            packed[j] = (long) getProductIds[j] << 32 | j;
+        }
+        Arrays.sort(packed);
+        this.sortedGetProductIds = new int[packed.length];
+        this.sortedGetIndexes = new int[packed.length];
+        for (int k = 0; k < packed.length; k++) {
+            sortedGetProductIds[k] = (int) (packed[k] >> 32);
+            sortedGetIndexes[k] = (int) packed[k];
+        }
+    }
+
+    public int buyCount() {
+        return buyProductIds.length;
+    }
+
+    public int buyProductId(int index) {
+        return buyProductIds[index];
+    }
+
+    public int buyQuantity(int index) {
+        return buyQuantities[index];
+    }
+
+    public int buyNeed(int index) {
+        return buyNeeds[index];
+    }
+
+    public int getCount() {
+        return getProductIds.length;
+    }
+
+    public int getProductId(int index) {
+        return getProductIds[index];
+    }
+
+    public int getQuantity(int index) {
+        return getQuantities[index];
+    }
+
+    public int getBoughtQuantity(int index) {
+        return getBoughtQuantities[index];
+    }
+
+    // Index of the product among the get products, or -1
+    public int getIndexOf(int productId) {
+        int position = Arrays.binarySearch(sortedGetProductIds, productId);
+        return position < 0 ? -1 : sortedGetIndexes[position];
+    }
+
+    public int repetitionLimit() {
+        return repetitionLimit;
+    }
+
+    public FreeItems freeItems() {
+        return freeItems;
+    }
+
+    @Override
+    public String toString() {
+        return "BxGyRule{buy=" + Arrays.toString(buyProductIds) + "x" + Arrays.toString(buyQuantities)
+                + ", get=" + Arrays.toString(getProductIds) + "x" + Arrays.toString(getQuantities)
+                + ", repetitionLimit=" + repetitionLimit + ", freeItems=" + freeItems + "}";
+    }
+}
@@ -0,0 +1,8 @@
+package org.voucher.rule;
+
+import java.math.RoundingMode;
+
+// Percentage off the whole cart once its total exceeds the threshold.
+// The discount is in basis points and rounded to the cent with the coupon's rounding mode.
+public record CartWiseRule(int threshold, int discountBasisPoints, RoundingMode rounding) implements CouponRule {
+}
@@ -0,0 +1,12 @@
+package org.voucher.rule;
+
+import java.math.RoundingMode;
+
+// Percentage off every cart line whose product belongs to one category or one brand, in basis points.
+// The discount is rounded once over all matching lines.
+public record CategoryWiseRule(Scope scope, int scopeId, int discountBasisPoints, RoundingMode rounding) implements CouponRule {
+
+    public enum Scope {
+        CATEGORY, BRAND
+    }
+}
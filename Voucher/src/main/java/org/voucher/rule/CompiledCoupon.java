@@ -0,0 +1,11 @@
+package org.voucher.rule;
+
+import org.voucher.model.Coupon;
+
+// A stored coupon paired with its compiled rule
+public record CompiledCoupon(Coupon coupon, CouponRule rule) {
+
+    public static CompiledCoupon of(Coupon coupon) {
+        return new CompiledCoupon(coupon, CouponRuleCompiler.compile(coupon));
+    }
+}
@@ -0,0 +1,5 @@
+package org.voucher.rule;
+
+// Typed, immutable form of a coupon's details, compiled once when the coupon is loaded or written
+public sealed interface CouponRule permits CartWiseRule, ProductWiseRule, BxGyRule, CategoryWiseRule {
+}
@@ -0,0 +1,184 @@
+package org.voucher.rule;
+
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Turns the free-form details map of a coupon into its typed rule, rejecting malformed details
+public final class CouponRuleCompiler {
+
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+    private static final String ROUNDING_MODES = "HALF_UP, HALF_EVEN, HALF_DOWN, UP, DOWN, CEILING, FLOOR";
+
+    private CouponRuleCompiler() {
+    }
+
+    public static CouponRule compile(Coupon coupon) {
+        return compile(coupon.getType(), coupon.getDetails());
+    }
+
+    public static CouponRule compile(CouponType type, Map<String, Object> details) {
+        if (type == null) {
+            throw new InvalidCouponException("Coupon type must not be null");
+        }
+        if (details == null) {
+            throw new InvalidCouponException("Coupon details must not be null");
+        }
+        return switch (type) {
+            case CART_WISE -> new CartWiseRule(
+                    requireNonNegative(details, "threshold"),
+                    requireBasisPoints(details, "discount"),
+                    rounding(details));
+            case PRODUCT_WISE -> new ProductWiseRule(
+                    requireInt(details, "product_id"),
+                    requireBasisPoints(details, "discount"),
+                    rounding(details));
+            case BXGY -> compileBxGy(details);
+            case CATEGORY_WISE -> compileCategoryWise(details);
+        };
+    }
+
+    // Exactly one of category_id and brand_id says which products the discount covers
+    private static CategoryWiseRule compileCategoryWise(Map<String, Object> details) {
+        boolean category = details.containsKey("category_id");
+        if (category == details.containsKey("brand_id")) {
+            throw new InvalidCouponException("Coupon details must have exactly one of 'category_id' and 'brand_id'");
+        }
+        return new CategoryWiseRule(
+                category ? CategoryWiseRule.Scope.CATEGORY : CategoryWiseRule.Scope.BRAND,
+                requireNonNegative(details, category ? "category_id" : "brand_id"),
+                requireBasisPoints(details, "discount"),
+                rounding(details));
+    }
+
+    private static BxGyRule compileBxGy(Map<String, Object> details) {
+        List<Map<String, Object>> buyProducts = requireProductList(details, "buy_products");
+        List<Map<String, Object>> getProducts = requireProductList(details, "get_products");
+        int[] buyProductIds = new int[buyProducts.size()];
+        int[] buyQuantities = new int[buyProducts.size()];
+        for (int i = 0; i < buyProducts.size(); i++) {
+            buyProductIds[i] = requireInt(buyProducts.get(i), "product_id");
+            buyQuantities[i] = requirePositive(buyProducts.get(i), "quantity");
+        }
+        int[] getProductIds = new int[getProducts.size()];
+        int[] getQuantities = new int[getProducts.size()];
+        for (int i = 0; i < getProducts.size(); i++) {
+            getProductIds[i] = requireInt(getProducts.get(i), "product_id");
+            getQuantities[i] = requirePositive(getProducts.get(i), "quantity");
+        }
+        requireDistinct(buyProductIds, "buy_products");
+        requireDistinct(getProductIds, "get_products");
+        return new BxGyRule(buyProductIds, buyQuantities, getProductIds, getQuantities,
+                requirePositive(details, "repetition_limit"), freeItems(details));
+    }
+
+    private static void requireDistinct(int[] productIds, String key) {
+        int[] sorted = productIds.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1]) {
+                throw new InvalidCouponException("Coupon detail '" + key + "' lists product " + sorted[i] + " twice");
+            }
+        }
+    }
+
+    private static BxGyRule.FreeItems freeItems(Map<String, Object> details) {
+        Object value = details.get("free_items");
+        if (value == null) {
+            return BxGyRule.FreeItems.CHEAPEST;
+        }
+        if (value instanceof String name) {
+            try {
+                return BxGyRule.FreeItems.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                // reported below
+            }
+        }
+        throw new InvalidCouponException("Coupon detail 'free_items' must be CHEAPEST or MOST_EXPENSIVE");
+    }
+
+    private static int requireInt(Map<String, Object> details, String key) {
+        Object value = details.get(key);
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Long longValue && longValue == longValue.intValue()) {
+            return longValue.intValue();
+        }
+        if (value instanceof Number number && number.doubleValue() == Math.rint(number.doubleValue())
+                && Math.abs(number.doubleValue()) <= Integer.MAX_VALUE) {
+            return number.intValue();
+        }
+        throw new InvalidCouponException("Coupon detail '" + key + "' must be an integer");
+    }
+
+    private static int requireNonNegative(Map<String, Object> details, String key) {
+        int value = requireInt(details, key);
+        if (value < 0) {
+            throw new InvalidCouponException("Coupon detail '" + key + "' must not be negative");
+        }
+        return value;
+    }
+
+    private static int requirePositive(Map<String, Object> details, String key) {
+        int value = requireInt(details, key);
+        if (value <= 0) {
+            throw new InvalidCouponException("Coupon detail '" + key + "' must be positive");
+        }
+        return value;
+    }
+
+    // A percentage with at most two decimals, as basis points (12.5 -> 1250)
+    private static int requireBasisPoints(Map<String, Object> details, String key) {
+        if (!(details.get(key) instanceof Number number)) {
+            throw new InvalidCouponException("Coupon detail '" + key + "' must be a number");
+        }
+        BigDecimal percent = new BigDecimal(number.toString());
+        if (percent.signum() <= 0 || percent.compareTo(ONE_HUNDRED) > 0) {
+            throw new InvalidCouponException("Coupon detail '" + key + "' must be between 0 and 100");
+        }
+        if (percent.stripTrailingZeros().scale() > 2) {
+            throw new InvalidCouponException("Coupon detail '" + key + "' must have at most two decimal places");
+        }
+        return percent.movePointRight(2).intValueExact();
+    }
+
+    // Optional 'rounding' detail naming a java.math.RoundingMode; half-up when absent
+    private static RoundingMode rounding(Map<String, Object> details) {
+        Object value = details.get("rounding");
+        if (value == null) {
+            return RoundingMode.HALF_UP;
+        }
+        if (value instanceof String name) {
+            try {
+                RoundingMode mode = RoundingMode.valueOf(name.toUpperCase(Locale.ROOT));
+                if (mode != RoundingMode.UNNECESSARY) {
+                    return mode;
+                }
+            } catch (IllegalArgumentException e) {
+                // reported below
+            }
+        }
+        throw new InvalidCouponException("Coupon detail 'rounding' must be one of " + ROUNDING_MODES);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> requireProductList(Map<String, Object> details, String key) {
+        if (!(details.get(key) instanceof List<?> products) || products.isEmpty()) {
+            throw new InvalidCouponException("Coupon detail '" + key + "' must be a non-empty list");
+        }
+        for (Object product : products) {
+            if (!(product instanceof Map<?, ?>)) {
+                throw new InvalidCouponException("Entries of '" + key + "' must be objects");
+            }
+        }
+        return (List<Map<String, Object>>) products;
+    }
+}
@@ -0,0 +1,95 @@
+package org.voucher.rule;
+
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.model.Coupon;
+import org.voucher.model.DailyWindow;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+// When a coupon may be used: an optional [validFrom, validUntil) range and an optional daily window.
+// Either bound may be missing; a coupon with neither and no window is always open.
+public record CouponSchedule(Instant validFrom, Instant validUntil, LocalTime windowStart, LocalTime windowEnd, ZoneId zone) {
+
+    public static final CouponSchedule ALWAYS = new CouponSchedule(null, null, null, null, ZoneOffset.UTC);
+
+    public static CouponSchedule of(Coupon coupon) {
+        Instant from = coupon.getValidFrom();
+        Instant until = coupon.getValidUntil();
+        if (from != null && until != null && !from.isBefore(until)) {
+            throw new InvalidCouponException("Coupon validFrom must be before validUntil");
+        }
+        DailyWindow window = coupon.getDailyWindow();
+        if (window == null) {
+            return from == null && until == null ? ALWAYS : new CouponSchedule(from, until, null, null, ZoneOffset.UTC);
+        }
+        if (window.getStart() == null || window.getEnd() == null || window.getStart().equals(window.getEnd())) {
+            throw new InvalidCouponException("Coupon dailyWindow needs a start and a different end");
+        }
+        ZoneId zone;
+        try {
+            zone = window.getZone() == null ? ZoneOffset.UTC : ZoneId.of(window.getZone());
+        } catch (DateTimeException e) {
+            throw new InvalidCouponException("Coupon dailyWindow zone '" + window.getZone() + "' is not a valid time zone");
+        }
+        return new CouponSchedule(from, until, window.getStart(), window.getEnd(), zone);
+    }
+
+    public boolean isAlwaysOpen() {
+        return validFrom == null && validUntil == null && windowStart == null;
+    }
+
+    public boolean isOpen(Instant now) {
+        if (validFrom != null && now.isBefore(validFrom)) {
+            return false;
+        }
+        if (validUntil != null && !now.isBefore(validUntil)) {
+            return false;
+        }
+        return windowStart == null || inWindow(now.atZone(zone).toLocalTime());
+    }
+
+    // The next instant after now at which isOpen may change, or null if it never will again
+    public Instant nextTransition(Instant now) {
+        if (validUntil != null && !now.isBefore(validUntil)) {
+            return null;
+        }
+        if (validFrom != null && now.isBefore(validFrom)) {
+            return validFrom;
+        }
+        Instant next = validUntil;
+        if (windowStart != null) {
+            Instant boundary = earliest(nextOccurrence(windowStart, now), nextOccurrence(windowEnd, now));
+            next = next == null ? boundary : earliest(next, boundary);
+        }
+        return next;
+    }
+
+    private boolean inWindow(LocalTime time) {
+        if (windowStart.isBefore(windowEnd)) {
+            return !time.isBefore(windowStart) && time.isBefore(windowEnd);
+        }
+        return !time.isBefore(windowStart) || time.isBefore(windowEnd);
+    }
+
+    // First instant after now showing this local time in the zone. Times skipped by a DST gap
+    // resolve to just after the gap.
+    private Instant nextOccurrence(LocalTime time, Instant now) {
+        LocalDate date = now.atZone(zone).toLocalDate();
+        Instant candidate = ZonedDateTime.of(date, time, zone).toInstant();
+        while (!candidate.isAfter(now)) {
+            date = date.plusDays(1);
+            candidate = ZonedDateTime.of(date, time, zone).toInstant();
+        }
+        return candidate;
+    }
+
+    private static Instant earliest(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,7 @@
+package org.voucher.rule;
+
+import java.math.RoundingMode;
+
+// Percentage off every cart line for one product, in basis points
+public record ProductWiseRule(int productId, int discountBasisPoints, RoundingMode rounding) implements CouponRule {
+}
@@ -0,0 +1,62 @@
+package org.voucher.util;
+
+// Mints coupon codes that cannot collide for one prefix and key: the n-th code is a keyed
+// Feistel permutation of n over 40 bits, written as 8 Crockford base32 characters after a prefix.
+// The permutation is a bijection, so distinct sequence numbers always give distinct codes,
+// while the key makes consecutive codes look unrelated and hard to guess. Two different keys give
+// no such promise, so callers keep one key per prefix and never reuse a sequence number
+// (see CodeSequence).
+public final class CodeGenerator {
+
+    public static final int CODE_LENGTH = 8;
+    public static final long CAPACITY = 1L << 40;
+
+    // Crockford's alphabet leaves out I, L, O and U so codes read back unambiguously
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int HALF_BITS = 20;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    private final String prefix;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    public CodeGenerator(String prefix, long key) {
+        this.prefix = prefix == null ? "" : prefix;
+        long state = key;
+        for (int i = 0; i < ROUNDS; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            roundKeys[i] = mix(state);
+        }
+    }
+
+    public String code(long sequence) {
+        if (sequence < 0 || sequence >= CAPACITY) {
+            throw new IllegalArgumentException("Sequence must be in [0, 2^40)");
+        }
+        long value = permute(sequence);
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return prefix + new String(code);
+    }
+
+    long permute(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (long roundKey : roundKeys) {
+            long next = left ^ (mix(right ^ roundKey) & HALF_MASK);
+            left = right;
+            right = next;
+        }
+        return left << HALF_BITS | right;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+}
@@ -0,0 +1,74 @@
+package org.voucher.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-point money arithmetic on long cents. Percentages are basis points
+// (1250 = 12.5%), so a discount is an exact integer product followed by one
+// rounded division, with no double and no BigDecimal on the evaluation path.
+public final class Money {
+
+    public static final int CENTS_PER_UNIT = 100;
+    public static final int BASIS_POINTS_PER_UNIT = 10_000;
+
+    private static final long MAX_BIASED_PRODUCT = Long.MAX_VALUE - BASIS_POINTS_PER_UNIT;
+
+    private Money() {
+    }
+
+    // basisPoints/10000 of the amount, rounded to a whole cent with the given mode
+    public static long percentOf(long cents, int basisPoints, RoundingMode rounding) {
+        long product = Math.multiplyExact(cents, (long) basisPoints);
+        // Discounts are non-negative, so the usual modes are a bias plus a division by a constant
+        if (product >= 0 && product <= MAX_BIASED_PRODUCT) {
+            if (rounding == RoundingMode.HALF_UP) {
+                return (product + BASIS_POINTS_PER_UNIT / 2) / BASIS_POINTS_PER_UNIT;
+            }
+            if (rounding == RoundingMode.DOWN || rounding == RoundingMode.FLOOR) {
+                return product / BASIS_POINTS_PER_UNIT;
+            }
+        }
+        return divide(product, BASIS_POINTS_PER_UNIT, rounding);
+    }
+
+    // dividend / divisor rounded with the given mode; divisor must be positive
+    public static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        // Java division truncates toward zero; signum is the direction away from zero
+        int signum = dividend < 0 ? -1 : 1;
+        boolean awayFromZero = switch (rounding) {
+            case DOWN -> false;
+            case UP -> true;
+            case FLOOR -> signum < 0;
+            case CEILING -> signum > 0;
+            case HALF_UP, HALF_DOWN, HALF_EVEN -> {
+                long twiceRemainder = 2 * Math.abs(remainder);
+                if (twiceRemainder != divisor) {
+                    yield twiceRemainder > divisor;
+                }
+                yield rounding == RoundingMode.HALF_UP
+                        || (rounding == RoundingMode.HALF_EVEN && (quotient & 1) != 0);
+            }
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        return awayFromZero ? quotient + signum : quotient;
+    }
+
+    public static long fromUnits(long units) {
+        return Math.multiplyExact(units, CENTS_PER_UNIT);
+    }
+
+    // Decimal amount to cents, rounding half up past the second decimal
+    public static long fromDecimal(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // Cents as a decimal amount with two places, for JSON and display only
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
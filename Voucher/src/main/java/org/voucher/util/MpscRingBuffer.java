@@ -0,0 +1,98 @@
+package org.voucher.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Bounded lock-free queue for many producers and a single consumer, after Vyukov's bounded MPMC queue.
+// Each slot carries a sequence number: a producer claims a position with one compare-and-set on the
+// tail and publishes its element by advancing the slot's sequence; the consumer takes the element
+// once the sequence says it is there. offer never blocks and never allocates: when the buffer is full
+// it returns false and the caller decides what to do with the element.
+public final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Written only by the consumer; volatile so size() can be read from any thread
+    private volatile long head;
+
+    // Capacity is rounded up to a power of two, and at least two: with a single slot a published
+    // element's sequence would look free to the next lap's producer
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Ring buffer capacity must be between 1 and 2^30");
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1);
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // Safe from any number of threads; false when the buffer is full
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer has not freed this slot since the last lap
+                return false;
+            } else {
+                // Another producer took this position first
+                position = tail.get();
+            }
+        }
+    }
+
+    // Hands up to limit elements to the consumer in the order they were offered and returns how many.
+    // Only one thread may drain at a time. Stops early at a slot whose producer has claimed it but not
+    // yet published its element; that element is picked up by the next drain.
+    public int drain(Consumer<? super E> consumer, int limit) {
+        long position = head;
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            E element = slots.get(index);
+            slots.lazySet(index, null);
+            sequences.set(index, position + mask + 1);
+            position++;
+            head = position;
+            drained++;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+
+    // Approximate when producers or the consumer are active
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,106 @@
+package org.voucher.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.RequestContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ApplicableCouponCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<List<Coupon>> loader = () -> {
+        loads.incrementAndGet();
+        return new ArrayList<>(List.of(new Coupon()));
+    };
+
+    @Test
+    void testSameCartInAnotherLineOrderIsAHit() {
+        ApplicableCouponCache cache = new ApplicableCouponCache(100, 60_000);
+        CartSummary cart = summary(new CartItem[]{new CartItem(1, 2, 1000), new CartItem(2, 1, 500)}, 1500, null);
+        CartSummary reordered = summary(new CartItem[]{new CartItem(2, 1, 500), new CartItem(1, 1, 500),
+                new CartItem(1, 1, 500)}, 1500, null);
+
+        List<Coupon> first = cache.get(cart, 1, TODAY, loader);
+        List<Coupon> second = cache.get(reordered, 1, TODAY, loader);
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertThrows(UnsupportedOperationException.class, () -> first.add(new Coupon()));
+    }
+
+    @Test
+    void testAnythingApplicabilityDependsOnMisses() {
+        ApplicableCouponCache cache = new ApplicableCouponCache(100, 60_000);
+        CartItem[] items = {new CartItem(1, 2, 1000)};
+        RequestContext vip = new RequestContext(Set.of("vip"), "EU", "web");
+
+        cache.get(summary(items, 1000, null), 1, TODAY, loader);
+        cache.get(summary(new CartItem[]{new CartItem(1, 3, 1000)}, 1000, null), 1, TODAY, loader);
+        cache.get(summary(items, 1001, null), 1, TODAY, loader);
+        cache.get(summary(items, 1000, vip), 1, TODAY, loader);
+        cache.get(summary(items, 1000, null), 2, TODAY, loader);
+        cache.get(summary(items, 1000, null), 1, TODAY.plusDays(1), loader);
+        cache.get(summary(items, 1000, new RequestContext(Set.of("vip"), "EU", "web")), 1, TODAY, loader);
+
+        assertEquals(6, loads.get());
+    }
+
+    @Test
+    void testInvalidateAllEmptiesTheCache() {
+        ApplicableCouponCache cache = new ApplicableCouponCache(100, 60_000);
+        CartSummary cart = summary(new CartItem[0], 0, null);
+        cache.get(cart, 1, TODAY, loader);
+
+        cache.invalidateAll();
+        cache.get(cart, 1, TODAY, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testHitRatioIsExposed() {
+        ApplicableCouponCache cache = new ApplicableCouponCache(100, 60_000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        CartSummary cart = summary(new CartItem[0], 0, null);
+
+        for (int i = 0; i < 4; i++) {
+            cache.get(cart, 1, TODAY, loader);
+        }
+
+        assertEquals(0.75, registry.get("coupon.applicable.cache.hit.ratio").gauge().value());
+        assertEquals(3.0, registry.get("cache.gets").tags("cache", ApplicableCouponCache.NAME, "result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testZeroSizeTurnsTheCacheOff() {
+        ApplicableCouponCache cache = new ApplicableCouponCache(0, 60_000);
+        CartSummary cart = summary(new CartItem[0], 0, null);
+
+        cache.get(cart, 1, TODAY, loader);
+        cache.get(cart, 1, TODAY, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    private static CartSummary summary(CartItem[] items, long totalCents, RequestContext context) {
+        CartRequest cart = new CartRequest(items, totalCents);
+        cart.setContext(context);
+        return CartSummary.of(cart);
+    }
+}
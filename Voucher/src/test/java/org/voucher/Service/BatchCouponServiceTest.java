@@ -0,0 +1,106 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import org.voucher.config.EvaluationExecutorFactory;
+import org.voucher.model.ApplyCouponResponse;
+import org.voucher.model.BatchCartRequest;
+import org.voucher.model.BatchCartResult;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchCouponServiceTest {
+
+    @Mock
+    private CouponService couponService;
+
+    private BatchCouponService batchCouponService;
+
+    @BeforeEach
+    void setUp() {
+        batchCouponService = new BatchCouponService(couponService, executorFactory(false), 4, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchCouponService.shutdown();
+    }
+
+    @Test
+    void testEvaluateKeepsOrderAndIsolatesErrors() {
+        Coupon coupon = new Coupon();
+        coupon.setId("1");
+        when(couponService.getCouponsByIds(Set.of("1", "missing"))).thenReturn(Map.of("1", coupon));
+        when(couponService.applyCouponToCart(eq(coupon), any(CartRequest.class)))
+                .thenReturn(new ApplyCouponResponse(new CartItem[0], 2000, 18000));
+        when(couponService.getApplicableCoupons(any(CartRequest.class))).thenReturn(List.of(coupon));
+
+        List<BatchCartResult> results = batchCouponService.evaluate(List.of(
+                entry("1"), entry("missing"), entry(null)));
+
+        assertEquals(3, results.size());
+        assertEquals(0, results.get(0).getIndex());
+        assertEquals(18000, results.get(0).getAppliedCoupon().getFinalPriceCents());
+        assertEquals("Coupon not found", results.get(1).getError());
+        assertEquals(List.of(coupon), results.get(2).getApplicableCoupons());
+        verify(couponService, times(1)).getCouponsByIds(any());
+    }
+
+    @Test
+    void testEvaluateReportsEvaluationFailuresPerCart() {
+        when(couponService.getApplicableCoupons(any(CartRequest.class))).thenThrow(new RuntimeException("boom"));
+
+        List<BatchCartResult> results = batchCouponService.evaluate(List.of(entry(null)));
+
+        assertEquals("boom", results.get(0).getError());
+        verify(couponService, never()).getCouponsByIds(any());
+    }
+
+    @Test
+    void testEvaluateRunsOnVirtualThreadsWhenEnabled() {
+        batchCouponService.shutdown();
+        batchCouponService = new BatchCouponService(couponService, executorFactory(true), 4, 10);
+        when(couponService.getApplicableCoupons(any(CartRequest.class))).thenAnswer(invocation -> {
+            assertTrue(Thread.currentThread().isVirtual());
+            return List.of();
+        });
+
+        List<BatchCartResult> results = batchCouponService.evaluate(List.of(entry(null), entry(null)));
+
+        assertNull(results.get(0).getError());
+        assertNull(results.get(1).getError());
+    }
+
+    private EvaluationExecutorFactory executorFactory(boolean virtualThreads) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", String.valueOf(virtualThreads));
+        return new EvaluationExecutorFactory(new ThreadPoolTaskExecutorBuilder(),
+                new SimpleAsyncTaskExecutorBuilder(), environment);
+    }
+
+    private BatchCartRequest entry(String couponId) {
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
+        BatchCartRequest entry = new BatchCartRequest();
+        entry.setCouponId(couponId);
+        entry.setCart(cart);
+        return entry;
+    }
+}
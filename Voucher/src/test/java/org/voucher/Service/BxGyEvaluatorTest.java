@@ -0,0 +1,226 @@
+package org.voucher.Service;
+
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.rule.BxGyRule;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BxGyEvaluatorTest {
+
+    private static final int PRODUCTS = 6;
+
+    @Example
+    void buyTwoGetOneOfTheSameProductNeedsThreeUnitsPerRepetition() {
+        BxGyRule rule = new BxGyRule(new int[]{1}, new int[]{2}, new int[]{1}, new int[]{1}, 5);
+        CartSummary summary = summary(new CartItem(1, 7, 700));
+
+        BxGyMatch match = BxGyEvaluator.evaluate(rule, summary);
+
+        assertEquals(2, match.repetitions());
+        assertEquals(1, match.size());
+        assertEquals(2, match.freeUnits(0));
+        assertEquals(200, match.discountCents());
+    }
+
+    @Example
+    void partOfALineIsWorthItsShareOfTheLinePriceRoundedDown() {
+        BxGyRule rule = new BxGyRule(new int[]{1}, new int[]{1}, new int[]{2}, new int[]{1}, 1);
+        CartSummary summary = summary(new CartItem(1, 1, 500), new CartItem(2, 3, 1000));
+
+        BxGyMatch match = BxGyEvaluator.evaluate(rule, summary);
+
+        assertEquals(1, match.line(0));
+        assertEquals(333, match.discountCents());
+    }
+
+    @Property
+    void discountIsTheSumOfTheFreeLinesAndNoMoreThanTheirPrice(@ForAll("rules") BxGyRule rule,
+                                                             @ForAll("carts") CartItem[] items) {
+        BxGyMatch match = BxGyEvaluator.evaluate(rule, summary(items));
+
+        long total = 0;
+        boolean[] seen = new boolean[items.length];
+        for (int i = 0; i < match.size(); i++) {
+            CartItem item = items[match.line(i)];
+            assertFalse(seen[match.line(i)], "a line is listed once");
+            seen[match.line(i)] = true;
+            assertTrue(rule.getIndexOf(item.getProductId()) >= 0);
+            assertTrue(match.freeUnits(i) > 0 && match.freeUnits(i) <= item.getQuantity());
+            assertTrue(match.freeCents(i) >= 0 && match.freeCents(i) <= item.getPriceCents());
+            total += match.freeCents(i);
+        }
+        assertEquals(total, match.discountCents());
+    }
+
+    @Property
+    void repetitionsAreTheMostTimesTheBuyConditionIsMet(@ForAll("rules") BxGyRule rule,
+                                                        @ForAll("carts") CartItem[] items) {
+        CartSummary summary = summary(items);
+        int repetitions = BxGyEvaluator.repetitions(rule, summary);
+
+        assertTrue(repetitions >= 0 && repetitions <= rule.repetitionLimit());
+        boolean oneMoreFits = true;
+        for (int i = 0; i < rule.buyCount(); i++) {
+            int quantity = summary.quantity(rule.buyProductId(i));
+            assertTrue(quantity >= repetitions * rule.buyNeed(i));
+            oneMoreFits &= quantity >= (repetitions + 1) * rule.buyNeed(i);
+        }
+        assertTrue(repetitions == rule.repetitionLimit() || !oneMoreFits);
+    }
+
+    @Property
+    void everyGetProductGivesAsManyFreeUnitsAsTheRepetitionsAndSpareUnitsAllow(
+            @ForAll("rules") BxGyRule rule, @ForAll("carts") CartItem[] items) {
+        CartSummary summary = summary(items);
+        BxGyMatch match = BxGyEvaluator.evaluate(rule, summary);
+        int repetitions = BxGyEvaluator.repetitions(rule, summary);
+
+        long[] free = freeUnitsByGetProduct(rule, items, match);
+        for (int j = 0; j < rule.getCount(); j++) {
+            long spare = summary.quantity(rule.getProductId(j)) - (long) repetitions * rule.getBoughtQuantity(j);
+            long expected = Math.max(0, Math.min((long) repetitions * rule.getQuantity(j), spare));
+            if (match.size() > 0) {
+                assertEquals(expected, free[j]);
+            } else {
+                assertEquals(0, expected);
+            }
+        }
+    }
+
+    @Property
+    void freeUnitsComeFromTheCheapestOrDearestLinesFirst(@ForAll("rules") BxGyRule rule,
+                                                        @ForAll("carts") CartItem[] items) {
+        BxGyMatch match = BxGyEvaluator.evaluate(rule, summary(items));
+
+        int[] freeUnits = new int[items.length];
+        for (int i = 0; i < match.size(); i++) {
+            freeUnits[match.line(i)] = match.freeUnits(i);
+        }
+        int sign = rule.freeItems() == BxGyRule.FreeItems.CHEAPEST ? 1 : -1;
+        for (int free = 0; free < items.length; free++) {
+            for (int paid = 0; paid < items.length; paid++) {
+                if (freeUnits[free] > 0 && freeUnits[paid] < items[paid].getQuantity()
+                        && items[free].getProductId() == items[paid].getProductId() && free != paid) {
+                    // free unit price <= paid unit price, or >= for MOST_EXPENSIVE
+                    long freePrice = items[free].getPriceCents() * items[paid].getQuantity();
+                    long paidPrice = items[paid].getPriceCents() * items[free].getQuantity();
+                    assertTrue(sign * Long.compare(freePrice, paidPrice) <= 0,
+                            "line " + free + " is free before line " + paid);
+                }
+            }
+        }
+    }
+
+    @Property
+    void lineOrderDoesNotChangeTheOutcome(@ForAll("rules") BxGyRule rule, @ForAll("carts") CartItem[] items) {
+        CartItem[] reversed = new CartItem[items.length];
+        for (int i = 0; i < items.length; i++) {
+            reversed[items.length - 1 - i] = items[i];
+        }
+
+        BxGyMatch match = BxGyEvaluator.evaluate(rule, summary(items));
+        BxGyMatch reversedMatch = BxGyEvaluator.evaluate(rule, summary(reversed));
+
+        assertEquals(match.repetitions(), reversedMatch.repetitions());
+        assertEquals(match.discountCents(), reversedMatch.discountCents());
+    }
+
+    @Property
+    void applicableExactlyWhenSomethingBecomesFree(@ForAll("rules") BxGyRule rule,
+                                                   @ForAll("carts") CartItem[] items) {
+        CartSummary summary = summary(items);
+
+        assertEquals(BxGyEvaluator.evaluate(rule, summary).size() > 0, BxGyEvaluator.isApplicable(rule, summary));
+    }
+
+    @Property
+    void moreOfAProductThatIsOnlyBoughtNeverLowersTheDiscount(@ForAll("rules") BxGyRule rule,
+                                                              @ForAll("carts") CartItem[] items) {
+        int buyOnly = -1;
+        for (int i = 0; i < rule.buyCount() && buyOnly < 0; i++) {
+            if (rule.getIndexOf(rule.buyProductId(i)) < 0) {
+                buyOnly = rule.buyProductId(i);
+            }
+        }
+        if (buyOnly < 0) {
+            return;
+        }
+        CartItem[] more = Arrays.copyOf(items, items.length + 1);
+        more[items.length] = new CartItem(buyOnly, 3, 100);
+
+        assertTrue(BxGyEvaluator.evaluate(rule, summary(more)).discountCents()
+                >= BxGyEvaluator.evaluate(rule, summary(items)).discountCents());
+    }
+
+    @Property
+    void evaluationLeavesTheCartUntouched(@ForAll("rules") BxGyRule rule, @ForAll("carts") CartItem[] items) {
+        CartItem[] before = new CartItem[items.length];
+        for (int i = 0; i < items.length; i++) {
+            before[i] = items[i].copy();
+        }
+
+        BxGyEvaluator.evaluate(rule, summary(items));
+
+        assertArrayEquals(before, items);
+    }
+
+    @Provide
+    Arbitrary<BxGyRule> rules() {
+        Arbitrary<Set<Integer>> buy = Arbitraries.integers().between(1, PRODUCTS).set().ofMinSize(1).ofMaxSize(3);
+        Arbitrary<Set<Integer>> get = Arbitraries.integers().between(1, PRODUCTS).set().ofMinSize(1).ofMaxSize(2);
+        Arbitrary<List<Integer>> quantities = Arbitraries.integers().between(1, 3).list().ofSize(5);
+        return Combinators.combine(buy, get, quantities, Arbitraries.integers().between(1, 5),
+                        Arbitraries.of(BxGyRule.FreeItems.class))
+                .as((buyIds, getIds, counts, limit, freeItems) -> {
+                    int[] buyProducts = buyIds.stream().mapToInt(Integer::intValue).toArray();
+                    int[] getProducts = getIds.stream().mapToInt(Integer::intValue).toArray();
+                    int[] buyQuantities = new int[buyProducts.length];
+                    int[] getQuantities = new int[getProducts.length];
+                    for (int i = 0; i < buyProducts.length; i++) {
+                        buyQuantities[i] = counts.get(i);
+                    }
+                    for (int j = 0; j < getProducts.length; j++) {
+                        getQuantities[j] = counts.get(3 + j);
+                    }
+                    return new BxGyRule(buyProducts, buyQuantities, getProducts, getQuantities, limit, freeItems);
+                });
+    }
+
+    @Provide
+    Arbitrary<CartItem[]> carts() {
+        Arbitrary<CartItem> line = Combinators.combine(
+                        Arbitraries.integers().between(1, PRODUCTS),
+                        Arbitraries.integers().between(1, 6),
+                        Arbitraries.longs().between(0, 10_000))
+                .as(CartItem::new);
+        return line.list().ofMaxSize(12).map(lines -> lines.toArray(new CartItem[0]));
+    }
+
+    private static long[] freeUnitsByGetProduct(BxGyRule rule, CartItem[] items, BxGyMatch match) {
+        long[] free = new long[rule.getCount()];
+        for (int i = 0; i < match.size(); i++) {
+            free[rule.getIndexOf(items[match.line(i)].getProductId())] += match.freeUnits(i);
+        }
+        return free;
+    }
+
+    private static CartSummary summary(CartItem... items) {
+        long total = 0;
+        for (CartItem item : items) {
+            total += item.getPriceCents();
+        }
+        return CartSummary.of(new CartRequest(items, total));
+    }
+}
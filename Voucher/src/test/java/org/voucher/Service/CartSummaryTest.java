@@ -0,0 +1,39 @@
+package org.voucher.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CartSummaryTest {
+
+    @Test
+    void testAggregatesLinesPerProduct() {
+        CartSummary summary = CartSummary.of(new CartRequest(new CartItem[]{
+                new CartItem(9, 1, 300), new CartItem(4, 2, 150), new CartItem(9, 3, 200)}, 1000));
+
+        assertArrayEquals(new int[]{4, 9}, summary.productIds());
+        assertEquals(2, summary.lines(9));
+        assertEquals(4, summary.quantity(9));
+        assertEquals(500, summary.linePriceCents(9));
+        assertFalse(summary.contains(5));
+        assertEquals(0, summary.linePriceCents(5));
+        assertEquals(1000, summary.totalCents());
+    }
+
+    @Test
+    void testDecodesPricesFromJsonIntoCents() throws Exception {
+        String json = "{\"items\":[{\"product_id\":7,\"quantity\":2,\"price\":19.99},"
+                + "{\"product_id\":3,\"quantity\":1,\"price\":5}],\"totalPrice\":44.98}";
+
+        CartRequest cart = new ObjectMapper().readValue(json, CartRequest.class);
+        CartSummary summary = CartSummary.of(cart);
+
+        assertEquals(4498, summary.totalCents());
+        assertEquals(1999, summary.linePriceCents(7));
+        assertEquals(500, summary.linePriceCents(3));
+        assertEquals(2, summary.quantity(7));
+    }
+}
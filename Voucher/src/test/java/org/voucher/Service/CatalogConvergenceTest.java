@@ -0,0 +1,159 @@
+package org.voucher.Service;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.voucher.VoucherApplication;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+import org.voucher.repository.CatalogChangeRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Three application contexts (three nodes) writing to one mongod at the same time must end up
+// with the same catalog at the same version. Run with ./gradlew embeddedMongoTest
+@Tag("embedded-mongo")
+public class CatalogConvergenceTest {
+
+    private static final int NODES = 3;
+    private static final int COUPONS = 300;
+
+    @Test
+    void testNodesConvergeOnTheSameCatalog() throws Exception {
+        try (TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance().start(Version.Main.V7_0)) {
+            ServerAddress address = mongod.current().getServerAddress();
+            String uri = "mongodb://" + address.getHost() + ":" + address.getPort() + "/convergence";
+            List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+            try {
+                for (int i = 0; i < NODES; i++) {
+                    nodes.add(startNode(uri));
+                }
+                List<String> ids = createCoupons(nodes.get(0).getBean(CouponService.class));
+                writeConcurrently(nodes, ids);
+
+                long target = nodes.get(0).getBean(CatalogChangeRepository.class).currentVersion();
+                awaitVersion(nodes, target);
+                Map<String, Map<String, Object>> expected = catalogOf(nodes.get(0));
+                for (ConfigurableApplicationContext node : nodes) {
+                    assertEquals(target, node.getBean(CatalogSync.class).version());
+                    assertEquals(expected, catalogOf(node));
+                }
+                assertTrue(expected.size() < COUPONS, "some coupons were deleted");
+            } finally {
+                nodes.forEach(ConfigurableApplicationContext::close);
+            }
+        }
+    }
+
+    // The second node's code filter was built before the coupon existed and is not due for a rebuild,
+    // so only the change log can make the code findable there
+    @Test
+    void testCodeCreatedOnOneNodeIsFoundOnAnother() throws Exception {
+        try (TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance().start(Version.Main.V7_0)) {
+            ServerAddress address = mongod.current().getServerAddress();
+            String uri = "mongodb://" + address.getHost() + ":" + address.getPort() + "/convergence";
+            List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+            try {
+                nodes.add(startNode(uri));
+                nodes.add(startNode(uri));
+                CouponService first = nodes.get(0).getBean(CouponService.class);
+                CouponService second = nodes.get(1).getBean(CouponService.class);
+                Coupon coupon = coupon(10);
+                coupon.setCode("SYNCED-10");
+
+                String id = first.createCoupon(coupon).getId();
+                awaitVersion(nodes, nodes.get(0).getBean(CatalogChangeRepository.class).currentVersion());
+
+                assertEquals(Optional.of(id), second.getCouponByCode("synced-10").map(Coupon::getId));
+            } finally {
+                nodes.forEach(ConfigurableApplicationContext::close);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(String uri) {
+        return new SpringApplicationBuilder(VoucherApplication.class)
+                .properties(
+                        "spring.data.mongodb.uri=" + uri,
+                        "spring.data.mongodb.database=convergence",
+                        "spring.autoconfigure.exclude="
+                                + "de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration",
+                        "server.port=0",
+                        "voucher.catalog.sync-interval-ms=50")
+                .run();
+    }
+
+    private static List<String> createCoupons(CouponService service) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < COUPONS; i++) {
+            ids.add(service.createCoupon(coupon(10 + i % 50)).getId());
+        }
+        return ids;
+    }
+
+    // Every node updates and deletes coupons at random, all at once
+    private static void writeConcurrently(List<ConfigurableApplicationContext> nodes, List<String> ids) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ConfigurableApplicationContext node : nodes) {
+                CouponService service = node.getBean(CouponService.class);
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 200; i++) {
+                        String id = ids.get(random.nextInt(ids.size()));
+                        try {
+                            if (random.nextInt(5) == 0) {
+                                service.deleteCoupon(id);
+                            } else {
+                                service.updateCoupon(id, coupon(1 + random.nextInt(90)));
+                            }
+                        } catch (RuntimeException e) {
+                            // another node deleted it first
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private static void awaitVersion(List<ConfigurableApplicationContext> nodes, long target) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            if (nodes.stream().allMatch(node -> node.getBean(CatalogSync.class).version() >= target)) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static Map<String, Map<String, Object>> catalogOf(ConfigurableApplicationContext node) {
+        Map<String, Map<String, Object>> catalog = new TreeMap<>();
+        for (Coupon coupon : node.getBean(CouponCatalog.class).getActiveCoupons(LocalDate.now())) {
+            catalog.put(coupon.getId(), coupon.getDetails());
+        }
+        return catalog;
+    }
+
+    private static Coupon coupon(int discount) {
+        Coupon coupon = new Coupon();
+        coupon.setType(CouponType.CART_WISE);
+        coupon.setDetails(Map.of("threshold", 100, "discount", discount));
+        return coupon;
+    }
+}
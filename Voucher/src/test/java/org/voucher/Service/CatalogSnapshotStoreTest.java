@@ -0,0 +1,126 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+import org.voucher.model.DailyWindow;
+import org.voucher.model.Targeting;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private MappingMongoConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        // Set up like Spring Boot's converter, which knows java.time types
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    private CatalogSnapshotStore store(Path file) {
+        return new CatalogSnapshotStore(converter, file.toString());
+    }
+
+    @Test
+    void testWrittenSnapshotReadsBackTheSameCoupons() {
+        Path file = directory.resolve("snapshots/catalog.bin");
+        Coupon bxgy = coupon("1", CouponType.BXGY, Map.of(
+                "buy_products", List.of(Map.of("product_id", 1, "quantity", 2)),
+                "get_products", List.of(Map.of("product_id", 3, "quantity", 1)),
+                "repition_limit", 2));
+        bxgy.setCode("BF24-K3X9");
+        bxgy.setValidFrom(Instant.parse("2024-06-01T10:00:00Z"));
+        bxgy.setDailyWindow(new DailyWindow(LocalTime.of(17, 0), LocalTime.of(19, 0), "Europe/Paris"));
+        Targeting targeting = new Targeting();
+        targeting.setRegions(Set.of("EU"));
+        bxgy.setTargeting(targeting);
+        bxgy.setMaxRedemptions(100);
+        List<Coupon> coupons = List.of(bxgy, coupon("2", CouponType.CART_WISE, Map.of("threshold", 100, "discount", 12.5)));
+
+        store(file).write(42, coupons);
+        Optional<CatalogSnapshotStore.Snapshot> read = store(file).read();
+
+        assertTrue(read.isPresent());
+        assertEquals(42, read.get().version());
+        assertEquals(coupons, read.get().coupons());
+        assertFalse(Files.exists(directory.resolve("snapshots/catalog.bin.tmp")));
+    }
+
+    @Test
+    void testNewerSnapshotReplacesTheOldOne() {
+        Path file = directory.resolve("catalog.bin");
+        store(file).write(1, List.of(coupon("1", CouponType.CART_WISE, Map.of("threshold", 100, "discount", 10))));
+
+        store(file).write(2, List.of());
+
+        assertEquals(2, store(file).read().orElseThrow().version());
+        assertEquals(List.of(), store(file).read().orElseThrow().coupons());
+    }
+
+    @Test
+    void testCorruptOrMissingSnapshotIsIgnored() throws IOException {
+        Path file = directory.resolve("catalog.bin");
+        assertTrue(store(file).read().isEmpty());
+
+        store(file).write(7, List.of(coupon("1", CouponType.CART_WISE, Map.of("threshold", 100, "discount", 10))));
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(30);
+            int flipped = raw.read() ^ 0xFF;
+            raw.seek(30);
+            raw.write(flipped);
+        }
+        assertTrue(store(file).read().isEmpty());
+
+        Files.writeString(file, "not a snapshot");
+        assertTrue(store(file).read().isEmpty());
+    }
+
+    @Test
+    void testDisabledStoreNeitherReadsNorWrites() {
+        CatalogSnapshotStore disabled = new CatalogSnapshotStore(converter, "");
+
+        disabled.write(1, List.of());
+
+        assertFalse(disabled.isEnabled());
+        assertTrue(disabled.read().isEmpty());
+    }
+
+    private static Coupon coupon(String id, CouponType type, Map<String, Object> details) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setType(type);
+        coupon.setDetails(details);
+        coupon.setActive(true);
+        coupon.setCreationDate(LocalDate.of(2024, 6, 1));
+        coupon.setExpirationDate(LocalDate.of(2024, 8, 1));
+        return coupon;
+    }
+}
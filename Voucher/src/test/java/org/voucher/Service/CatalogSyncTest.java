@@ -0,0 +1,221 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.voucher.model.CatalogChange;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+import org.voucher.repository.CatalogChangeRepository;
+import org.voucher.repository.CouponRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogSyncTest {
+
+    @Mock
+    private CatalogChangeRepository changeRepository;
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private CatalogSnapshotStore snapshotStore;
+
+    @Mock
+    private CouponCodeIndex codeIndex;
+
+    private CouponCatalog couponCatalog;
+
+    @BeforeEach
+    void setUp() {
+        couponCatalog = new CouponCatalog(couponRepository);
+    }
+
+    private CatalogSync sync(long gapTimeoutMillis) {
+        return new CatalogSync(changeRepository, couponRepository, couponCatalog, codeIndex, snapshotStore, 1000, gapTimeoutMillis, 5000);
+    }
+
+    @Test
+    void testStartReadsTheVersionBeforeLoadingTheCatalog() {
+        when(changeRepository.currentVersion()).thenReturn(7L);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon("1")));
+        CatalogSync sync = sync(10_000);
+
+        sync.start();
+
+        InOrder order = inOrder(changeRepository, couponRepository);
+        order.verify(changeRepository).currentVersion();
+        order.verify(couponRepository).findAll();
+        assertEquals(7, sync.version());
+        assertEquals(1, couponCatalog.size());
+    }
+
+    @Test
+    void testPollAppliesOnlyTheLatestChangePerCoupon() {
+        couponCatalog.upsert(coupon("kept"));
+        couponCatalog.upsert(coupon("deleted"));
+        when(changeRepository.findAfter(0, 1000)).thenReturn(List.of(
+                change(1, CatalogChange.Kind.UPSERT, "new"),
+                change(2, CatalogChange.Kind.DELETE, "deleted"),
+                change(3, CatalogChange.Kind.UPSERT, "gone"),
+                change(4, CatalogChange.Kind.DELETE, "new"),
+                change(5, CatalogChange.Kind.UPSERT, "new")));
+        // "gone" was deleted from Mongo before this node polled
+        Coupon added = coupon("new");
+        added.setCode("NEW-10");
+        when(couponRepository.findAllById(List.of("new", "gone"))).thenReturn(List.of(added));
+        CatalogSync sync = sync(10_000);
+
+        sync.poll();
+
+        assertEquals(5, sync.version());
+        assertTrue(couponCatalog.find("kept").isPresent());
+        assertTrue(couponCatalog.find("new").isPresent());
+        assertFalse(couponCatalog.find("deleted").isPresent());
+        assertFalse(couponCatalog.find("gone").isPresent());
+        // The code written on another node becomes findable here
+        verify(codeIndex).add("NEW-10");
+    }
+
+    @Test
+    void testPollStopsAtAGapUntilItTimesOut() {
+        when(changeRepository.findAfter(0, 1000)).thenReturn(List.of(
+                change(1, CatalogChange.Kind.UPSERT, "a"), change(3, CatalogChange.Kind.UPSERT, "c")));
+        when(changeRepository.findAfter(1, 1000)).thenReturn(List.of(change(3, CatalogChange.Kind.UPSERT, "c")));
+        when(couponRepository.findAllById(List.of("a"))).thenReturn(List.of(coupon("a")));
+        CatalogSync patient = sync(10_000);
+
+        patient.poll();
+
+        assertEquals(1, patient.version());
+        assertFalse(couponCatalog.find("c").isPresent());
+        assertFalse(patient.isCaughtUp());
+        verify(couponRepository, never()).findAll();
+
+        // With no patience left the node reloads and jumps to the current version
+        when(changeRepository.currentVersion()).thenReturn(3L);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon("a"), coupon("c")));
+        when(changeRepository.findAfter(3, 1000)).thenReturn(List.of());
+        CatalogSync impatient = sync(0);
+
+        impatient.poll();
+
+        assertEquals(3, impatient.version());
+        assertTrue(couponCatalog.find("c").isPresent());
+        assertTrue(impatient.isCaughtUp());
+    }
+
+    @Test
+    void testReloadChangeReloadsTheWholeCatalog() {
+        when(changeRepository.findAfter(0, 1000)).thenReturn(List.of(
+                change(1, CatalogChange.Kind.UPSERT, "a"), change(2, CatalogChange.Kind.RELOAD, null)));
+        when(changeRepository.findAfter(2, 1000)).thenReturn(List.of());
+        when(couponRepository.findAll()).thenReturn(List.of(coupon("a"), coupon("b")));
+        CatalogSync sync = sync(10_000);
+
+        sync.poll();
+
+        assertEquals(2, sync.version());
+        assertEquals(2, couponCatalog.size());
+        verify(couponRepository, never()).findAllById(any());
+        verify(codeIndex).rebuild();
+    }
+
+    @Test
+    void testReloadEverywhereDoesNotReloadTwice() {
+        when(changeRepository.nextVersion()).thenReturn(4L);
+        when(changeRepository.currentVersion()).thenReturn(4L);
+        when(changeRepository.findAfter(anyLong(), anyInt())).thenReturn(List.of());
+        CatalogSync sync = sync(10_000);
+
+        sync.reloadEverywhere();
+        sync.poll();
+
+        verify(changeRepository).insert(argThat((CatalogChange change) ->
+                change.getVersion() == 4 && change.getKind() == CatalogChange.Kind.RELOAD));
+        verify(couponRepository, times(1)).findAll();
+        verify(codeIndex, times(1)).rebuild();
+        verify(changeRepository).findAfter(4, 1000);
+    }
+
+    @Test
+    void testStartRestoresTheSnapshotAndCatchesUpOnTheLog() {
+        when(snapshotStore.read()).thenReturn(Optional.of(
+                new CatalogSnapshotStore.Snapshot(5, List.of(coupon("a"), coupon("b")))));
+        when(changeRepository.currentVersion()).thenReturn(6L);
+        when(changeRepository.findAfter(5, 1)).thenReturn(List.of(change(6, CatalogChange.Kind.DELETE, "b")));
+        when(changeRepository.findAfter(5, 1000)).thenReturn(List.of(change(6, CatalogChange.Kind.DELETE, "b")));
+        when(changeRepository.findAfter(6, 1000)).thenReturn(List.of());
+        CatalogSync sync = sync(10_000);
+
+        sync.start();
+
+        assertEquals(6, sync.version());
+        assertTrue(couponCatalog.find("a").isPresent());
+        assertFalse(couponCatalog.find("b").isPresent());
+        verify(couponRepository, never()).findAll();
+    }
+
+    @Test
+    void testStartReloadsWhenTheLogNoLongerReachesBackToTheSnapshot() {
+        when(snapshotStore.read()).thenReturn(Optional.of(
+                new CatalogSnapshotStore.Snapshot(5, List.of(coupon("stale")))));
+        when(changeRepository.currentVersion()).thenReturn(90L);
+        // Versions 6 to 49 have expired from the log
+        when(changeRepository.findAfter(5, 1)).thenReturn(List.of(change(50, CatalogChange.Kind.UPSERT, "x")));
+        when(couponRepository.findAll()).thenReturn(List.of(coupon("fresh")));
+        CatalogSync sync = sync(10_000);
+
+        sync.start();
+
+        assertEquals(90, sync.version());
+        assertFalse(couponCatalog.find("stale").isPresent());
+        assertTrue(couponCatalog.find("fresh").isPresent());
+    }
+
+    @Test
+    void testWriteSnapshotSavesTheAppliedVersionWithTheCatalog() {
+        when(snapshotStore.isEnabled()).thenReturn(true);
+        when(changeRepository.findAfter(0, 1000)).thenReturn(List.of(change(1, CatalogChange.Kind.UPSERT, "a")));
+        when(changeRepository.findAfter(1, 1000)).thenReturn(List.of());
+        when(couponRepository.findAllById(List.of("a"))).thenReturn(List.of(coupon("a")));
+        CatalogSync sync = sync(10_000);
+        sync.poll();
+
+        sync.writeSnapshot();
+
+        verify(snapshotStore).write(eq(1L), argThat((List<Coupon> coupons) ->
+                coupons.size() == 1 && coupons.get(0).getId().equals("a")));
+    }
+
+    private static CatalogChange change(long version, CatalogChange.Kind kind, String couponId) {
+        return new CatalogChange(version, kind, couponId, Instant.now());
+    }
+
+    private static Coupon coupon(String id) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setType(CouponType.CART_WISE);
+        coupon.setDetails(Map.of("threshold", 100, "discount", 10));
+        coupon.setActive(true);
+        coupon.setCreationDate(LocalDate.now());
+        coupon.setExpirationDate(LocalDate.now().plusDays(30));
+        return coupon;
+    }
+}
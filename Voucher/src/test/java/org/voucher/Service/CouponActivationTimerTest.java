@@ -0,0 +1,65 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CouponActivationTimerTest {
+
+    private static final Instant T = Instant.parse("2024-06-01T10:00:00Z");
+    // Before every transition the pollDue tests schedule, so the timer thread never fires them itself
+    private static final Clock BEFORE_T = Clock.fixed(T.minusSeconds(3600), ZoneOffset.UTC);
+
+    private final BlockingQueue<String> fired = new LinkedBlockingQueue<>();
+    private CouponActivationTimer timer;
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void testPollDueReturnsTransitionsInTimeOrder() {
+        timer = new CouponActivationTimer(BEFORE_T, fired::add);
+        timer.schedule("b", T.plusSeconds(20));
+        timer.schedule("a", T.plusSeconds(10));
+        timer.schedule("c", T.plusSeconds(30));
+
+        assertEquals(List.of("a", "b"), timer.pollDue(T.plusSeconds(20)));
+        assertEquals(1, timer.pendingCount());
+    }
+
+    @Test
+    void testRescheduleAndCancelSupersedeQueuedEntries() {
+        timer = new CouponActivationTimer(BEFORE_T, fired::add);
+        timer.schedule("a", T.plusSeconds(10));
+        timer.schedule("a", T.plusSeconds(30));
+        timer.schedule("b", T.plusSeconds(10));
+        timer.cancel("b");
+
+        assertEquals(List.of(), timer.pollDue(T.plusSeconds(20)));
+        assertEquals(List.of("a"), timer.pollDue(T.plusSeconds(30)));
+    }
+
+    @Test
+    void testFiresAtTheScheduledInstant() throws Exception {
+        timer = new CouponActivationTimer(Clock.systemUTC(), fired::add);
+        timer.schedule("later", Instant.now().plusSeconds(3600));
+        Instant due = Instant.now().plusMillis(100);
+        // Earlier than the head, so the sleeping thread has to be woken
+        timer.schedule("soon", due);
+
+        assertEquals("soon", fired.poll(5, TimeUnit.SECONDS));
+        assertFalse(Instant.now().isBefore(due));
+        assertNull(fired.poll(100, TimeUnit.MILLISECONDS));
+    }
+}
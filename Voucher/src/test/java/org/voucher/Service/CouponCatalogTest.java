@@ -0,0 +1,215 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+import org.voucher.model.DailyWindow;
+import org.voucher.model.RequestContext;
+import org.voucher.model.Targeting;
+import org.voucher.repository.CouponRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CouponCatalogTest {
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    private CouponCatalog couponCatalog;
+
+    @BeforeEach
+    void setUp() {
+        couponCatalog = new CouponCatalog(couponRepository);
+    }
+
+    @Test
+    void testReloadKeepsOnlyActiveCoupons() {
+        Coupon inactive = coupon("2", LocalDate.now().plusDays(5));
+        inactive.setActive(false);
+        when(couponRepository.findAll()).thenReturn(List.of(
+                coupon("1", LocalDate.now().plusDays(5)),
+                inactive,
+                coupon("3", LocalDate.now().minusDays(1))));
+
+        couponCatalog.reload();
+
+        List<Coupon> active = couponCatalog.getActiveCoupons(LocalDate.now());
+        assertEquals(1, active.size());
+        assertEquals("1", active.get(0).getId());
+    }
+
+    @Test
+    void testUpsertReplacesAndDropsDeactivatedCoupons() {
+        Coupon coupon = coupon("1", LocalDate.now().plusDays(5));
+        couponCatalog.upsert(coupon);
+        assertEquals(1, couponCatalog.size());
+
+        Coupon deactivated = coupon("1", LocalDate.now().plusDays(5));
+        deactivated.setActive(false);
+        couponCatalog.upsert(deactivated);
+
+        assertEquals(0, couponCatalog.size());
+    }
+
+    @Test
+    void testEvictExpired() {
+        couponCatalog.upsert(coupon("1", LocalDate.now().plusDays(1)));
+        couponCatalog.upsert(coupon("2", LocalDate.now().plusDays(10)));
+
+        couponCatalog.evictExpired(LocalDate.now().plusDays(2));
+
+        assertEquals(1, couponCatalog.size());
+        assertTrue(couponCatalog.getActiveCoupons(LocalDate.now()).stream()
+                .anyMatch(c -> c.getId().equals("2")));
+    }
+
+    @Test
+    void testFindCandidatesUsesThresholdAndProductIndexes() {
+        couponCatalog.upsert(coupon("cart-low", LocalDate.now().plusDays(5)));
+        Coupon highThreshold = coupon("cart-high", LocalDate.now().plusDays(5));
+        highThreshold.setDetails(Map.of("threshold", 500, "discount", 10));
+        couponCatalog.upsert(highThreshold);
+        Coupon productWise = coupon("product", LocalDate.now().plusDays(5));
+        productWise.setType(CouponType.PRODUCT_WISE);
+        productWise.setDetails(Map.of("product_id", 7, "discount", 20));
+        couponCatalog.upsert(productWise);
+        Coupon bxgy = coupon("bxgy", LocalDate.now().plusDays(5));
+        bxgy.setType(CouponType.BXGY);
+        bxgy.setDetails(Map.of(
+                "buy_products", List.of(Map.of("product_id", 8, "quantity", 1)),
+                "get_products", List.of(Map.of("product_id", 9, "quantity", 1)),
+                "repetition_limit", 1));
+        couponCatalog.upsert(bxgy);
+
+        List<String> smallCart = couponCatalog.findCandidates(cart(10000, 7), LocalDate.now()).stream()
+                .map(compiled -> compiled.coupon().getId()).toList();
+        List<String> largeCart = couponCatalog.findCandidates(cart(60000, 8), LocalDate.now()).stream()
+                .map(compiled -> compiled.coupon().getId()).toList();
+
+        // threshold 100 is not strictly below a total of 100
+        assertEquals(List.of("product"), smallCart);
+        assertEquals(List.of("cart-low", "cart-high", "bxgy"), largeCart);
+    }
+
+    @Test
+    void testFindCandidatesKeepsOnlyCouponsTargetingTheRequest() {
+        couponCatalog.upsert(coupon("everyone", LocalDate.now().plusDays(5)));
+        Coupon vip = coupon("vip", LocalDate.now().plusDays(5));
+        vip.setTargeting(new Targeting(Set.of("vip"), null, null));
+        couponCatalog.upsert(vip);
+        Coupon vipInFrance = coupon("vip-fr", LocalDate.now().plusDays(5));
+        vipInFrance.setTargeting(new Targeting(Set.of("vip", "staff"), Set.of("FR"), null));
+        couponCatalog.upsert(vipInFrance);
+        Coupon app = coupon("app", LocalDate.now().plusDays(5));
+        app.setTargeting(new Targeting(null, null, Set.of("app")));
+        couponCatalog.upsert(app);
+
+        assertEquals(List.of("everyone"), candidateIds(null));
+        assertEquals(List.of("everyone", "vip"), candidateIds(new RequestContext(Set.of("vip"), "DE", "web")));
+        assertEquals(List.of("everyone", "vip", "vip-fr", "app"),
+                candidateIds(new RequestContext(Set.of("new", "vip"), "FR", "app")));
+        assertEquals(List.of("everyone", "vip-fr"), candidateIds(new RequestContext(Set.of("staff"), "FR", null)));
+    }
+
+    private List<String> candidateIds(RequestContext context) {
+        CartRequest cart = new CartRequest(new CartItem[0], 60000);
+        cart.setContext(context);
+        return couponCatalog.findCandidates(CartSummary.of(cart), LocalDate.now()).stream()
+                .map(compiled -> compiled.coupon().getId()).toList();
+    }
+
+    @Test
+    void testScheduledCouponIsPublishedOnlyWhileOpen() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-06-01T10:00:00Z"));
+        CouponCatalog scheduled = new CouponCatalog(couponRepository, clock);
+        Coupon happyHour = coupon("happy-hour", LocalDate.now().plusDays(5));
+        happyHour.setDailyWindow(new DailyWindow(LocalTime.of(17, 0), LocalTime.of(19, 0), "UTC"));
+        Coupon flashSale = coupon("flash-sale", LocalDate.now().plusDays(5));
+        flashSale.setValidUntil(Instant.parse("2024-06-01T11:00:00Z"));
+        try {
+            scheduled.upsert(happyHour);
+            scheduled.upsert(flashSale);
+            assertEquals(List.of("flash-sale"), ids(scheduled));
+
+            clock.set(Instant.parse("2024-06-01T11:00:00Z"));
+            scheduled.runDueTransitions();
+            assertEquals(List.of(), ids(scheduled));
+
+            clock.set(Instant.parse("2024-06-01T17:00:00Z"));
+            scheduled.runDueTransitions();
+            assertEquals(List.of("happy-hour"), ids(scheduled));
+
+            clock.set(Instant.parse("2024-06-01T19:00:00Z"));
+            scheduled.runDueTransitions();
+            assertEquals(List.of(), ids(scheduled));
+        } finally {
+            scheduled.shutdown();
+        }
+    }
+
+    private List<String> ids(CouponCatalog catalog) {
+        return catalog.getActiveCoupons(LocalDate.now()).stream().map(Coupon::getId).toList();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void set(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    // A single-line cart with the given total
+    private CartSummary cart(long totalCents, int productId) {
+        return CartSummary.of(new CartRequest(new CartItem[]{new CartItem(productId, 1, totalCents)}, totalCents));
+    }
+
+    private Coupon coupon(String id, LocalDate expirationDate) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setType(CouponType.CART_WISE);
+        coupon.setDetails(Map.of("threshold", 100, "discount", 10));
+        coupon.setActive(true);
+        coupon.setCreationDate(LocalDate.now());
+        coupon.setExpirationDate(expirationDate);
+        return coupon;
+    }
+}
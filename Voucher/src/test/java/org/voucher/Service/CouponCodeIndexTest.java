@@ -0,0 +1,70 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.voucher.repository.CouponRepository;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CouponCodeIndexTest {
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    private CouponCodeIndex codeIndex;
+
+    @BeforeEach
+    void setUp() {
+        codeIndex = new CouponCodeIndex(couponRepository, 0.001);
+    }
+
+    @Test
+    void testEveryCodeMightExistUntilTheFirstBuild() {
+        assertTrue(codeIndex.mightExist("ANYTHING"));
+    }
+
+    @Test
+    void testRebuildLoadsStoredCodesAndAddKeepsNewOnes() {
+        when(couponRepository.countByCodeIsNotNull()).thenReturn(2L);
+        when(couponRepository.streamCodes()).thenReturn(Stream.of("SPRING-1", "SPRING-2"));
+
+        codeIndex.rebuild();
+        codeIndex.add("SUMMER-1");
+
+        assertTrue(codeIndex.mightExist("SPRING-1"));
+        assertTrue(codeIndex.mightExist("SPRING-2"));
+        assertTrue(codeIndex.mightExist("SUMMER-1"));
+        assertFalse(codeIndex.mightExist("WINTER-1"));
+    }
+
+    @Test
+    void testCodesAddedDuringARebuildReachTheNewFilter() {
+        when(couponRepository.countByCodeIsNotNull()).thenReturn(1L);
+        when(couponRepository.streamCodes()).thenReturn(Stream.of("OLD-1").peek(code -> codeIndex.add("RACE-1")));
+
+        codeIndex.rebuild();
+
+        assertTrue(codeIndex.mightExist("OLD-1"));
+        assertTrue(codeIndex.mightExist("RACE-1"));
+    }
+
+    @Test
+    void testAFailedRebuildKeepsThePreviousFilter() {
+        when(couponRepository.countByCodeIsNotNull()).thenReturn(1L);
+        when(couponRepository.streamCodes()).thenReturn(Stream.of("KEPT-1"));
+        codeIndex.rebuild();
+
+        when(couponRepository.streamCodes()).thenThrow(new IllegalStateException("Mongo is down"));
+        codeIndex.rebuild();
+
+        assertTrue(codeIndex.mightExist("KEPT-1"));
+        assertFalse(codeIndex.mightExist("OTHER-1"));
+    }
+}
@@ -0,0 +1,145 @@
+package org.voucher.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CouponEventPublisherTest {
+
+    private final List<List<CouponEvent>> batches = new ArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private CouponEventPublisher publisher(CouponEventSink sink, int bufferSize, int batchSize,
+                                           CouponEventPublisher.Overflow adminOverflow, int maxRetries) {
+        CouponEventPublisher publisher = new CouponEventPublisher(sink, true, bufferSize, batchSize, adminOverflow,
+                CouponEventPublisher.Overflow.DROP, 5_000, maxRetries);
+        publisher.bindTo(registry);
+        return publisher;
+    }
+
+    private double counter(String name, String... tags) {
+        return registry.get(name).tags(tags).functionCounter().count();
+    }
+
+    @Test
+    void testFlushWritesQueuedEventsInBatchesInOrder() {
+        CouponEventPublisher publisher = publisher(batches::add, 16, 2, CouponEventPublisher.Overflow.WAIT, 0);
+
+        publisher.created(coupon("1"));
+        publisher.applied(coupon("1"), 250);
+        publisher.shown(List.of(coupon("1"), coupon("2")));
+        publisher.shown(List.of());
+        assertTrue(batches.isEmpty());
+        publisher.flush();
+
+        assertEquals(2, batches.size());
+        assertEquals(List.of(CouponEvent.Type.CREATED, CouponEvent.Type.APPLIED),
+                batches.get(0).stream().map(CouponEvent::getType).toList());
+        assertEquals(250L, batches.get(0).get(1).getDiscountCents());
+        assertEquals(List.of("1", "2"), batches.get(1).get(0).getCouponIds());
+        assertEquals(3.0, counter("coupon.events.written"));
+        assertEquals(0.0, registry.get("coupon.events.queued").gauge().value());
+    }
+
+    @Test
+    void testFullQueueDropsCheckoutEventsAtOnce() {
+        CouponEventPublisher publisher = publisher(batches::add, 2, 10, CouponEventPublisher.Overflow.WAIT, 0);
+
+        for (int i = 0; i < 5; i++) {
+            publisher.applied(coupon("1"), 100);
+        }
+
+        assertEquals(2.0, counter("coupon.events.published"));
+        assertEquals(3.0, counter("coupon.events.dropped", "reason", "full"));
+    }
+
+    @Test
+    void testFullQueueMakesAdminEventsWaitForTheFlusher() throws InterruptedException {
+        CouponEventPublisher publisher = publisher(batches::add, 2, 10, CouponEventPublisher.Overflow.WAIT, 0);
+        publisher.applied(coupon("1"), 100);
+        publisher.applied(coupon("1"), 100);
+        CountDownLatch waiting = new CountDownLatch(1);
+
+        Thread admin = new Thread(() -> {
+            waiting.countDown();
+            publisher.deleted("1");
+        });
+        admin.start();
+        waiting.await();
+        Thread.sleep(20);
+        publisher.flush();
+        admin.join();
+        publisher.flush();
+
+        assertEquals(3.0, counter("coupon.events.published"));
+        assertEquals(0.0, counter("coupon.events.dropped", "reason", "full"));
+        assertEquals(CouponEvent.Type.DELETED, batches.get(batches.size() - 1).get(0).getType());
+    }
+
+    @Test
+    void testFailedBatchIsRetriedAndThenDropped() {
+        AtomicInteger calls = new AtomicInteger();
+        CouponEventSink failing = events -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("mongo is down");
+        };
+        CouponEventPublisher publisher = publisher(failing, 16, 10, CouponEventPublisher.Overflow.WAIT, 2);
+        publisher.created(coupon("1"));
+
+        publisher.flush();
+        publisher.flush();
+        assertEquals(0.0, counter("coupon.events.dropped", "reason", "sink_error"));
+        publisher.flush();
+
+        assertEquals(3, calls.get());
+        assertEquals(1.0, counter("coupon.events.dropped", "reason", "sink_error"));
+        publisher.flush();
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testRetriedBatchGoesOutBeforeLaterEvents() {
+        AtomicInteger failures = new AtomicInteger(1);
+        CouponEventSink flaky = events -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("timeout");
+            }
+            batches.add(events);
+        };
+        CouponEventPublisher publisher = publisher(flaky, 16, 10, CouponEventPublisher.Overflow.WAIT, 3);
+        publisher.created(coupon("1"));
+        publisher.flush();
+        publisher.updated(coupon("1"));
+
+        publisher.flush();
+
+        assertEquals(CouponEvent.Type.CREATED, batches.get(0).get(0).getType());
+        assertEquals(CouponEvent.Type.UPDATED, batches.get(1).get(0).getType());
+    }
+
+    @Test
+    void testDisabledPublisherQueuesNothing() {
+        CouponEventPublisher publisher = new CouponEventPublisher(batches::add, false, 16, 10,
+                CouponEventPublisher.Overflow.WAIT, CouponEventPublisher.Overflow.DROP, 0, 0);
+
+        publisher.created(coupon("1"));
+        publisher.flush();
+
+        assertEquals(0, publisher.queued());
+        assertTrue(batches.isEmpty());
+    }
+
+    private static Coupon coupon(String id) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        return coupon;
+    }
+}
@@ -0,0 +1,235 @@
+package org.voucher.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.metrics.CouponMetrics;
+import org.voucher.model.CodeSequence;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponRequest;
+import org.voucher.model.CouponType;
+import org.voucher.model.ImportFormat;
+import org.voucher.model.ImportResult;
+import org.voucher.repository.CodeSequenceRepository;
+import org.voucher.repository.CouponRepository;
+import org.voucher.util.CodeGenerator;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CouponImportServiceTest {
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private CodeSequenceRepository codeSequenceRepository;
+
+    @Mock
+    private CatalogSync catalogSync;
+
+    @Mock
+    private CouponEventPublisher events;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CouponImportService importService;
+    // Sizes of the batches written and every coupon in them
+    private final List<Integer> batches = new ArrayList<>();
+    private final List<Coupon> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        CouponService couponService = new CouponService(couponRepository, new CouponCatalog(couponRepository),
+                new CouponMetrics(meterRegistry), new ProductCategoryStore(""),
+                new CouponCodeIndex(couponRepository, 0.001), catalogSync,
+                new DecisionLog(new ObjectMapper(), 0, 16), events, new ApplicableCouponCache(0, 0));
+        importService = new CouponImportService(couponService, couponRepository, codeSequenceRepository,
+                new ObjectMapper().findAndRegisterModules(), meterRegistry, 2, 1000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void acceptInsertsExceptCode(String refusedCode) {
+        when(couponRepository.insertUnordered(any(), any())).thenAnswer(invocation -> {
+            List<Coupon> batch = invocation.getArgument(0);
+            ObjIntConsumer<String> onFailure = invocation.getArgument(1);
+            batches.add(batch.size());
+            int inserted = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i).getCode().equals(refusedCode)) {
+                    onFailure.accept("E11000 duplicate key", i);
+                } else {
+                    written.add(batch.get(i));
+                    inserted++;
+                }
+            }
+            return inserted;
+        });
+    }
+
+    @Test
+    void testImportsNdjsonInBatchesAndReportsBadRows() throws Exception {
+        acceptInsertsExceptCode("CODE-DUP");
+        String rows = """
+                {"code": "CODE-A", "type": "CART_WISE", "details": {"threshold": 100, "discount": 10}}
+                {"code": "CODE-B", "type": "CART_WISE", "details": {"threshold": 100}}
+                not json
+
+                {"code": "CODE-DUP", "type": "PRODUCT_WISE", "details": {"product_id": 1, "discount": 5}}
+                {"code": "CODE-C", "type": "PRODUCT_WISE", "details": {"product_id": 2, "discount": 5}, "maxRedemptions": 1}
+                """;
+
+        ImportResult result = importService.importCoupons(new StringReader(rows), ImportFormat.NDJSON);
+
+        assertEquals(5, result.getRowsRead());
+        assertEquals(2, result.getInserted());
+        assertEquals(2, result.getRejected());
+        assertEquals(1, result.getFailed());
+        assertEquals(List.of(2L, 3L, 5L), result.getErrors().stream().map(ImportResult.RowError::getLine).sorted().toList());
+        assertEquals(List.of(2, 1), batches);
+        assertEquals(List.of("CODE-A", "CODE-C"), written.stream().map(Coupon::getCode).toList());
+        assertTrue(written.get(0).isActive());
+        assertEquals(LocalDate.now().plusMonths(2), written.get(0).getExpirationDate());
+        assertEquals(2, meterRegistry.get("coupon.import.rows").tag("result", "inserted").counter().count());
+        // the catalog is rebuilt once, after the last batch
+        verify(catalogSync, times(1)).reloadEverywhere();
+    }
+
+    @Test
+    void testImportsCsvWithJsonColumns() throws Exception {
+        acceptInsertsExceptCode("none");
+        String rows = """
+                code,type,details,maxRedemptions,targeting
+                X-1,CART_WISE,"{""threshold"": 50, ""discount"": 5}",3,
+                X-2,BXGY,"{""buy_products"": [{""product_id"": 1, ""quantity"": 2}], ""get_products"": [{""product_id"": 2, ""quantity"": 1}], ""repetition_limit"": 1}",,"{""segments"": [""vip""]}"
+                X-3,CART_WISE,"{""threshold"": 50, ""discount"": 5}",0,
+                """;
+
+        ImportResult result = importService.importCoupons(new StringReader(rows), ImportFormat.CSV);
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getRejected());
+        assertEquals("Max redemptions must be positive", result.getErrors().get(0).getMessage());
+        assertEquals(4, result.getErrors().get(0).getLine());
+        assertEquals(3, written.get(0).getMaxRedemptions());
+        assertEquals(CouponType.BXGY, written.get(1).getType());
+        assertEquals(Set.of("vip"), written.get(1).getTargeting().getSegments());
+    }
+
+    // code_sequences in memory: the first reserve of a prefix keeps its key, later ones add to next
+    private void keepSequencesInMemory() {
+        Map<String, CodeSequence> sequences = new HashMap<>();
+        when(codeSequenceRepository.reserve(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            String prefix = invocation.getArgument(0);
+            long count = invocation.getArgument(1);
+            CodeSequence sequence = sequences.computeIfAbsent(prefix,
+                    p -> new CodeSequence(p, invocation.getArgument(2), 0));
+            sequence.setNext(sequence.getNext() + count);
+            return new CodeSequence(prefix, sequence.getKey(), sequence.getNext());
+        });
+    }
+
+    private static CouponRequest generationTemplate() {
+        CouponRequest template = new CouponRequest();
+        template.setType(CouponType.CART_WISE);
+        template.setDetails(Map.of("threshold", 100, "discount", 10));
+        return template;
+    }
+
+    @Test
+    void testGeneratesUniqueSingleUseCodes() {
+        acceptInsertsExceptCode("none");
+        keepSequencesInMemory();
+        CouponRequest template = new CouponRequest();
+        template.setType(CouponType.CART_WISE);
+        template.setDetails(Map.of("threshold", 100, "discount", 10));
+
+        ImportResult result = importService.generateCoupons(template, 5, "BF-");
+
+        assertEquals(5, result.getInserted());
+        assertEquals(List.of(2, 2, 1), batches);
+        Set<String> codes = new HashSet<>();
+        for (Coupon coupon : written) {
+            assertTrue(coupon.getCode().startsWith("BF-"));
+            assertEquals(1, coupon.getMaxRedemptions());
+            codes.add(coupon.getCode());
+        }
+        assertEquals(5, codes.size());
+    }
+
+    @Test
+    void testRunsWithTheSamePrefixContinueTheSequence() {
+        acceptInsertsExceptCode("none");
+        keepSequencesInMemory();
+
+        importService.generateCoupons(generationTemplate(), 50, "BF-");
+        importService.generateCoupons(generationTemplate(), 50, "BF-");
+
+        Set<String> codes = new HashSet<>();
+        written.forEach(coupon -> codes.add(coupon.getCode()));
+        assertEquals(100, codes.size());
+        verify(codeSequenceRepository, times(2)).reserve(eq("BF-"), eq(50L), anyLong());
+    }
+
+    @Test
+    void testPrefixesDifferingInCaseShareOneSequence() {
+        acceptInsertsExceptCode("none");
+        keepSequencesInMemory();
+
+        importService.generateCoupons(generationTemplate(), 50, "bf24-");
+        importService.generateCoupons(generationTemplate(), 50, " BF24- ");
+
+        Set<String> codes = new HashSet<>();
+        written.forEach(coupon -> codes.add(coupon.getCode()));
+        assertEquals(100, codes.size());
+        assertTrue(codes.stream().allMatch(code -> code.startsWith("BF24-")));
+        verify(codeSequenceRepository, times(2)).reserve(eq("BF24-"), eq(50L), anyLong());
+    }
+
+    @Test
+    void testRejectsAMalformedPrefixWithoutTakingCodes() {
+        assertThrows(InvalidCouponException.class,
+                () -> importService.generateCoupons(generationTemplate(), 5, "BF_24"));
+        verify(codeSequenceRepository, never()).reserve(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void testRejectsAPrefixWithTooFewCodesLeft() {
+        when(codeSequenceRepository.reserve(anyString(), anyLong(), anyLong()))
+                .thenReturn(new CodeSequence("BF-", 42, CodeGenerator.CAPACITY + 3));
+
+        assertThrows(InvalidCouponException.class, () -> importService.generateCoupons(generationTemplate(), 5, "BF-"));
+        verify(couponRepository, never()).insertUnordered(any(), any());
+    }
+
+    @Test
+    void testRejectsABadTemplateBeforeWritingAnything() {
+        CouponRequest template = new CouponRequest();
+        template.setType(CouponType.CART_WISE);
+        template.setDetails(Map.of("discount", 10));
+
+        assertThrows(InvalidCouponException.class, () -> importService.generateCoupons(template, 1000, ""));
+        verify(couponRepository, never()).insertUnordered(any(), any());
+        verify(codeSequenceRepository, never()).reserve(anyString(), anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,90 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponStack;
+import org.voucher.model.CouponType;
+import org.voucher.model.RankedCoupon;
+import org.voucher.rule.CompiledCoupon;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CouponOptimizerTest {
+
+    @Mock
+    private CouponService couponService;
+
+    private CouponOptimizer couponOptimizer;
+
+    private final CartRequest cart = new CartRequest(new CartItem[0], 10000);
+
+    @BeforeEach
+    void setUp() {
+        couponOptimizer = new CouponOptimizer(couponService, 1000, 3);
+    }
+
+    @Test
+    void testGetBestCouponsRanksBySavings() {
+        when(couponService.getApplicableCouponSavings(cart)).thenReturn(List.of(
+                savings("a", CouponType.CART_WISE, Map.of("threshold", 10, "discount", 5), 500),
+                savings("b", CouponType.CART_WISE, Map.of("threshold", 10, "discount", 15), 1500),
+                savings("c", CouponType.PRODUCT_WISE, Map.of("product_id", 1, "discount", 50), 1000)));
+
+        List<RankedCoupon> best = couponOptimizer.getBestCoupons(cart, 2);
+
+        assertEquals(List.of("b", "c"), best.stream().map(ranked -> ranked.getCoupon().getId()).toList());
+        assertEquals(1500, best.get(0).getDiscountCents());
+    }
+
+    @Test
+    void testGetBestStackRespectsStackingRules() {
+        when(couponService.getApplicableCouponSavings(cart)).thenReturn(List.of(
+                // only one cart-wise coupon may be used
+                savings("cart-big", CouponType.CART_WISE, Map.of("threshold", 10, "discount", 30), 3000),
+                savings("cart-small", CouponType.CART_WISE, Map.of("threshold", 10, "discount", 20), 2000),
+                // these two discount the same product
+                savings("product-1a", CouponType.PRODUCT_WISE, Map.of("product_id", 1, "discount", 25), 2500),
+                savings("product-1b", CouponType.PRODUCT_WISE, Map.of("product_id", 1, "discount", 20), 2000),
+                savings("product-2", CouponType.PRODUCT_WISE, Map.of("product_id", 2, "discount", 10), 1000)));
+
+        CouponStack stack = couponOptimizer.getBestStack(cart);
+
+        assertEquals(List.of("cart-big", "product-1a", "product-2"),
+                stack.getCoupons().stream().map(Coupon::getId).toList());
+        assertEquals(6500, stack.getTotalDiscountCents());
+        assertEquals(3500, stack.getFinalPriceCents());
+        assertTrue(stack.isComplete());
+    }
+
+    @Test
+    void testGetBestStackNeverExceedsCartTotal() {
+        when(couponService.getApplicableCouponSavings(cart)).thenReturn(List.of(
+                savings("cart", CouponType.CART_WISE, Map.of("threshold", 10, "discount", 90), 9000),
+                savings("product-1", CouponType.PRODUCT_WISE, Map.of("product_id", 1, "discount", 50), 5000),
+                savings("product-2", CouponType.PRODUCT_WISE, Map.of("product_id", 2, "discount", 50), 4500)));
+
+        CouponStack stack = couponOptimizer.getBestStack(cart);
+
+        assertEquals(9500, stack.getTotalDiscountCents());
+        assertEquals(List.of("product-1", "product-2"), stack.getCoupons().stream().map(Coupon::getId).toList());
+    }
+
+    private CouponSavings savings(String id, CouponType type, Map<String, Object> details, long discountCents) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setType(type);
+        coupon.setDetails(details);
+        return new CouponSavings(CompiledCoupon.of(coupon), discountCents);
+    }
+}
@@ -1,20 +1,38 @@
 package org.voucher.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.metrics.CouponMetrics;
+import org.voucher.model.ApplyCouponResponse;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
 import org.voucher.model.Coupon;
+import org.voucher.model.CouponDecision;
 import org.voucher.model.CouponType;
+import org.voucher.model.RequestContext;
+import org.voucher.model.Targeting;
 import org.voucher.repository.CouponRepository;
 
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -26,13 +44,29 @@ public class CouponServiceTest {
     @Mock
     private CouponRepository couponRepository;
 
-    @InjectMocks
+    @Mock
+    private CatalogSync catalogSync;
+
+    @Mock
+    private CouponEventPublisher events;
+
+    private CouponCatalog couponCatalog;
+    private SimpleMeterRegistry meterRegistry;
+    private DecisionLog decisionLog;
+    private ApplicableCouponCache applicableCache;
     private CouponService couponService;
 
     private Coupon coupon;
 
     @BeforeEach
     void setUp() {
+        couponCatalog = new CouponCatalog(couponRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        decisionLog = new DecisionLog(new ObjectMapper().findAndRegisterModules(), 0, 16);
+        applicableCache = new ApplicableCouponCache(100, 60_000);
+        couponService = new CouponService(couponRepository, couponCatalog, new CouponMetrics(meterRegistry),
+                new ProductCategoryStore(""), new CouponCodeIndex(couponRepository, 0.001), catalogSync, decisionLog, events, applicableCache);
+
         coupon = new Coupon();
         coupon.setId("1");
         coupon.setType(CouponType.CART_WISE);
@@ -51,33 +85,115 @@ public class CouponServiceTest {
         assertNotNull(createdCoupon);
         assertEquals(CouponType.CART_WISE, createdCoupon.getType());
         assertTrue(createdCoupon.isActive());
+        assertEquals(1, couponCatalog.size());
         verify(couponRepository, times(1)).save(any(Coupon.class));
+        verify(events).created(coupon);
     }
 
     @Test
-    void testDeactivateExpiredCoupons() {
-        Coupon expiredCoupon = new Coupon();
-        expiredCoupon.setId("2");
-        expiredCoupon.setExpirationDate(LocalDate.now().minusDays(1));
-        expiredCoupon.setActive(true);
+    void testCreateCoupon_NormalizesTheCode() {
+        coupon.setCode(" spring-10 ");
+        when(couponRepository.save(any(Coupon.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(couponRepository.findAll()).thenReturn(List.of(coupon, expiredCoupon));
-        when(couponRepository.save(any(Coupon.class))).thenReturn(expiredCoupon);
+        assertEquals("SPRING-10", couponService.createCoupon(coupon).getCode());
+    }
 
-        couponService.deactivateExpiredCoupons();
+    @Test
+    void testCreateCoupon_CodeAlreadyInUse() {
+        coupon.setCode("SPRING-10");
+        when(couponRepository.save(any(Coupon.class))).thenThrow(new DuplicateKeyException("E11000"));
+
+        InvalidCouponException exception = assertThrows(InvalidCouponException.class,
+                () -> couponService.createCoupon(coupon));
 
-        assertFalse(expiredCoupon.isActive());
-        verify(couponRepository, times(1)).save(expiredCoupon);
+        assertEquals("Coupon code SPRING-10 is already in use", exception.getMessage());
     }
 
     @Test
-    void testGetAllCoupons() {
-        when(couponRepository.findAll()).thenReturn(List.of(coupon));
+    void testGetCouponByCode_FilterAnswersUnknownCodesWithoutMongo() {
+        CouponCodeIndex codeIndex = new CouponCodeIndex(couponRepository, 0.001);
+        when(couponRepository.countByCodeIsNotNull()).thenReturn(1L);
+        when(couponRepository.streamCodes()).thenReturn(Stream.of("SPRING-10"));
+        codeIndex.rebuild();
+        couponService = new CouponService(couponRepository, couponCatalog, new CouponMetrics(meterRegistry),
+                new ProductCategoryStore(""), codeIndex, catalogSync, decisionLog, events, applicableCache);
+        coupon.setCode("SPRING-10");
+        when(couponRepository.findByCode("SPRING-10")).thenReturn(Optional.of(coupon));
+        when(catalogSync.isCaughtUp()).thenReturn(true);
+
+        assertEquals(Optional.of(coupon), couponService.getCouponByCode("spring-10"));
+        assertEquals(Optional.empty(), couponService.getCouponByCode("GUESS-0001"));
+        assertEquals(Optional.empty(), couponService.getCouponByCode("no spaces? no!"));
+        verify(couponRepository, times(1)).findByCode(any());
+        assertEquals(2, meterRegistry.get("coupon.code.lookups").tag("result", "filtered").counter().count());
+        assertEquals(1, meterRegistry.get("coupon.code.lookups").tag("result", "found").counter().count());
+
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
+        assertEquals(2000, couponService.applyCouponByCode("Spring-10", cart).getTotalDiscountCents());
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> couponService.applyCouponByCode("GUESS-0001", cart));
+        assertEquals("Coupon not found", exception.getMessage());
+    }
 
-        List<Coupon> allCoupons = couponService.getAllCoupons();
+    @Test
+    void testGetCouponByCode_LaggingNodeLooksUpCodesTheFilterHasNotSeen() {
+        CouponCodeIndex codeIndex = new CouponCodeIndex(couponRepository, 0.001);
+        when(couponRepository.countByCodeIsNotNull()).thenReturn(0L);
+        when(couponRepository.streamCodes()).thenReturn(Stream.empty());
+        codeIndex.rebuild();
+        couponService = new CouponService(couponRepository, couponCatalog, new CouponMetrics(meterRegistry),
+                new ProductCategoryStore(""), codeIndex, catalogSync, decisionLog, events, applicableCache);
+        // Written on another node after this one last caught up with the change log
+        coupon.setCode("ELSEWHERE-10");
+        when(couponRepository.findByCode("ELSEWHERE-10")).thenReturn(Optional.of(coupon));
+        when(catalogSync.isCaughtUp()).thenReturn(false);
+
+        assertEquals(Optional.of(coupon), couponService.getCouponByCode("elsewhere-10"));
+        assertEquals(0, meterRegistry.get("coupon.code.lookups").tag("result", "filtered").counter().count());
+    }
 
-        assertEquals(1, allCoupons.size());
-        verify(couponRepository, times(1)).findAll();
+    @Test
+    void testCreateCoupon_MalformedDetails() {
+        coupon.setDetails(Map.of("threshold", "100", "discount", 10));
+
+        InvalidCouponException exception = assertThrows(InvalidCouponException.class,
+                () -> couponService.createCoupon(coupon));
+
+        assertEquals("Coupon detail 'threshold' must be an integer", exception.getMessage());
+        verify(couponRepository, never()).save(any(Coupon.class));
+    }
+
+    @Test
+    void testDeactivateExpiredCoupons() {
+        Coupon expiringCoupon = new Coupon();
+        expiringCoupon.setId("2");
+        expiringCoupon.setType(CouponType.CART_WISE);
+        expiringCoupon.setDetails(Map.of("threshold", 50, "discount", 5));
+        expiringCoupon.setExpirationDate(LocalDate.now().plusDays(1));
+        expiringCoupon.setActive(true);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon, expiringCoupon));
+        couponCatalog.reload();
+        expiringCoupon.setExpirationDate(LocalDate.now().minusDays(1));
+
+        when(couponRepository.deactivateExpired(LocalDate.now())).thenReturn(1L);
+
+        long deactivated = couponService.deactivateExpiredCoupons();
+
+        assertEquals(1, deactivated);
+        assertEquals(1, couponCatalog.size());
+        verify(couponRepository, times(1)).deactivateExpired(LocalDate.now());
+        verify(couponRepository, never()).save(any(Coupon.class));
+    }
+
+    @Test
+    void testGetCouponsPage() {
+        when(couponRepository.findPage("0", 50)).thenReturn(List.of(coupon));
+
+        List<Coupon> page = couponService.getCouponsPage("0", 50);
+
+        assertEquals(1, page.size());
+        verify(couponRepository, times(1)).findPage("0", 50);
+        verify(couponRepository, never()).findAll();
     }
 
     @Test
@@ -107,12 +223,21 @@ public class CouponServiceTest {
         when(couponRepository.save(any(Coupon.class))).thenReturn(coupon);
 
         coupon.setType(CouponType.PRODUCT_WISE);
+        coupon.setDetails(Map.of("product_id", 5, "discount", 10));
         Coupon updatedCoupon = couponService.updateCoupon("1", coupon);
 
         assertEquals(CouponType.PRODUCT_WISE, updatedCoupon.getType());
         verify(couponRepository, times(1)).save(coupon);
     }
 
+    @Test
+    void testUpdateCoupon_MalformedDetails() {
+        coupon.setType(CouponType.PRODUCT_WISE);
+
+        assertThrows(InvalidCouponException.class, () -> couponService.updateCoupon("1", coupon));
+        verify(couponRepository, never()).save(any(Coupon.class));
+    }
+
     @Test
     void testUpdateCoupon_NotFound() {
         when(couponRepository.findById("2")).thenReturn(Optional.empty());
@@ -127,11 +252,15 @@ public class CouponServiceTest {
 
     @Test
     void testDeleteCoupon() {
+        when(couponRepository.findAll()).thenReturn(List.of(coupon));
+        couponCatalog.reload();
         doNothing().when(couponRepository).deleteById("1");
 
         couponService.deleteCoupon("1");
 
+        assertEquals(0, couponCatalog.size());
         verify(couponRepository, times(1)).deleteById("1");
+        verify(events).deleted("1");
     }
 
     @Test
@@ -141,6 +270,7 @@ public class CouponServiceTest {
         inactiveCoupon.setActive(false);
 
         when(couponRepository.findAll()).thenReturn(List.of(coupon, inactiveCoupon));
+        couponCatalog.reload();
 
         List<Coupon> activeCoupons = couponService.getAllActiveCoupons();
 
@@ -151,34 +281,109 @@ public class CouponServiceTest {
 
     @Test
     void testGetApplicableCoupons() {
-        Map<String, Object> cart = Map.of("totalPrice", 200.0);
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
         when(couponRepository.findAll()).thenReturn(List.of(coupon));
+        couponCatalog.reload();
 
         List<Coupon> applicableCoupons = couponService.getApplicableCoupons(cart);
+        couponService.getApplicableCoupons(cart);
 
         assertEquals(1, applicableCoupons.size());
+        // Only the initial catalog load touches Mongo
         verify(couponRepository, times(1)).findAll();
+        assertEquals(2, meterRegistry.get("coupon.applicable").timer().count());
+        // The repeated cart is answered from the cache without another evaluation
+        assertEquals(1.0, meterRegistry.get("coupon.applicability.checks").tag("type", "CART_WISE").counter().count());
+        assertEquals(1.0, meterRegistry.get("coupon.applicable.matched").summary().totalAmount());
+        verify(events, times(2)).shown(List.of(coupon));
+    }
+
+    @Test
+    void testCachedApplicableCouponsAreDroppedWhenTheActiveSetChanges() {
+        CartRequest cart = new CartRequest(new CartItem[]{new CartItem(5, 1, 4000)}, 20000);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon));
+        couponCatalog.reload();
+        assertEquals(List.of("1"), ids(couponService.getApplicableCoupons(cart)));
+
+        Coupon productCoupon = new Coupon();
+        productCoupon.setType(CouponType.PRODUCT_WISE);
+        productCoupon.setDetails(Map.of("product_id", 5, "discount", 15));
+        when(couponRepository.save(any(Coupon.class))).thenAnswer(invocation -> {
+            Coupon saved = invocation.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId("2");
+            }
+            return saved;
+        });
+        couponService.createCoupon(productCoupon);
+        assertEquals(0, applicableCache.size());
+        assertEquals(List.of("1", "2"), ids(couponService.getApplicableCoupons(cart)));
+
+        Coupon raised = new Coupon();
+        raised.setType(CouponType.CART_WISE);
+        raised.setDetails(Map.of("threshold", 500, "discount", 10));
+        when(couponRepository.findById("1")).thenReturn(Optional.of(coupon));
+        couponService.updateCoupon("1", raised);
+        assertEquals(List.of("2"), ids(couponService.getApplicableCoupons(cart)));
+
+        couponService.deleteCoupon("2");
+        assertEquals(List.of(), ids(couponService.getApplicableCoupons(cart)));
+    }
+
+    @Test
+    void testExpirationJobDropsCachedApplicableCoupons() {
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon));
+        couponCatalog.reload();
+        couponService.getApplicableCoupons(cart);
+        assertEquals(1, applicableCache.size());
+
+        couponService.deactivateExpiredCoupons();
+
+        assertEquals(0, applicableCache.size());
+    }
+
+    private static List<String> ids(List<Coupon> coupons) {
+        return coupons.stream().map(Coupon::getId).toList();
+    }
+
+    @Test
+    void testGetApplicableCoupons_ProductWise() {
+        Coupon productCoupon = new Coupon();
+        productCoupon.setId("2");
+        productCoupon.setType(CouponType.PRODUCT_WISE);
+        productCoupon.setDetails(Map.of("product_id", 5, "discount", 15));
+        productCoupon.setExpirationDate(LocalDate.now().plusDays(30));
+        productCoupon.setActive(true);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon, productCoupon));
+        couponCatalog.reload();
+
+        CartRequest cart = new CartRequest(new CartItem[]{new CartItem(5, 1, 4000)}, 4000);
+
+        List<Coupon> applicableCoupons = couponService.getApplicableCoupons(cart);
+
+        assertEquals(1, applicableCoupons.size());
+        assertEquals("2", applicableCoupons.get(0).getId());
     }
 
     @Test
     void testApplyCouponToCart() {
-        Map<String, Object> cart = new HashMap<>();
-        cart.put("totalPrice", 200.0);
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
 
         when(couponRepository.findById("1")).thenReturn(Optional.of(coupon));
 
-        Map<String, Object> updatedCart = couponService.applyCouponToCart("1", cart);
+        ApplyCouponResponse updatedCart = couponService.applyCouponToCart("1", cart);
 
         assertNotNull(updatedCart);
-        assertEquals(20.0, updatedCart.get("totalDiscount"));
-        assertEquals(180.0, updatedCart.get("finalPrice"));
+        assertEquals(2000, updatedCart.getTotalDiscountCents());
+        assertEquals(18000, updatedCart.getFinalPriceCents());
         verify(couponRepository, times(1)).findById("1");
+        verify(events).applied(coupon, 2000);
     }
 
     @Test
     void testApplyCouponToCart_CouponNotFound() {
-        Map<String, Object> cart = new HashMap<>();
-        cart.put("totalPrice", 200.0);
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
 
         when(couponRepository.findById("2")).thenReturn(Optional.empty());
 
@@ -196,8 +401,7 @@ public class CouponServiceTest {
 
         when(couponRepository.findById("1")).thenReturn(Optional.of(coupon));
 
-        Map<String, Object> cart = new HashMap<>();
-        cart.put("totalPrice", 200.0);
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             couponService.applyCouponToCart("1", cart);
@@ -205,4 +409,293 @@ public class CouponServiceTest {
 
         assertEquals("Coupon is either inactive or expired", exception.getMessage());
     }
+
+    @Test
+    void testApplyCouponToCart_OutsideTimeWindow() {
+        coupon.setValidFrom(Instant.now().plusSeconds(3600));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> couponService.applyCouponToCart(coupon, new CartRequest(new CartItem[0], 20000)));
+
+        assertEquals("Coupon is outside its valid time window", exception.getMessage());
+    }
+
+    @Test
+    void testApplyCouponToCart_TargetedAtAnotherSegment() {
+        coupon.setTargeting(new Targeting(Set.of("vip"), null, null));
+        CartRequest cart = new CartRequest(new CartItem[]{new CartItem(1, 1, 20000)}, 20000);
+        cart.setContext(new RequestContext(Set.of("new"), "FR", "web"));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> couponService.applyCouponToCart(coupon, cart));
+        assertEquals("Coupon is not available for this customer", exception.getMessage());
+
+        cart.getContext().setSegments(Set.of("new", "vip"));
+        assertEquals(2000, couponService.applyCouponToCart(coupon, cart).getTotalDiscountCents());
+    }
+
+    @Test
+    void testCreateCoupon_MalformedSchedule() {
+        coupon.setValidFrom(Instant.now());
+        coupon.setValidUntil(coupon.getValidFrom());
+
+        assertThrows(InvalidCouponException.class, () -> couponService.createCoupon(coupon));
+        verify(couponRepository, never()).save(any(Coupon.class));
+    }
+
+    @Test
+    void testApplyProductWiseSplitsTheDiscountAcrossMatchingLines() {
+        coupon.setType(CouponType.PRODUCT_WISE);
+        coupon.setDetails(Map.of("product_id", 5, "discount", 10));
+        CartRequest cart = new CartRequest(new CartItem[]{
+                new CartItem(5, 1, 105), new CartItem(7, 1, 500), new CartItem(5, 1, 105), new CartItem(5, 1, 105)}, 815);
+
+        ApplyCouponResponse updatedCart = couponService.applyCouponToCart(coupon, cart);
+
+        // 10% of 3.15 rounds once to 0.32; each line rounds 0.105 up to 0.11, so the last line gives back a cent
+        assertEquals(32, updatedCart.getTotalDiscountCents());
+        assertEquals(783, updatedCart.getFinalPriceCents());
+        assertEquals(11, updatedCart.getItems()[0].getTotalDiscountCents());
+        assertEquals(0, updatedCart.getItems()[1].getTotalDiscountCents());
+        assertEquals(11, updatedCart.getItems()[2].getTotalDiscountCents());
+        assertEquals(10, updatedCart.getItems()[3].getTotalDiscountCents());
+        // the request's own items are left untouched
+        assertEquals(0, cart.getItems()[0].getTotalDiscountCents());
+    }
+
+    @Test
+    void testApplyBxGyMakesCartUnitsFreeWithoutAddingLines() {
+        coupon.setType(CouponType.BXGY);
+        coupon.setDetails(Map.of(
+                "buy_products", List.of(Map.of("product_id", 1, "quantity", 1)),
+                "get_products", List.of(Map.of("product_id", 2, "quantity", 1)),
+                "repetition_limit", 2));
+        CartRequest cart = new CartRequest(new CartItem[]{new CartItem(1, 1, 1000), new CartItem(2, 1, 250)}, 1250);
+
+        ApplyCouponResponse updatedCart = couponService.applyCouponToCart(coupon, cart);
+
+        // One unit of product 1 meets the buy condition once, however high the limit
+        assertEquals(2, updatedCart.getItems().length);
+        assertEquals(250, updatedCart.getItems()[1].getTotalDiscountCents());
+        assertEquals(250, updatedCart.getTotalDiscountCents());
+        assertEquals(1000, updatedCart.getFinalPriceCents());
+        assertEquals(0, cart.getItems()[1].getTotalDiscountCents());
+    }
+
+    @Test
+    void testBxGyCountsUnitsAndFreesTheCheapestFirst() {
+        coupon.setType(CouponType.BXGY);
+        coupon.setDetails(Map.of(
+                "buy_products", List.of(Map.of("product_id", 1, "quantity", 2)),
+                "get_products", List.of(Map.of("product_id", 2, "quantity", 1)),
+                "repetition_limit", 5));
+        // A single line of four units buys twice; two of the three product 2 units become free
+        CartRequest cart = new CartRequest(new CartItem[]{
+                new CartItem(1, 4, 4000), new CartItem(2, 1, 900), new CartItem(2, 2, 600)}, 5500);
+
+        ApplyCouponResponse updatedCart = couponService.applyCouponToCart(coupon, cart);
+
+        assertEquals(0, updatedCart.getItems()[1].getTotalDiscountCents());
+        assertEquals(600, updatedCart.getItems()[2].getTotalDiscountCents());
+        assertEquals(600, updatedCart.getTotalDiscountCents());
+
+        coupon.setDetails(Map.of(
+                "buy_products", List.of(Map.of("product_id", 1, "quantity", 2)),
+                "get_products", List.of(Map.of("product_id", 2, "quantity", 1)),
+                "repetition_limit", 5,
+                "free_items", "most_expensive"));
+        updatedCart = couponService.applyCouponToCart(coupon, cart);
+
+        assertEquals(900, updatedCart.getItems()[1].getTotalDiscountCents());
+        assertEquals(300, updatedCart.getItems()[2].getTotalDiscountCents());
+        assertEquals(1200, updatedCart.getTotalDiscountCents());
+    }
+
+    @Test
+    void testBxGyIsNotApplicableWithoutAFreeUnitInTheCart() {
+        coupon.setType(CouponType.BXGY);
+        coupon.setDetails(Map.of(
+                "buy_products", List.of(Map.of("product_id", 1, "quantity", 2)),
+                "get_products", List.of(Map.of("product_id", 1, "quantity", 1)),
+                "repetition_limit", 1));
+        when(couponRepository.findAll()).thenReturn(List.of(coupon));
+        couponCatalog.reload();
+
+        // Buy two, get the third free: two units only meet half of it
+        CartRequest two = new CartRequest(new CartItem[]{new CartItem(1, 2, 200)}, 200);
+        CartRequest three = new CartRequest(new CartItem[]{new CartItem(1, 3, 300)}, 300);
+
+        assertTrue(couponService.getApplicableCoupons(two).isEmpty());
+        assertEquals(1, couponService.getApplicableCoupons(three).size());
+    }
+
+    @Test
+    void testApplicableCouponSavingsMatchApplyingEachCoupon() {
+        Coupon productCoupon = new Coupon();
+        productCoupon.setId("2");
+        productCoupon.setType(CouponType.PRODUCT_WISE);
+        productCoupon.setDetails(Map.of("product_id", 5, "discount", 15));
+        productCoupon.setExpirationDate(LocalDate.now().plusDays(30));
+        productCoupon.setActive(true);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon, productCoupon));
+        couponCatalog.reload();
+        CartRequest cart = new CartRequest(new CartItem[]{new CartItem(5, 1, 999), new CartItem(5, 1, 333)}, 20000);
+
+        for (CouponSavings savings : couponService.getApplicableCouponSavings(cart)) {
+            assertEquals(couponService.applyCouponToCart(savings.compiled().coupon(), cart).getTotalDiscountCents(),
+                    savings.discountCents());
+        }
+    }
+
+    @Test
+    void testExplanationsAgreeWithTheApplicableCoupons() {
+        Coupon productCoupon = new Coupon();
+        productCoupon.setId("2");
+        productCoupon.setType(CouponType.PRODUCT_WISE);
+        productCoupon.setDetails(Map.of("product_id", 5, "discount", 15));
+        productCoupon.setExpirationDate(LocalDate.now().plusDays(30));
+        productCoupon.setActive(true);
+        Coupon bxgy = new Coupon();
+        bxgy.setId("3");
+        bxgy.setType(CouponType.BXGY);
+        bxgy.setDetails(Map.of(
+                "buy_products", List.of(Map.of("product_id", 5, "quantity", 2)),
+                "get_products", List.of(Map.of("product_id", 5, "quantity", 1)),
+                "repetition_limit", 1));
+        bxgy.setExpirationDate(LocalDate.now().plusDays(30));
+        bxgy.setActive(true);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon, productCoupon, bxgy));
+        couponCatalog.reload();
+
+        for (int quantity = 1; quantity <= 3; quantity++) {
+            CartRequest cart = new CartRequest(new CartItem[]{new CartItem(5, quantity, 5000L * quantity)}, 5000L * quantity);
+            Set<String> applicable = couponService.getApplicableCoupons(cart).stream()
+                    .map(Coupon::getId).collect(Collectors.toSet());
+
+            Set<String> explainedApplicable = couponService.explainApplicableCoupons(cart, List.of()).stream()
+                    .filter(CouponDecision::isApplicable).map(CouponDecision::getCouponId).collect(Collectors.toSet());
+
+            assertEquals(applicable, explainedApplicable, "quantity " + quantity);
+        }
+    }
+
+    @Test
+    void testExplanationsSayWhereANamedCouponDroppedOut() {
+        coupon.setDetails(Map.of("threshold", 500, "discount", 10));
+        Coupon expired = new Coupon();
+        expired.setId("expired");
+        expired.setType(CouponType.CART_WISE);
+        expired.setDetails(Map.of("threshold", 0, "discount", 10));
+        expired.setExpirationDate(LocalDate.now().minusDays(1));
+        expired.setActive(true);
+        Coupon targeted = new Coupon();
+        targeted.setId("vip");
+        targeted.setType(CouponType.CART_WISE);
+        targeted.setDetails(Map.of("threshold", 0, "discount", 10));
+        targeted.setExpirationDate(LocalDate.now().plusDays(30));
+        targeted.setActive(true);
+        targeted.setTargeting(new Targeting(Set.of("vip"), null, null));
+        when(couponRepository.findAllById(any())).thenReturn(List.of(coupon, expired, targeted));
+        CartRequest cart = new CartRequest(new CartItem[]{new CartItem(5, 1, 20000)}, 20000);
+        cart.setContext(new RequestContext(Set.of("new"), "EU", "web"));
+
+        Map<String, CouponDecision> decisions = couponService.explainApplicableCoupons(cart,
+                        List.of("1", "expired", "vip", "missing")).stream()
+                .collect(Collectors.toMap(CouponDecision::getCouponId, decision -> decision));
+
+        assertEquals("cart_total > threshold", decisions.get("1").getPredicate());
+        assertEquals(500, decisions.get("1").getValues().get("threshold"));
+        assertEquals(0, new BigDecimal("200.00").compareTo((BigDecimal) decisions.get("1").getValues().get("cart_total")));
+        assertEquals("expiration_date > today", decisions.get("expired").getPredicate());
+        assertEquals("context.segments in targeting.segments", decisions.get("vip").getPredicate());
+        assertEquals(Set.of("new"), decisions.get("vip").getValues().get("context.segments"));
+        assertEquals("coupon exists", decisions.get("missing").getPredicate());
+        assertTrue(decisions.values().stream().noneMatch(CouponDecision::isApplicable));
+    }
+
+    @Test
+    void testApplicableCouponsAreSampledIntoTheDecisionLog() {
+        DecisionLog everyRequest = new DecisionLog(new ObjectMapper().findAndRegisterModules(), 1, 16);
+        everyRequest.bindTo(meterRegistry);
+        couponService = new CouponService(couponRepository, couponCatalog, new CouponMetrics(meterRegistry),
+                new ProductCategoryStore(""), new CouponCodeIndex(couponRepository, 0.001), catalogSync, everyRequest, events, applicableCache);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon));
+        couponCatalog.reload();
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
+
+        couponService.getApplicableCoupons(cart);
+        couponService.getApplicableCouponSavings(cart);
+
+        assertEquals(2.0, meterRegistry.get("coupon.decisions").tag("result", "recorded").functionCounter().count());
+    }
+
+    @Test
+    void testStreamedApplicableCouponsAreSampledAndTimed() {
+        DecisionLog everyRequest = new DecisionLog(new ObjectMapper().findAndRegisterModules(), 1, 16);
+        everyRequest.bindTo(meterRegistry);
+        couponService = new CouponService(couponRepository, couponCatalog, new CouponMetrics(meterRegistry),
+                new ProductCategoryStore(""), new CouponCodeIndex(couponRepository, 0.001), catalogSync, everyRequest, events, applicableCache);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon));
+        couponCatalog.reload();
+
+        try (Stream<Coupon> applicable = couponService.streamApplicableCoupons(new CartRequest(new CartItem[0], 20000))) {
+            assertEquals(1, applicable.count());
+        }
+
+        assertEquals(1.0, meterRegistry.get("coupon.decisions").tag("result", "recorded").functionCounter().count());
+        assertEquals(1, meterRegistry.get("coupon.applicable").timer().count());
+        assertEquals(1.0, meterRegistry.get("coupon.applicable.matched").summary().totalAmount());
+    }
+
+    @Test
+    void testRedemptionIsNotAlsoPublishedAsAnApplication() {
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
+
+        couponService.applyCouponToCart(coupon, cart);
+        couponService.applyCouponForRedemption(coupon, cart);
+
+        verify(events, times(1)).applied(coupon, 2000);
+    }
+
+    @Test
+    void testApplyCartWiseUsesTheCouponsRoundingMode() {
+        coupon.setDetails(Map.of("threshold", 1, "discount", 12.5, "rounding", "HALF_EVEN"));
+        CartRequest cart = new CartRequest(new CartItem[0], 1020);
+
+        // 12.5% of 10.20 is 1.275: half-even rounds to 1.28, down would give 1.27
+        assertEquals(128, couponService.applyCouponToCart(coupon, cart).getTotalDiscountCents());
+
+        coupon.setDetails(Map.of("threshold", 1, "discount", 12.5, "rounding", "DOWN"));
+        assertEquals(127, couponService.applyCouponToCart(coupon, cart).getTotalDiscountCents());
+    }
+
+    @Test
+    void testCategoryCouponDiscountsOnlyProductsInThatCategory(@TempDir Path dir) throws Exception {
+        Path products = dir.resolve("products.csv");
+        Files.writeString(products, "product_id,category_id,brand_id\n1,10,100\n2,10,200\n3,20,100\n");
+        ProductCategoryStore store = new ProductCategoryStore(products.toString());
+        store.load();
+        couponService = new CouponService(couponRepository, couponCatalog, new CouponMetrics(meterRegistry), store,
+                new CouponCodeIndex(couponRepository, 0.001), catalogSync, decisionLog, events, applicableCache);
+        coupon.setType(CouponType.CATEGORY_WISE);
+        coupon.setDetails(Map.of("category_id", 10, "discount", 10));
+        Coupon brandCoupon = new Coupon();
+        brandCoupon.setId("2");
+        brandCoupon.setType(CouponType.CATEGORY_WISE);
+        brandCoupon.setDetails(Map.of("brand_id", 300, "discount", 50));
+        brandCoupon.setExpirationDate(LocalDate.now().plusDays(30));
+        brandCoupon.setActive(true);
+        when(couponRepository.findAll()).thenReturn(List.of(coupon, brandCoupon));
+        couponCatalog.reload();
+        CartRequest cart = new CartRequest(new CartItem[]{
+                new CartItem(1, 2, 1000), new CartItem(3, 1, 5000), new CartItem(2, 1, 500)}, 7500);
+
+        ApplyCouponResponse updatedCart = couponService.applyCouponToCart(coupon, cart);
+
+        assertEquals(150, updatedCart.getTotalDiscountCents());
+        assertEquals(100, updatedCart.getItems()[0].getTotalDiscountCents());
+        assertEquals(0, updatedCart.getItems()[1].getTotalDiscountCents());
+        assertEquals(50, updatedCart.getItems()[2].getTotalDiscountCents());
+        // no product of brand 300 is in the cart
+        assertEquals(List.of("1"), couponService.getApplicableCoupons(cart).stream().map(Coupon::getId).toList());
+    }
 }
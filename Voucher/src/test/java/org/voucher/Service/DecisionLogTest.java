@@ -0,0 +1,102 @@
+package org.voucher.Service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+import org.voucher.rule.CompiledCoupon;
+import org.voucher.rule.CouponRuleCompiler;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DecisionLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Logger decisions = (Logger) LoggerFactory.getLogger("org.voucher.decisions");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        decisions.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        decisions.detachAppender(appender);
+    }
+
+    @Test
+    void testZeroSampleRateNeverSamples() {
+        DecisionLog off = new DecisionLog(objectMapper, 0, 16);
+
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(off.sample());
+        }
+        assertTrue(new DecisionLog(objectMapper, 1, 16).sample());
+    }
+
+    @Test
+    void testFlushWritesOneExplainedLinePerRecordedCart() throws Exception {
+        DecisionLog log = new DecisionLog(objectMapper, 1, 16);
+        CartSummary summary = CartSummary.of(new CartRequest(new CartItem[]{new CartItem(5, 1, 4000)}, 4000));
+
+        log.record(summary, List.of(compiled("1", CouponType.CART_WISE, Map.of("threshold", 100, "discount", 10)),
+                compiled("2", CouponType.PRODUCT_WISE, Map.of("product_id", 5, "discount", 15))));
+        assertTrue(appender.list.isEmpty());
+        log.flush();
+
+        assertEquals(1, appender.list.size());
+        JsonNode line = objectMapper.readTree(appender.list.get(0).getFormattedMessage());
+        assertEquals(40.0, line.get("totalPrice").asDouble());
+        assertEquals(5, line.get("items").get(0).get("product_id").asInt());
+        JsonNode cartWise = line.get("decisions").get(0);
+        assertEquals("1", cartWise.get("couponId").asText());
+        assertFalse(cartWise.get("applicable").asBoolean());
+        assertEquals("cart_total > threshold", cartWise.get("predicate").asText());
+        assertEquals(100, cartWise.get("values").get("threshold").asInt());
+        assertTrue(line.get("decisions").get(1).get("applicable").asBoolean());
+    }
+
+    @Test
+    void testFullLogDropsAndCountsInsteadOfWaiting() {
+        DecisionLog log = new DecisionLog(objectMapper, 1, 2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        log.bindTo(registry);
+        CartSummary summary = CartSummary.of(new CartRequest(new CartItem[0], 0));
+
+        for (int i = 0; i < 5; i++) {
+            log.record(summary, List.of());
+        }
+        log.flush();
+        log.record(summary, List.of());
+
+        assertEquals(3.0, registry.get("coupon.decisions").tag("result", "recorded").functionCounter().count());
+        assertEquals(3.0, registry.get("coupon.decisions").tag("result", "dropped").functionCounter().count());
+        assertEquals(2, appender.list.size());
+    }
+
+    private static CompiledCoupon compiled(String id, CouponType type, Map<String, Object> details) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setType(type);
+        coupon.setDetails(details);
+        coupon.setActive(true);
+        coupon.setExpirationDate(LocalDate.now().plusDays(30));
+        return new CompiledCoupon(coupon, CouponRuleCompiler.compile(coupon));
+    }
+}
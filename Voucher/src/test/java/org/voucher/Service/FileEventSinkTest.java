@@ -0,0 +1,80 @@
+package org.voucher.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.voucher.model.CouponEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileEventSinkTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-18T10:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void testEventsAreWrittenAsJsonLines() throws IOException {
+        FileEventSink sink = new FileEventSink(objectMapper, directory, 1 << 20, CLOCK);
+        CouponEvent applied = CouponEvent.of(CouponEvent.Type.APPLIED, "a");
+        applied.setDiscountCents(250L);
+        CouponEvent shown = CouponEvent.of(CouponEvent.Type.SHOWN, null);
+        shown.setCouponIds(List.of("a", "b"));
+
+        sink.write(List.of(applied, shown));
+        sink.close();
+
+        List<String> lines = Files.readAllLines(directory.resolve("coupon-events-2026-10-18.0.jsonl"));
+        assertEquals(2, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("APPLIED", first.get("type").asText());
+        assertEquals(250, first.get("discountCents").asLong());
+        assertFalse(first.has("userId"));
+        assertEquals("b", objectMapper.readTree(lines.get(1)).get("couponIds").get(1).asText());
+    }
+
+    @Test
+    void testABatchIsNeverSplitAcrossFiles() throws IOException {
+        FileEventSink sink = new FileEventSink(objectMapper, directory, 10, CLOCK);
+
+        sink.write(List.of(CouponEvent.of(CouponEvent.Type.CREATED, "a"), CouponEvent.of(CouponEvent.Type.CREATED, "b"),
+                CouponEvent.of(CouponEvent.Type.CREATED, "c")));
+        sink.close();
+
+        assertEquals(3, Files.readAllLines(directory.resolve("coupon-events-2026-10-18.0.jsonl")).size());
+        assertFalse(Files.exists(directory.resolve("coupon-events-2026-10-18.1.jsonl")));
+    }
+
+    @Test
+    void testFileRollsOverOnceItPassesTheSizeLimit() throws IOException {
+        FileEventSink sink = new FileEventSink(objectMapper, directory, 10, CLOCK);
+
+        for (int i = 0; i < 3; i++) {
+            sink.write(List.of(CouponEvent.of(CouponEvent.Type.CREATED, "coupon-" + i)));
+        }
+        sink.close();
+        // A restarted sink never appends to an earlier file
+        new FileEventSink(objectMapper, directory, 10, CLOCK).write(List.of(CouponEvent.of(CouponEvent.Type.DELETED, "x")));
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<String> names = files.map(file -> file.getFileName().toString()).sorted().toList();
+            assertEquals(List.of("coupon-events-2026-10-18.0.jsonl", "coupon-events-2026-10-18.1.jsonl",
+                    "coupon-events-2026-10-18.2.jsonl", "coupon-events-2026-10-18.3.jsonl"), names);
+        }
+    }
+}
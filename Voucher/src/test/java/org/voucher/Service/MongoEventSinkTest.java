@@ -0,0 +1,103 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.voucher.model.CouponEvent;
+import org.voucher.model.CouponStats;
+import org.voucher.repository.CouponEventRepository;
+import org.voucher.repository.CouponStatsRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MongoEventSinkTest {
+
+    private static final Instant T = Instant.parse("2026-10-18T10:00:00Z");
+
+    @Mock
+    private CouponEventRepository eventRepository;
+
+    @Mock
+    private CouponStatsRepository statsRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAuditEventsAreInsertedAndCountsSummedPerCoupon() {
+        MongoEventSink sink = new MongoEventSink(eventRepository, statsRepository);
+        CouponEvent created = event(CouponEvent.Type.CREATED, "a", T);
+        CouponEvent applied = event(CouponEvent.Type.APPLIED, "a", T.plusSeconds(1));
+        CouponEvent redeemed = event(CouponEvent.Type.REDEEMED, "a", T.plusSeconds(2));
+        CouponEvent shown = event(CouponEvent.Type.SHOWN, null, T.plusSeconds(3));
+        shown.setCouponIds(List.of("a", "b"));
+        CouponEvent shownAgain = event(CouponEvent.Type.SHOWN, null, T);
+        shownAgain.setCouponIds(List.of("b"));
+
+        sink.write(List.of(created, applied, redeemed, shown, shownAgain));
+
+        verify(eventRepository).insertUnordered(List.of(created, applied, redeemed));
+        ArgumentCaptor<Collection<CouponStats>> deltas = ArgumentCaptor.forClass(Collection.class);
+        verify(statsRepository).increment(deltas.capture(), eq(created.getId()));
+        Map<String, CouponStats> byCoupon = new ArrayList<>(deltas.getValue()).stream()
+                .collect(Collectors.toMap(CouponStats::getCouponId, Function.identity()));
+        assertEquals(new CouponStats("a", 1, 1, 1, T.plusSeconds(3)), byCoupon.get("a"));
+        assertEquals(new CouponStats("b", 2, 0, 0, T.plusSeconds(3)), byCoupon.get("b"));
+    }
+
+    @Test
+    void testImpressionsAloneInsertNoAuditEvents() {
+        MongoEventSink sink = new MongoEventSink(eventRepository, statsRepository);
+        CouponEvent shown = event(CouponEvent.Type.SHOWN, null, T);
+        shown.setCouponIds(List.of("a"));
+
+        sink.write(List.of(shown));
+
+        verify(eventRepository, never()).insertUnordered(any());
+        verify(statsRepository).increment(anyCollection(), eq(shown.getId()));
+    }
+
+    @Test
+    void testRetryAfterAFailedStatsWriteOnlyRepeatsTheStats() {
+        MongoEventSink sink = new MongoEventSink(eventRepository, statsRepository);
+        CouponEvent applied = event(CouponEvent.Type.APPLIED, "a", T);
+        doThrow(new IllegalStateException("timeout")).doNothing()
+                .when(statsRepository).increment(anyCollection(), anyString());
+
+        assertThrows(IllegalStateException.class, () -> sink.write(List.of(applied)));
+        sink.write(List.of(applied));
+
+        verify(eventRepository, times(1)).insertUnordered(List.of(applied));
+        // The same batch id both times, so stats that took the first attempt skip the second
+        verify(statsRepository, times(2)).increment(anyCollection(), eq(applied.getId()));
+
+        CouponEvent next = event(CouponEvent.Type.APPLIED, "a", T.plusSeconds(1));
+        sink.write(List.of(next));
+        verify(eventRepository).insertUnordered(List.of(next));
+    }
+
+    @Test
+    void testEventsCarryTheirOwnIds() {
+        CouponEvent first = CouponEvent.of(CouponEvent.Type.CREATED, "a");
+        CouponEvent second = CouponEvent.of(CouponEvent.Type.CREATED, "a");
+
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    private static CouponEvent event(CouponEvent.Type type, String couponId, Instant at) {
+        CouponEvent event = CouponEvent.of(type, couponId);
+        event.setAt(at);
+        return event;
+    }
+}
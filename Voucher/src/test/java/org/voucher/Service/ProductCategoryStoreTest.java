@@ -0,0 +1,65 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCategoryStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testParseSkipsHeaderAndCommentsAndAllowsMissingBrand() throws Exception {
+        ProductCategories categories = ProductCategories.parse(new StringReader(
+                "product_id,category_id,brand_id\n# shoes\n1,10,100\n2,10,\n\n3,,300\n"));
+
+        assertEquals(10, categories.categoryOf(1));
+        assertEquals(100, categories.brandOf(1));
+        assertEquals(ProductCategories.UNKNOWN, categories.brandOf(2));
+        assertEquals(ProductCategories.UNKNOWN, categories.categoryOf(3));
+        assertEquals(300, categories.brandOf(3));
+        assertEquals(ProductCategories.UNKNOWN, categories.categoryOf(4));
+    }
+
+    @Test
+    void testParseRejectsMalformedLines() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> ProductCategories.parse(new StringReader("1,10\n2,ten\n")));
+        assertTrue(exception.getMessage().startsWith("Line 2"));
+    }
+
+    @Test
+    void testReloadsWhenTheFileChangesAndKeepsTheLastGoodOne() throws Exception {
+        Path file = dir.resolve("products.csv");
+        Files.writeString(file, "1,10\n");
+        ProductCategoryStore store = new ProductCategoryStore(file.toString());
+        store.load();
+        assertEquals(10, store.current().categoryOf(1));
+
+        Files.writeString(file, "1,11\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+        store.reloadIfChanged();
+        assertEquals(11, store.current().categoryOf(1));
+
+        Files.writeString(file, "1,eleven\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(20)));
+        store.reloadIfChanged();
+        assertEquals(11, store.current().categoryOf(1));
+    }
+
+    @Test
+    void testNoFileConfiguredMeansNoCategories() {
+        ProductCategoryStore store = new ProductCategoryStore("");
+        store.load();
+
+        assertSame(ProductCategories.EMPTY, store.current());
+    }
+}
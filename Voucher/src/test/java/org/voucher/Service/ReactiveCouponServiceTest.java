@@ -0,0 +1,150 @@
+package org.voucher.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.metrics.CouponMetrics;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+import org.voucher.repository.CouponRepository;
+import org.voucher.repository.ReactiveCouponRepository;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveCouponServiceTest {
+
+    @Mock
+    private CatalogSync catalogSync;
+
+    @Mock
+    private CouponEventPublisher events;
+
+    @Mock
+    private ReactiveCouponRepository reactiveCouponRepository;
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    private CouponCatalog couponCatalog;
+    private ReactiveCouponService reactiveCouponService;
+
+    @BeforeEach
+    void setUp() {
+        couponCatalog = new CouponCatalog(couponRepository);
+        CouponService couponService = new CouponService(couponRepository, couponCatalog,
+                new CouponMetrics(new SimpleMeterRegistry()), new ProductCategoryStore(""),
+                new CouponCodeIndex(couponRepository, 0.001), catalogSync,
+                new DecisionLog(new ObjectMapper(), 0, 16), events, new ApplicableCouponCache(100, 60_000));
+        reactiveCouponService = new ReactiveCouponService(reactiveCouponRepository, couponService, couponCatalog,
+                catalogSync, events);
+    }
+
+    @Test
+    void testCreateCouponAddsItToTheCatalog() {
+        when(reactiveCouponRepository.save(any(Coupon.class))).thenAnswer(invocation -> {
+            Coupon saved = invocation.getArgument(0);
+            saved.setId("1");
+            return Mono.just(saved);
+        });
+
+        StepVerifier.create(reactiveCouponService.createCoupon(cartWise(null, 100)))
+                .assertNext(saved -> assertTrue(saved.isActive()))
+                .verifyComplete();
+
+        assertEquals(1, couponCatalog.size());
+    }
+
+    @Test
+    void testCreateCouponRejectsMalformedDetailsWithoutSaving() {
+        Coupon coupon = cartWise(null, 100);
+        coupon.setDetails(Map.of("threshold", "100", "discount", 10));
+
+        StepVerifier.create(reactiveCouponService.createCoupon(coupon))
+                .expectError(InvalidCouponException.class)
+                .verify();
+
+        verify(reactiveCouponRepository, never()).save(any(Coupon.class));
+    }
+
+    @Test
+    void testUpdateCouponKeepsTheExistingLifecycleAndNormalizesTheCode() {
+        Coupon existing = cartWise("1", 100);
+        existing.setCreationDate(LocalDate.of(2026, 1, 1));
+        existing.setActive(false);
+        when(reactiveCouponRepository.findById("1")).thenReturn(Mono.just(existing));
+        when(reactiveCouponRepository.save(any(Coupon.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        Coupon update = cartWise(null, 200);
+        update.setCode(" spring-10 ");
+
+        StepVerifier.create(reactiveCouponService.updateCoupon("1", update))
+                .assertNext(saved -> {
+                    assertEquals("1", saved.getId());
+                    assertEquals("SPRING-10", saved.getCode());
+                    assertEquals(LocalDate.of(2026, 1, 1), saved.getCreationDate());
+                    assertFalse(saved.isActive());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetApplicableCouponsEmitsOnlyAsFarAsDemanded() {
+        couponCatalog.upsert(cartWise("1", 50));
+        couponCatalog.upsert(cartWise("2", 100));
+        couponCatalog.upsert(cartWise("3", 500));
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
+
+        StepVerifier.create(reactiveCouponService.streamApplicableCoupons(cart), 1)
+                .assertNext(coupon -> assertEquals("1", coupon.getId()))
+                .thenRequest(5)
+                .assertNext(coupon -> assertEquals("2", coupon.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetApplicableCouponsAnswersARepeatedCartFromTheCache() {
+        couponCatalog.upsert(cartWise("1", 50));
+        CartRequest cart = new CartRequest(new CartItem[0], 20000);
+
+        List<Coupon> first = reactiveCouponService.getApplicableCoupons(cart).block();
+        List<Coupon> second = reactiveCouponService.getApplicableCoupons(cart).block();
+
+        assertEquals(1, first.size());
+        assertSame(first, second);
+    }
+
+    @Test
+    void testApplyCouponToCartNotFound() {
+        when(reactiveCouponRepository.findById("missing")).thenReturn(Mono.empty());
+
+        StepVerifier.create(reactiveCouponService.applyCouponToCart("missing", new CartRequest(new CartItem[0], 1000)))
+                .expectErrorMessage("Coupon not found")
+                .verify();
+    }
+
+    private Coupon cartWise(String id, int threshold) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setType(CouponType.CART_WISE);
+        coupon.setDetails(Map.of("threshold", threshold, "discount", 10));
+        coupon.setActive(true);
+        coupon.setCreationDate(LocalDate.now());
+        coupon.setExpirationDate(LocalDate.now().plusDays(30));
+        return coupon;
+    }
+}
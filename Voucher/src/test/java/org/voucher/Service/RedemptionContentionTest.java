@@ -0,0 +1,79 @@
+package org.voucher.Service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.voucher.exception.RedemptionLimitException;
+import org.voucher.model.Coupon;
+import org.voucher.model.UserRedemption;
+import org.voucher.repository.RedemptionCounterRepository;
+import org.voucher.repository.UserRedemptionRepository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+// Thousands of concurrent redemptions from two service instances (two nodes) against one mongod.
+// Run with ./gradlew embeddedMongoTest
+@Tag("embedded-mongo")
+@DataMongoTest(properties = "de.flapdoodle.mongodb.embedded.version=7.0.14")
+public class RedemptionContentionTest {
+
+    private static final int LIMIT = 2000;
+    private static final int PER_USER_LIMIT = 2;
+    private static final int ATTEMPTS = 10000;
+    private static final int USERS = 3000;
+
+    @Autowired
+    private RedemptionCounterRepository counterRepository;
+
+    @Autowired
+    private UserRedemptionRepository userRedemptionRepository;
+
+    @Test
+    void testNoOversellingUnderContention() throws Exception {
+        Coupon coupon = new Coupon();
+        coupon.setId("flash-sale");
+        coupon.setMaxRedemptions(LIMIT);
+        coupon.setMaxRedemptionsPerUser(PER_USER_LIMIT);
+        RedemptionService[] nodes = {node(), node()};
+        AtomicInteger redeemed = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < ATTEMPTS; i++) {
+                RedemptionService node = nodes[i % nodes.length];
+                String userId = "user-" + (i % USERS);
+                executor.submit(() -> {
+                    try {
+                        node.reserve(coupon, userId);
+                        redeemed.incrementAndGet();
+                    } catch (RedemptionLimitException e) {
+                        // expected once a limit is reached
+                    }
+                });
+            }
+        }
+        for (RedemptionService node : nodes) {
+            node.releaseLeases();
+        }
+
+        assertEquals(LIMIT, redeemed.get());
+        assertEquals(LIMIT, counterRepository.findById("flash-sale").orElseThrow().getReserved());
+        long perUserTotal = 0;
+        for (UserRedemption redemption : userRedemptionRepository.findAll()) {
+            perUserTotal += redemption.getCount();
+            assertTrue(redemption.getCount() <= PER_USER_LIMIT, redemption.getUserId());
+        }
+        assertEquals(LIMIT, perUserTotal);
+    }
+
+    private RedemptionService node() {
+        return new RedemptionService(mock(CouponService.class), counterRepository, userRedemptionRepository,
+                mock(CouponEventPublisher.class), 50);
+    }
+}
@@ -0,0 +1,215 @@
+package org.voucher.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.exception.RedemptionLimitException;
+import org.voucher.metrics.CouponMetrics;
+import org.voucher.model.ApplyCouponResponse;
+import org.voucher.model.CartItem;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponType;
+import org.voucher.repository.CouponRepository;
+import org.voucher.repository.RedemptionCounterRepository;
+import org.voucher.repository.UserRedemptionRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RedemptionServiceTest {
+
+    @Mock
+    private CouponService couponService;
+
+    @Mock
+    private CouponEventPublisher events;
+
+    @Mock
+    private RedemptionCounterRepository counterRepository;
+
+    @Mock
+    private UserRedemptionRepository userRedemptionRepository;
+
+    // In-memory stand-ins for the conditional updates the repositories run in Mongo
+    private final AtomicLong reserved = new AtomicLong();
+    private final Map<String, AtomicInteger> userCounts = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(counterRepository.reserve(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long requested = invocation.getArgument(1);
+            long limit = invocation.getArgument(2);
+            long before = reserved.getAndUpdate(current -> Math.min(limit, current + requested));
+            return Math.max(0, Math.min(requested, limit - before));
+        });
+        lenient().when(userRedemptionRepository.tryRedeem(anyString(), anyString(), anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(2);
+            AtomicInteger count = userCounts.computeIfAbsent(invocation.getArgument(1), user -> new AtomicInteger());
+            return count.getAndUpdate(current -> current < limit ? current + 1 : current) < limit;
+        });
+    }
+
+    @Test
+    void testConcurrentRedemptionsAcrossNodesNeverOversell() throws Exception {
+        Coupon coupon = coupon(1000, null);
+        // Two nodes sharing one counter, each with its own leases
+        RedemptionService[] nodes = {service(50), service(50)};
+        AtomicInteger redeemed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 5000; i++) {
+                RedemptionService node = nodes[i % 2];
+                executor.submit(() -> {
+                    try {
+                        node.reserve(coupon, null);
+                        redeemed.incrementAndGet();
+                    } catch (RedemptionLimitException e) {
+                        rejected.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        // Demand far outruns supply, so both nodes drain their leases: every unit sold, none twice
+        assertEquals(1000, redeemed.get());
+        assertEquals(4000, rejected.get());
+        assertEquals(1000, reserved.get());
+    }
+
+    @Test
+    void testLeaseServesRedemptionsWithoutGoingToMongo() {
+        RedemptionService service = service(50);
+        Coupon coupon = coupon(10000, null);
+
+        for (int i = 0; i < 100; i++) {
+            service.reserve(coupon, null);
+        }
+
+        verify(counterRepository, times(2)).reserve("c1", 50, 10000);
+    }
+
+    @Test
+    void testPerUserLimitGivesTheLeasedUnitBack() {
+        RedemptionService service = service(1);
+        Coupon coupon = coupon(2, 1);
+
+        service.reserve(coupon, "u1");
+        assertThrows(RedemptionLimitException.class, () -> service.reserve(coupon, "u1"));
+        service.reserve(coupon, "u2");
+
+        assertThrows(RedemptionLimitException.class, () -> service.reserve(coupon, "u3"));
+        assertEquals(2, reserved.get());
+    }
+
+    @Test
+    void testPerUserLimitRequiresUserId() {
+        RedemptionService service = service(1);
+
+        assertThrows(InvalidCouponException.class, () -> service.reserve(coupon(null, 1), null));
+        verifyNoInteractions(userRedemptionRepository);
+    }
+
+    @Test
+    void testUnlimitedCouponsSkipTheCounters() {
+        service(50).reserve(coupon(null, null), null);
+
+        verifyNoInteractions(counterRepository, userRedemptionRepository);
+    }
+
+    @Test
+    void testRedeemDoesNotCountCouponsThatDoNotApply() {
+        Coupon coupon = coupon(10, null);
+        CartRequest cart = new CartRequest(new CartItem[0], 0);
+        when(couponService.getCouponById("c1")).thenReturn(Optional.of(coupon));
+        when(couponService.applyCouponForRedemption(coupon, cart)).thenThrow(new RuntimeException("Coupon is either inactive or expired"));
+
+        assertThrows(RuntimeException.class, () -> service(5).redeem("c1", "u1", cart));
+        verifyNoInteractions(counterRepository, events);
+    }
+
+    @Test
+    void testCartsTheCouponDoesNotApplyToLeaveTheCountersUnchanged() {
+        CouponRepository couponRepository = mock(CouponRepository.class);
+        CouponService realCouponService = new CouponService(couponRepository, new CouponCatalog(couponRepository),
+                new CouponMetrics(new SimpleMeterRegistry()), new ProductCategoryStore(""),
+                new CouponCodeIndex(couponRepository, 0.001), mock(CatalogSync.class),
+                new DecisionLog(new ObjectMapper(), 0, 16), events, new ApplicableCouponCache(0, 0));
+        RedemptionService service = new RedemptionService(realCouponService, counterRepository,
+                userRedemptionRepository, events, 5);
+        Coupon cartWise = coupon(10, 1);
+        cartWise.setType(CouponType.CART_WISE);
+        cartWise.setDetails(Map.of("threshold", 100, "discount", 10));
+        Coupon bxgy = coupon(10, 1);
+        bxgy.setId("c2");
+        bxgy.setType(CouponType.BXGY);
+        bxgy.setDetails(Map.of(
+                "buy_products", List.of(Map.of("product_id", 1, "quantity", 2)),
+                "get_products", List.of(Map.of("product_id", 2, "quantity", 1)),
+                "repetition_limit", 1));
+        when(couponRepository.findById("c1")).thenReturn(Optional.of(cartWise));
+        when(couponRepository.findById("c2")).thenReturn(Optional.of(bxgy));
+        // 50.00 is under the threshold, and the cart holds no product 2 to give away
+        CartRequest cart = new CartRequest(new CartItem[]{new CartItem(1, 2, 5000)}, 5000);
+
+        assertThrows(InvalidCouponException.class, () -> service.redeem("c1", "u1", cart));
+        assertThrows(InvalidCouponException.class, () -> service.redeem("c2", "u1", cart));
+
+        verifyNoInteractions(counterRepository, userRedemptionRepository);
+        verify(events, never()).redeemed(any(), any(), anyLong());
+    }
+
+    @Test
+    void testRedeemReturnsTheAppliedCart() {
+        Coupon coupon = coupon(10, null);
+        CartRequest cart = new CartRequest(new CartItem[0], 10000);
+        ApplyCouponResponse applied = new ApplyCouponResponse(new CartItem[0], 1000, 9000);
+        when(couponService.getCouponById("c1")).thenReturn(Optional.of(coupon));
+        when(couponService.applyCouponForRedemption(coupon, cart)).thenReturn(applied);
+
+        assertSame(applied, service(5).redeem("c1", "u1", cart));
+        verify(events).redeemed(coupon, "u1", 1000);
+    }
+
+    @Test
+    void testReleaseLeasesReturnsUnusedUnits() {
+        RedemptionService service = service(50);
+        service.reserve(coupon(1000, null), null);
+
+        service.releaseLeases();
+
+        verify(counterRepository).release("c1", 49);
+    }
+
+    private RedemptionService service(int leaseSize) {
+        return new RedemptionService(couponService, counterRepository, userRedemptionRepository, events, leaseSize);
+    }
+
+    private Coupon coupon(Integer maxRedemptions, Integer maxRedemptionsPerUser) {
+        Coupon coupon = new Coupon();
+        coupon.setId("c1");
+        coupon.setMaxRedemptions(maxRedemptions);
+        coupon.setMaxRedemptionsPerUser(maxRedemptionsPerUser);
+        coupon.setActive(true);
+        coupon.setExpirationDate(LocalDate.now().plusDays(30));
+        return coupon;
+    }
+}
@@ -1,22 +1,35 @@
 package org.voucher.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.voucher.Service.BatchCouponService;
+import org.voucher.Service.CouponImportService;
+import org.voucher.Service.CouponOptimizer;
 import org.voucher.Service.CouponService;
+import org.voucher.Service.RedemptionService;
 import org.voucher.model.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -26,6 +39,21 @@ public class CouponControllerTest {
     @Mock
     private CouponService couponService;
 
+    @Mock
+    private BatchCouponService batchCouponService;
+
+    @Mock
+    private CouponOptimizer couponOptimizer;
+
+    @Mock
+    private RedemptionService redemptionService;
+
+    @Mock
+    private CouponImportService couponImportService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private CouponController couponController;
 
@@ -59,14 +87,40 @@ public class CouponControllerTest {
     @Test
     void testGetAllCoupons() {
         List<Coupon> coupons = List.of(coupon);
-        when(couponService.getAllCoupons()).thenReturn(coupons);
+        when(couponService.getCouponsPage(null, 100)).thenReturn(coupons);
 
-        ResponseEntity<List<Coupon>> response = couponController.getAllCoupons();
+        ResponseEntity<List<Coupon>> response = couponController.getAllCoupons(null, 100);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(1, response.getBody().size());
-        verify(couponService, times(1)).getAllCoupons();
+        assertNull(response.getHeaders().getFirst(CouponController.NEXT_CURSOR_HEADER));
+        verify(couponService, times(1)).getCouponsPage(null, 100);
+    }
+
+    @Test
+    void testGetAllCoupons_FullPageReturnsCursor() {
+        Coupon second = new Coupon();
+        second.setId("2");
+        when(couponService.getCouponsPage("0", 2)).thenReturn(List.of(coupon, second));
+
+        ResponseEntity<List<Coupon>> response = couponController.getAllCoupons("0", 2);
+
+        assertEquals("2", response.getHeaders().getFirst(CouponController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testExportCoupons() throws Exception {
+        when(couponService.streamAllCoupons()).thenReturn(Stream.of(coupon, coupon));
+
+        ResponseEntity<StreamingResponseBody> response = couponController.exportCoupons();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(CouponController.NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":\"1\""));
     }
 
     @Test
@@ -115,40 +169,122 @@ public class CouponControllerTest {
 
     @Test
     void testGetApplicableCoupons() {
-        CartRequest cartRequest = new CartRequest();
-        cartRequest.setItems(List.of(Map.of("itemId", "101", "quantity", 2)));
-        cartRequest.setTotalPrice(200.0);
+        CartRequest cartRequest = new CartRequest(new CartItem[]{new CartItem(101, 2, 10000)}, 20000);
 
-        when(couponService.getApplicableCoupons(any(Map.class))).thenReturn(List.of(coupon));
+        when(couponService.getApplicableCoupons(cartRequest)).thenReturn(List.of(coupon));
 
-        ResponseEntity<ApplicableCouponResponse> response = couponController.getApplicableCoupons(cartRequest);
+        ResponseEntity<ApplicableCouponResponse> response = couponController.getApplicableCoupons(cartRequest, false, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(1, response.getBody().getApplicableCoupons().size());
-        verify(couponService, times(1)).getApplicableCoupons(any(Map.class));
+        assertNull(response.getBody().getDecisions());
+        verify(couponService, times(1)).getApplicableCoupons(cartRequest);
+        verify(couponService, never()).explainApplicableCoupons(any(), any());
     }
 
     @Test
-    void testApplyCouponToCart() {
-        CartRequest cartRequest = new CartRequest();
-        cartRequest.setItems(List.of(Map.of("itemId", "101", "quantity", 2)));
-        cartRequest.setTotalPrice(200.0);
+    void testGetApplicableCouponsWithExplanations() {
+        CartRequest cartRequest = new CartRequest(new CartItem[]{new CartItem(101, 2, 10000)}, 20000);
+        List<CouponDecision> decisions = List.of(
+                new CouponDecision("1", CouponType.CART_WISE, true, "cart_total > threshold", Map.of()),
+                new CouponDecision("9", null, false, "coupon exists", Map.of("coupon_id", "9")));
+        when(couponService.getApplicableCoupons(cartRequest)).thenReturn(List.of(coupon));
+        when(couponService.explainApplicableCoupons(cartRequest, List.of("9"))).thenReturn(decisions);
+
+        ResponseEntity<ApplicableCouponResponse> response =
+                couponController.getApplicableCoupons(cartRequest, true, List.of("9"));
+
+        assertNotNull(response.getBody());
+        assertEquals(decisions, response.getBody().getDecisions());
+    }
+
+    @Test
+    void testGetBestCoupons() {
+        CartRequest cartRequest = new CartRequest(new CartItem[0], 20000);
+        List<RankedCoupon> ranked = List.of(new RankedCoupon(coupon, 2000));
+        when(couponOptimizer.getBestCoupons(cartRequest, 5)).thenReturn(ranked);
+
+        ResponseEntity<BestCouponsResponse> response = couponController.getBestCoupons(cartRequest, 5, false);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(ranked, response.getBody().getBestCoupons());
+        assertNull(response.getBody().getBestStack());
+        verify(couponOptimizer, never()).getBestStack(any(CartRequest.class));
+    }
 
-        Map<String, Object> updatedCart = Map.of(
-                "items", cartRequest.getItems(),
-                "totalDiscount", 20.0,
-                "finalPrice", 180.0
-        );
+    @Test
+    void testApplyCouponToCart() {
+        CartRequest cartRequest = new CartRequest(new CartItem[]{new CartItem(101, 2, 20000)}, 20000);
+        ApplyCouponResponse updatedCart = new ApplyCouponResponse(cartRequest.getItems(), 2000, 18000);
 
-        when(couponService.applyCouponToCart(eq("1"), any(Map.class))).thenReturn(updatedCart);
+        when(couponService.applyCouponToCart("1", cartRequest)).thenReturn(updatedCart);
 
         ResponseEntity<ApplyCouponResponse> response = couponController.applyCouponToCart("1", cartRequest);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(20.0, response.getBody().getTotalDiscount());
-        assertEquals(180.0, response.getBody().getFinalPrice());
-        verify(couponService, times(1)).applyCouponToCart(eq("1"), any(Map.class));
+        assertEquals(2000, response.getBody().getTotalDiscountCents());
+        assertEquals(18000, response.getBody().getFinalPriceCents());
+        verify(couponService, times(1)).applyCouponToCart("1", cartRequest);
+    }
+
+    @Test
+    void testRedeemCoupon() {
+        CartRequest cartRequest = new CartRequest(new CartItem[]{new CartItem(101, 2, 20000)}, 20000);
+        RedeemRequest request = new RedeemRequest();
+        request.setUserId("u1");
+        request.setCart(cartRequest);
+        ApplyCouponResponse redeemed = new ApplyCouponResponse(cartRequest.getItems(), 2000, 18000);
+
+        when(redemptionService.redeem("1", "u1", cartRequest)).thenReturn(redeemed);
+
+        ResponseEntity<ApplyCouponResponse> response = couponController.redeemCoupon("1", request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(redeemed, response.getBody());
+    }
+
+    @Test
+    void testApplyBatch() {
+        BatchCartRequest entry = new BatchCartRequest();
+        entry.setCouponId("1");
+        entry.setCart(new CartRequest());
+        BatchApplyRequest request = new BatchApplyRequest();
+        request.setCarts(List.of(entry));
+        BatchCartResult result = new BatchCartResult();
+        result.setCouponId("1");
+        result.setError("Coupon not found");
+
+        when(batchCouponService.evaluate(request.getCarts())).thenReturn(List.of(result));
+
+        ResponseEntity<BatchApplyResponse> response = couponController.applyBatch(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(List.of(result), response.getBody().getResults());
+    }
+
+    @Test
+    void testImportCouponsPicksTheFormatFromTheContentType() throws Exception {
+        ImportResult result = new ImportResult();
+        result.setInserted(1);
+        when(couponImportService.importCoupons(any(), eq(ImportFormat.CSV))).thenReturn(result);
+
+        ResponseEntity<ImportResult> response = couponController.importCoupons("text/csv; charset=utf-8",
+                new ByteArrayInputStream("code,type\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getInserted());
+    }
+
+    @Test
+    void testGetCouponByCode() {
+        when(couponService.getCouponByCode("spring-10")).thenReturn(Optional.of(coupon));
+        when(couponService.getCouponByCode("GUESS")).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.OK, couponController.getCouponByCode("spring-10").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, couponController.getCouponByCode("GUESS").getStatusCode());
     }
 }
@@ -0,0 +1,236 @@
+package org.voucher.controller;
+
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.voucher.Service.BatchCouponService;
+import org.voucher.Service.CouponImportService;
+import org.voucher.Service.CouponOptimizer;
+import org.voucher.Service.ReactiveCouponService;
+import org.voucher.Service.RedemptionService;
+import org.voucher.exception.RedemptionLimitException;
+import org.voucher.model.CartRequest;
+import org.voucher.model.Coupon;
+import org.voucher.model.CouponDecision;
+import org.voucher.model.CouponRequest;
+import org.voucher.model.CouponType;
+import org.voucher.model.ImportFormat;
+import org.voucher.model.ImportResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CouponRouterTest {
+
+    private static final String CART = "{\"items\":[],\"totalPrice\":200.0}";
+
+    @Mock
+    private ReactiveCouponService couponService;
+
+    @Mock
+    private BatchCouponService batchCouponService;
+
+    @Mock
+    private CouponOptimizer couponOptimizer;
+
+    @Mock
+    private RedemptionService redemptionService;
+
+    @Mock
+    private CouponImportService couponImportService;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        CouponHandler handler = new CouponHandler(couponService, batchCouponService, couponOptimizer, redemptionService,
+                couponImportService, Validation.buildDefaultValidatorFactory().getValidator());
+        client = WebTestClient.bindToRouterFunction(new CouponRouter().couponRoutes(handler)).build();
+    }
+
+    @Test
+    void testGetAllCouponsSetsCursorOnFullPage() {
+        when(couponService.getCouponsPage(null, 2)).thenReturn(Flux.just(coupon("a"), coupon("b")));
+
+        client.get().uri("/api/v1/coupons?limit=2").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(CouponController.NEXT_CURSOR_HEADER, "b")
+                .expectBody().jsonPath("$.length()").isEqualTo(2);
+    }
+
+    @Test
+    void testGetCouponByIdNotFound() {
+        when(couponService.getCouponById("missing")).thenReturn(Mono.empty());
+
+        client.get().uri("/api/v1/coupons/missing").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testApplicableCouponsKeepsTheControllerResponseShape() {
+        when(couponService.getApplicableCoupons(any(CartRequest.class))).thenReturn(Mono.just(List.of(coupon("a"))));
+
+        client.post().uri("/api/v1/coupons/applicable-coupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(CART)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.applicableCoupons[0].id").isEqualTo("a");
+    }
+
+    @Test
+    void testApplicableCouponsExplainsDecisionsWhenAsked() {
+        when(couponService.getApplicableCoupons(any(CartRequest.class))).thenReturn(Mono.just(List.of(coupon("a"))));
+        when(couponService.explainApplicableCoupons(any(CartRequest.class), eq(List.of("b")))).thenReturn(Mono.just(List.of(
+                new CouponDecision("b", CouponType.PRODUCT_WISE, false, "product_id in cart", Map.of("product_id", 7)))));
+
+        client.post().uri("/api/v1/coupons/applicable-coupons?explain=true&coupon=b")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(CART)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.applicableCoupons[0].id").isEqualTo("a")
+                .jsonPath("$.decisions[0].predicate").isEqualTo("product_id in cart")
+                .jsonPath("$.decisions[0].values.product_id").isEqualTo(7);
+    }
+
+    @Test
+    void testApplicableCouponsStreamsNdjsonWhenAsked() {
+        when(couponService.streamApplicableCoupons(any(CartRequest.class))).thenReturn(Flux.just(coupon("a"), coupon("b")));
+
+        client.post().uri("/api/v1/coupons/applicable-coupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(CART)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Coupon.class).hasSize(2);
+    }
+
+    @Test
+    void testExportStreamsNdjson() {
+        when(couponService.streamAllCoupons()).thenReturn(Flux.just(coupon("a"), coupon("b"), coupon("c")));
+
+        List<Coupon> exported = client.get().uri("/api/v1/coupons/export").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Coupon.class).getResponseBody().collectList().block();
+
+        assertEquals(3, exported.size());
+    }
+
+    @Test
+    void testRedeemAnswersConflictOnceTheLimitIsReached() {
+        when(redemptionService.redeem(eq("a"), eq("u1"), any(CartRequest.class)))
+                .thenThrow(new RedemptionLimitException("Coupon has reached its redemption limit"));
+
+        client.post().uri("/api/v1/coupons/a/redeem")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"userId\":\"u1\",\"cart\":" + CART + "}")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void testGenerateMintsFromTheTemplate() {
+        ImportResult result = new ImportResult();
+        result.setInserted(3);
+        when(couponImportService.generateCoupons(any(CouponRequest.class), eq(3), eq("BF-"))).thenReturn(result);
+
+        client.post().uri("/api/v1/coupons/generate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"template\":{\"type\":\"CART_WISE\",\"details\":{\"threshold\":100,\"discount\":10}},\"count\":3,\"prefix\":\"BF-\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.inserted").isEqualTo(3);
+    }
+
+    @Test
+    void testImportReadsTheBodyAsAStream() throws IOException {
+        when(couponImportService.importCoupons(any(Reader.class), eq(ImportFormat.CSV))).thenAnswer(invocation -> {
+            ImportResult result = new ImportResult();
+            result.setInserted(new BufferedReader(invocation.<Reader>getArgument(0)).lines().count() - 1);
+            return result;
+        });
+
+        client.post().uri("/api/v1/coupons/import")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .bodyValue("code,type\nA,cart-wise\nB,cart-wise\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.inserted").isEqualTo(2);
+    }
+
+    @Test
+    void testBatchWithoutCartsIsABadRequest() {
+        client.post().uri("/api/v1/coupons/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(batchCouponService);
+    }
+
+    @Test
+    void testCartWithNullItemsIsABadRequest() {
+        client.post().uri("/api/v1/coupons/best-coupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"items\":null,\"totalPrice\":200.0}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(couponOptimizer);
+    }
+
+    @Test
+    void testMissingBodyIsABadRequest() {
+        client.post().uri("/api/v1/coupons/applicable-coupons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testGenerateChecksTheRequestConstraints() {
+        client.post().uri("/api/v1/coupons/generate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"template\":{\"type\":\"CART_WISE\"},\"count\":0,\"prefix\":\"bf_\"}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(couponImportService);
+    }
+
+    @Test
+    void testMalformedLimitIsABadRequest() {
+        client.get().uri("/api/v1/coupons?limit=lots").exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private Coupon coupon(String id) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        return coupon;
+    }
+}
@@ -0,0 +1,133 @@
+package org.voucher.rule;
+
+import org.junit.jupiter.api.Test;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.model.CouponType;
+
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CouponRuleCompilerTest {
+
+    @Test
+    void testCompileCartWise() {
+        CouponRule rule = CouponRuleCompiler.compile(CouponType.CART_WISE, Map.of("threshold", 100, "discount", 12.5));
+
+        assertEquals(new CartWiseRule(100, 1250, RoundingMode.HALF_UP), rule);
+    }
+
+    @Test
+    void testCompileProductWiseAcceptsLongIds() {
+        CouponRule rule = CouponRuleCompiler.compile(CouponType.PRODUCT_WISE, Map.of("product_id", 7L, "discount", 20));
+
+        assertEquals(new ProductWiseRule(7, 2000, RoundingMode.HALF_UP), rule);
+    }
+
+    @Test
+    void testCompileBxGy() {
+        BxGyRule rule = (BxGyRule) CouponRuleCompiler.compile(CouponType.BXGY, Map.of(
+                "buy_products", List.of(Map.of("product_id", 1, "quantity", 2), Map.of("product_id", 2, "quantity", 1)),
+                "get_products", List.of(Map.of("product_id", 3, "quantity", 1)),
+                "repetition_limit", 3));
+
+        assertEquals(2, rule.buyCount());
+        assertEquals(2, rule.buyProductId(1));
+        assertEquals(2, rule.buyQuantity(0));
+        assertEquals(1, rule.getCount());
+        assertEquals(3, rule.getProductId(0));
+        assertEquals(3, rule.repetitionLimit());
+        assertEquals(BxGyRule.FreeItems.CHEAPEST, rule.freeItems());
+    }
+
+    @Test
+    void testCompileBxGyOnTheSameProduct() {
+        BxGyRule rule = (BxGyRule) CouponRuleCompiler.compile(CouponType.BXGY, Map.of(
+                "buy_products", List.of(Map.of("product_id", 1, "quantity", 2), Map.of("product_id", 2, "quantity", 1)),
+                "get_products", List.of(Map.of("product_id", 1, "quantity", 1)),
+                "repetition_limit", 3,
+                "free_items", "most_expensive"));
+
+        // Each repetition takes three units of product 1: two bought, one free
+        assertEquals(3, rule.buyNeed(0));
+        assertEquals(1, rule.buyNeed(1));
+        assertEquals(2, rule.getBoughtQuantity(0));
+        assertEquals(0, rule.getIndexOf(1));
+        assertEquals(-1, rule.getIndexOf(2));
+        assertEquals(BxGyRule.FreeItems.MOST_EXPENSIVE, rule.freeItems());
+    }
+
+    @Test
+    void testCompileCategoryWiseTakesCategoryOrBrand() {
+        assertEquals(new CategoryWiseRule(CategoryWiseRule.Scope.CATEGORY, 12, 1500, RoundingMode.HALF_UP),
+                CouponRuleCompiler.compile(CouponType.CATEGORY_WISE, Map.of("category_id", 12, "discount", 15)));
+        assertEquals(new CategoryWiseRule(CategoryWiseRule.Scope.BRAND, 3, 500, RoundingMode.HALF_UP),
+                CouponRuleCompiler.compile(CouponType.CATEGORY_WISE, Map.of("brand_id", 3, "discount", 5)));
+        assertThrows(InvalidCouponException.class, () -> CouponRuleCompiler.compile(CouponType.CATEGORY_WISE,
+                Map.of("category_id", 12, "brand_id", 3, "discount", 5)));
+        assertThrows(InvalidCouponException.class, () -> CouponRuleCompiler.compile(CouponType.CATEGORY_WISE,
+                Map.of("discount", 5)));
+    }
+
+    @Test
+    void testRejectsMissingDetails() {
+        assertThrows(InvalidCouponException.class,
+                () -> CouponRuleCompiler.compile(CouponType.PRODUCT_WISE, Map.of("discount", 10)));
+    }
+
+    @Test
+    void testRejectsFractionalIdsAndOutOfRangeDiscounts() {
+        assertThrows(InvalidCouponException.class,
+                () -> CouponRuleCompiler.compile(CouponType.PRODUCT_WISE, Map.of("product_id", 1.5, "discount", 10)));
+        assertThrows(InvalidCouponException.class,
+                () -> CouponRuleCompiler.compile(CouponType.CART_WISE, Map.of("threshold", 100, "discount", 150)));
+    }
+
+    @Test
+    void testCompileReadsRoundingMode() {
+        CouponRule rule = CouponRuleCompiler.compile(CouponType.CART_WISE,
+                Map.of("threshold", 0, "discount", 7.25, "rounding", "half_even"));
+
+        assertEquals(new CartWiseRule(0, 725, RoundingMode.HALF_EVEN), rule);
+    }
+
+    @Test
+    void testRejectsSubCentPercentagesAndUnknownRounding() {
+        InvalidCouponException precision = assertThrows(InvalidCouponException.class,
+                () -> CouponRuleCompiler.compile(CouponType.CART_WISE, Map.of("threshold", 0, "discount", 12.345)));
+        InvalidCouponException rounding = assertThrows(InvalidCouponException.class,
+                () -> CouponRuleCompiler.compile(CouponType.CART_WISE,
+                        Map.of("threshold", 0, "discount", 10, "rounding", "UNNECESSARY")));
+
+        assertEquals("Coupon detail 'discount' must have at most two decimal places", precision.getMessage());
+        assertTrue(rounding.getMessage().startsWith("Coupon detail 'rounding' must be one of"));
+    }
+
+    @Test
+    void testRejectsMalformedBxGyProducts() {
+        InvalidCouponException exception = assertThrows(InvalidCouponException.class,
+                () -> CouponRuleCompiler.compile(CouponType.BXGY, Map.of(
+                        "buy_products", List.of(Map.of("product_id", 1, "quantity", 0)),
+                        "get_products", List.of(Map.of("product_id", 3, "quantity", 1)),
+                        "repetition_limit", 1)));
+
+        assertEquals("Coupon detail 'quantity' must be positive", exception.getMessage());
+
+        InvalidCouponException twice = assertThrows(InvalidCouponException.class,
+                () -> CouponRuleCompiler.compile(CouponType.BXGY, Map.of(
+                        "buy_products", List.of(Map.of("product_id", 1, "quantity", 1)),
+                        "get_products", List.of(Map.of("product_id", 3, "quantity", 1), Map.of("product_id", 3, "quantity", 2)),
+                        "repetition_limit", 1)));
+        InvalidCouponException choice = assertThrows(InvalidCouponException.class,
+                () -> CouponRuleCompiler.compile(CouponType.BXGY, Map.of(
+                        "buy_products", List.of(Map.of("product_id", 1, "quantity", 1)),
+                        "get_products", List.of(Map.of("product_id", 3, "quantity", 1)),
+                        "repetition_limit", 1,
+                        "free_items", "RANDOM")));
+
+        assertEquals("Coupon detail 'get_products' lists product 3 twice", twice.getMessage());
+        assertEquals("Coupon detail 'free_items' must be CHEAPEST or MOST_EXPENSIVE", choice.getMessage());
+    }
+}
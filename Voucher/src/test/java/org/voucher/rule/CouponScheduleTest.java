@@ -0,0 +1,88 @@
+package org.voucher.rule;
+
+import org.junit.jupiter.api.Test;
+import org.voucher.exception.InvalidCouponException;
+import org.voucher.model.Coupon;
+import org.voucher.model.DailyWindow;
+
+import java.time.Instant;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CouponScheduleTest {
+
+    private static final Instant T = Instant.parse("2024-06-01T10:00:00Z");
+
+    @Test
+    void testCouponWithoutScheduleIsAlwaysOpen() {
+        CouponSchedule schedule = CouponSchedule.of(new Coupon());
+
+        assertTrue(schedule.isAlwaysOpen());
+        assertTrue(schedule.isOpen(T));
+        assertNull(schedule.nextTransition(T));
+    }
+
+    @Test
+    void testValidityRangeIsHalfOpen() {
+        CouponSchedule schedule = CouponSchedule.of(coupon(T, T.plusSeconds(3600), null));
+
+        assertFalse(schedule.isOpen(T.minusMillis(1)));
+        assertTrue(schedule.isOpen(T));
+        assertFalse(schedule.isOpen(T.plusSeconds(3600)));
+        assertEquals(T, schedule.nextTransition(T.minusSeconds(60)));
+        assertEquals(T.plusSeconds(3600), schedule.nextTransition(T));
+        assertNull(schedule.nextTransition(T.plusSeconds(3600)));
+    }
+
+    @Test
+    void testDailyWindowInItsZone() {
+        // 17:00-19:00 in Paris is 15:00-17:00 UTC in June
+        CouponSchedule schedule = CouponSchedule.of(coupon(null, null,
+                new DailyWindow(LocalTime.of(17, 0), LocalTime.of(19, 0), "Europe/Paris")));
+
+        assertFalse(schedule.isOpen(T));
+        assertTrue(schedule.isOpen(Instant.parse("2024-06-01T15:00:00Z")));
+        assertFalse(schedule.isOpen(Instant.parse("2024-06-01T17:00:00Z")));
+        assertEquals(Instant.parse("2024-06-01T15:00:00Z"), schedule.nextTransition(T));
+        assertEquals(Instant.parse("2024-06-01T17:00:00Z"), schedule.nextTransition(Instant.parse("2024-06-01T15:00:00Z")));
+        assertEquals(Instant.parse("2024-06-02T15:00:00Z"), schedule.nextTransition(Instant.parse("2024-06-01T17:00:00Z")));
+    }
+
+    @Test
+    void testDailyWindowAcrossMidnight() {
+        CouponSchedule schedule = CouponSchedule.of(coupon(null, null,
+                new DailyWindow(LocalTime.of(22, 0), LocalTime.of(2, 0), null)));
+
+        assertTrue(schedule.isOpen(Instant.parse("2024-06-01T23:30:00Z")));
+        assertTrue(schedule.isOpen(Instant.parse("2024-06-02T01:59:59Z")));
+        assertFalse(schedule.isOpen(Instant.parse("2024-06-02T02:00:00Z")));
+        assertEquals(Instant.parse("2024-06-02T02:00:00Z"), schedule.nextTransition(Instant.parse("2024-06-01T23:30:00Z")));
+    }
+
+    @Test
+    void testRangeEndComesBeforeTheNextWindowBoundary() {
+        CouponSchedule schedule = CouponSchedule.of(coupon(null, Instant.parse("2024-06-01T16:00:00Z"),
+                new DailyWindow(LocalTime.of(15, 0), LocalTime.of(17, 0), "UTC")));
+
+        assertEquals(Instant.parse("2024-06-01T16:00:00Z"), schedule.nextTransition(Instant.parse("2024-06-01T15:30:00Z")));
+    }
+
+    @Test
+    void testRejectsMalformedSchedules() {
+        assertThrows(InvalidCouponException.class, () -> CouponSchedule.of(coupon(T, T, null)));
+        assertThrows(InvalidCouponException.class, () -> CouponSchedule.of(coupon(null, null,
+                new DailyWindow(LocalTime.NOON, LocalTime.NOON, null))));
+        InvalidCouponException exception = assertThrows(InvalidCouponException.class, () -> CouponSchedule.of(coupon(null, null,
+                new DailyWindow(LocalTime.NOON, LocalTime.MIDNIGHT, "Mars/Olympus"))));
+        assertTrue(exception.getMessage().contains("Mars/Olympus"));
+    }
+
+    private Coupon coupon(Instant from, Instant until, DailyWindow window) {
+        Coupon coupon = new Coupon();
+        coupon.setValidFrom(from);
+        coupon.setValidUntil(until);
+        coupon.setDailyWindow(window);
+        return coupon;
+    }
+}
@@ -0,0 +1,48 @@
+package org.voucher.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    void testNoFalseNegativesAndAboutTheConfiguredFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("CODE-" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("CODE-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("GUESS-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(7, filter.hashCount());
+    }
+
+    @Test
+    void testConcurrentPutsKeepEveryBit() throws InterruptedException {
+        BloomFilter filter = BloomFilter.create(200_000, 0.001);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = offset; i < 200_000; i += 4) {
+                    filter.put("C" + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(filter.mightContain("C" + i));
+        }
+    }
+}
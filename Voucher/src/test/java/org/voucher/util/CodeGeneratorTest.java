@@ -0,0 +1,42 @@
+package org.voucher.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodeGeneratorTest {
+
+    @Test
+    void testCodesAreUniqueAndWellFormed() {
+        CodeGenerator generator = new CodeGenerator("BF24-", 42);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            String code = generator.code(i);
+            assertTrue(code.matches("BF24-[0-9A-HJKMNP-TV-Z]{8}"), code);
+            assertTrue(codes.add(code), "duplicate " + code);
+        }
+    }
+
+    @Test
+    void testPermutationIsABijectionOnTheDomainEdges() {
+        CodeGenerator generator = new CodeGenerator("", 7);
+        Set<Long> values = new HashSet<>();
+        for (long i = CodeGenerator.CAPACITY - 1000; i < CodeGenerator.CAPACITY; i++) {
+            long value = generator.permute(i);
+            assertTrue(value >= 0 && value < CodeGenerator.CAPACITY);
+            assertTrue(values.add(value));
+        }
+        assertThrows(IllegalArgumentException.class, () -> generator.code(CodeGenerator.CAPACITY));
+    }
+
+    @Test
+    void testKeyChangesTheSequence() {
+        assertEquals(new CodeGenerator("", 1).code(5), new CodeGenerator("", 1).code(5));
+        assertNotEquals(new CodeGenerator("", 1).code(5), new CodeGenerator("", 2).code(5));
+        // consecutive sequence numbers do not give neighbouring codes
+        assertNotEquals(new CodeGenerator("", 1).code(0).substring(0, 6), new CodeGenerator("", 1).code(1).substring(0, 6));
+    }
+}
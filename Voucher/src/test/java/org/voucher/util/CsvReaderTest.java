@@ -0,0 +1,35 @@
+package org.voucher.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvReaderTest {
+
+    @Test
+    void testReadsQuotedFieldsAndLineBreaks() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "code,details\r\nA1,\"{\"\"discount\"\": 10}\"\n\nB2,\"two\nlines\"\nC3,"));
+
+        assertEquals(List.of("code", "details"), reader.next());
+        assertEquals(List.of("A1", "{\"discount\": 10}"), reader.next());
+        assertEquals(2, reader.recordLine());
+        assertEquals(List.of("B2", "two\nlines"), reader.next());
+        assertEquals(4, reader.recordLine());
+        assertEquals(List.of("C3", ""), reader.next());
+        assertEquals(6, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testRejectsAnUnterminatedQuote() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\n"));
+
+        IOException exception = assertThrows(IOException.class, reader::next);
+        assertTrue(exception.getMessage().startsWith("Line 1"));
+    }
+}
@@ -0,0 +1,44 @@
+package org.voucher.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntIntMapTest {
+
+    @Test
+    void testPutGetAndOverwrite() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(7, 70);
+        map.put(0, 5);
+        map.put(-3, 30);
+        map.put(7, 71);
+
+        assertEquals(71, map.get(7, -1));
+        assertEquals(5, map.get(0, -1));
+        assertEquals(30, map.get(-3, -1));
+        assertEquals(-1, map.get(8, -1));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(8));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void testGrowsAndMatchesAHashMap() {
+        IntIntMap map = new IntIntMap(0);
+        Map<Integer, Integer> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(50_000) - 10_000;
+            map.put(key, i);
+            expected.put(key, i);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key, Integer.MIN_VALUE)));
+    }
+}
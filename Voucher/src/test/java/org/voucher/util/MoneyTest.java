@@ -0,0 +1,47 @@
+package org.voucher.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    void testPercentOfIsExact() {
+        // 0.1 + 0.2 style drift: 10% of 0.30 as a double is 0.030000000000000002
+        assertEquals(3, Money.percentOf(30, 1000, RoundingMode.HALF_UP));
+        assertEquals(1_234_567_890_123L, Money.percentOf(12_345_678_901_230L, 1000, RoundingMode.HALF_UP));
+        assertEquals(125, Money.percentOf(1000, 1250, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void testDivideMatchesBigDecimalForEveryRoundingMode() {
+        long[] dividends = {0, 1, 5, 15, 25, 49, 50, 51, 99, 150, 250, -15, -25, -50, -51, 12_345_678};
+        for (RoundingMode mode : RoundingMode.values()) {
+            if (mode == RoundingMode.UNNECESSARY) {
+                continue;
+            }
+            for (long dividend : dividends) {
+                long expected = BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(100), 0, mode).longValueExact();
+                assertEquals(expected, Money.divide(dividend, 100, mode), mode + " " + dividend);
+            }
+        }
+    }
+
+    @Test
+    void testUnnecessaryRoundingFailsOnlyWhenInexact() {
+        assertEquals(2, Money.divide(200, 100, RoundingMode.UNNECESSARY));
+        assertThrows(ArithmeticException.class, () -> Money.divide(250, 100, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    void testDecimalConversions() {
+        assertEquals(1999, Money.fromDecimal(new BigDecimal("19.99")));
+        assertEquals(2000, Money.fromDecimal(new BigDecimal("19.995")));
+        assertEquals(new BigDecimal("19.99"), Money.toDecimal(1999));
+        assertThrows(ArithmeticException.class, () -> Money.fromUnits(Long.MAX_VALUE / 10));
+    }
+}
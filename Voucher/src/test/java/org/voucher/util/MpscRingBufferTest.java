@@ -0,0 +1,102 @@
+package org.voucher.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpscRingBufferTest {
+
+    @Test
+    void testDrainsInOfferOrderAcrossLaps() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.offer(lap * 10 + i));
+            }
+            assertEquals(3, buffer.drain(drained::add, Integer.MAX_VALUE));
+        }
+
+        assertEquals(List.of(0, 1, 2, 10, 11, 12, 20, 21, 22), drained);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void testFullBufferRejectsOffersUntilDrained() {
+        MpscRingBuffer<String> buffer = new MpscRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("e" + i));
+        }
+
+        assertFalse(buffer.offer("e4"));
+        assertEquals(4, buffer.size());
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertEquals(List.of("e0", "e1"), drained);
+        assertTrue(buffer.offer("e4"));
+        assertTrue(buffer.offer("e5"));
+        assertFalse(buffer.offer("e6"));
+    }
+
+    @Test
+    void testSingleSlotRequestStillHoldsOneElementAtATime() {
+        MpscRingBuffer<String> buffer = new MpscRingBuffer<>(1);
+        assertEquals(2, buffer.capacity());
+        assertTrue(buffer.offer("a"));
+        assertTrue(buffer.offer("b"));
+        assertFalse(buffer.offer("c"));
+    }
+
+    @Test
+    void testConcurrentProducersDeliverEveryAcceptedElementOnceAndInOrderPerProducer() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        long[] accepted = new long[producers];
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (buffer.offer(new long[]{producer, i})) {
+                        accepted[producer]++;
+                    }
+                }
+            });
+        }
+
+        long[] received = new long[producers];
+        long[] last = {-1, -1, -1, -1};
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads) {
+                running |= thread.isAlive();
+            }
+            buffer.drain(element -> {
+                int producer = (int) element[0];
+                outOfOrder.compareAndSet(false, element[1] <= last[producer]);
+                last[producer] = element[1];
+                received[producer]++;
+            }, 256);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        buffer.drain(element -> received[(int) element[0]]++, Integer.MAX_VALUE);
+
+        assertFalse(outOfOrder.get());
+        assertArrayEquals(accepted, received);
+        assertTrue(buffer.isEmpty());
+    }
+}